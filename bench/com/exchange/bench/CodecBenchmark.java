@@ -0,0 +1,106 @@
+package com.exchange.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.exchange.codec.ExecutionCodec;
+import com.exchange.codec.OrderCodec;
+import com.exchange.data.Execution;
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+/**
+ * Compares binary flyweight codecs against Java serialization for writing and
+ * reading back a batch of orders and executions. Time per message and encoded
+ * size are printed for each.
+ */
+public class CodecBenchmark {
+
+	private static final int MESSAGES = 200000;
+
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) throws Exception {
+		Order[] orders = new Order[MESSAGES];
+		Execution[] executions = new Execution[MESSAGES];
+		for (int i = 0; i < MESSAGES; i++) {
+			orders[i] = new Order(i, "SYM" + i % 100, i % 2 == 0 ? Side.Buy : Side.Sell, 100 + i % 1000, 95 + i % 1000 / 100.0);
+			executions[i] = new Execution(i, i, 100 + i % 1000, 950000 + i % 1000, ExecutionType.FULL);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(MESSAGES * OrderCodec.LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+
+		long checksum = 0;
+		long orderCodecNanos = Long.MAX_VALUE, orderSerialNanos = Long.MAX_VALUE;
+		long executionCodecNanos = Long.MAX_VALUE, executionSerialNanos = Long.MAX_VALUE;
+		int orderSerialSize = 0, executionSerialSize = 0;
+		for (int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			checksum += flyweightOrders(orders, buffer);
+			orderCodecNanos = Math.min(orderCodecNanos, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			orderSerialSize = serialize(orders);
+			orderSerialNanos = Math.min(orderSerialNanos, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			checksum += flyweightExecutions(executions, buffer);
+			executionCodecNanos = Math.min(executionCodecNanos, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			executionSerialSize = serialize(executions);
+			executionSerialNanos = Math.min(executionSerialNanos, System.nanoTime() - start);
+		}
+
+		System.out.println("Message\t\t| Encoding\t\t| Write+read (ns/msg)\t| Bytes/msg");
+		System.out.println("Order\t\t| Flyweight\t\t| " + orderCodecNanos / MESSAGES + "\t\t\t| " + OrderCodec.LENGTH);
+		System.out.println("Order\t\t| Serialization\t\t| " + orderSerialNanos / MESSAGES + "\t\t\t| " + orderSerialSize / MESSAGES);
+		System.out.println("Execution\t| Flyweight\t\t| " + executionCodecNanos / MESSAGES + "\t\t\t| " + ExecutionCodec.LENGTH);
+		System.out.println("Execution\t| Serialization\t\t| " + executionSerialNanos / MESSAGES + "\t\t\t| " + executionSerialSize / MESSAGES);
+		System.out.println("Checksum " + checksum);
+	}
+
+	private static long flyweightOrders(Order[] orders, ByteBuffer buffer) {
+		OrderCodec codec = new OrderCodec();
+		for (int i = 0; i < orders.length; i++)
+			codec.wrap(buffer, i * OrderCodec.LENGTH).encode(orders[i]);
+		long sum = 0;
+		for (int i = 0; i < orders.length; i++) {
+			codec.wrap(buffer, i * OrderCodec.LENGTH);
+			sum += codec.orderId() + codec.quantity() + (long) codec.price() + codec.symbolLength();
+		}
+		return sum;
+	}
+
+	private static long flyweightExecutions(Execution[] executions, ByteBuffer buffer) {
+		ExecutionCodec codec = new ExecutionCodec();
+		for (int i = 0; i < executions.length; i++)
+			codec.wrap(buffer, i * ExecutionCodec.LENGTH).encode(executions[i]);
+		long sum = 0;
+		for (int i = 0; i < executions.length; i++) {
+			codec.wrap(buffer, i * ExecutionCodec.LENGTH);
+			sum += codec.executionId() + codec.quantity() + codec.price() + codec.execType().ordinal();
+		}
+		return sum;
+	}
+
+	/** @return serialized size of all objects */
+	private static int serialize(Object[] objects) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(objects.length * 128);
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			for (Object object : objects)
+				// Each message is written on its own, as it would be sent or journalled
+				out.writeUnshared(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			for (int i = 0; i < objects.length; i++)
+				in.readUnshared();
+		}
+		return bytes.size();
+	}
+}
@@ -0,0 +1,164 @@
+package com.exchange.bench;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.exchange.Exchange;
+import com.exchange.ExchangeConstants;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.data.Side;
+import com.exchange.gateway.GatewayProtocol;
+import com.exchange.gateway.OrderGateway;
+import com.exchange.util.ExchangeUtils;
+
+/**
+ * Loopback client measuring round trip latency of OrderGateway. Opens many
+ * sessions from one selector thread, each session keeps one request in flight,
+ * alternately sending an order and cancelling it, and records time till its
+ * ack arrives. Gateway is started in process unless host and port are given.
+ * 
+ * Arguments: [sessions] [requests per session] [host port]
+ */
+public class GatewayLatencyClient {
+
+	private static final int DEFAULT_SESSIONS = 2000;
+	private static final int DEFAULT_REQUESTS_PER_SESSION = 200;
+
+	/** Requests per session not recorded so JIT can compile both sides first */
+	private static final int WARMUP_REQUESTS = 50;
+
+	private static final int SYMBOLS = 100;
+
+	/** Fixed-point value of price 1 at default exchange precision */
+	private static final long PRICE_UNIT = ExchangeUtils.powerOfTen(ExchangeConstants.DEFAULT_DECIMAL_PRECISION);
+
+	public static void main(String[] args) throws IOException {
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SESSIONS;
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS_PER_SESSION;
+		OrderGateway gateway = null;
+		InetSocketAddress address;
+		if (args.length > 3) {
+			address = new InetSocketAddress(args[2], Integer.parseInt(args[3]));
+		} else {
+			gateway = new OrderGateway(new Exchange(), new CumulativeVolumeMaximizationAlgo(),
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			gateway.start();
+			address = new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort());
+		}
+
+		long[] latencies = run(address, sessions, WARMUP_REQUESTS + requests);
+		if (gateway != null)
+			gateway.close();
+
+		Arrays.sort(latencies);
+		System.out.println("Sessions " + sessions + ", round trips " + latencies.length);
+		System.out.println("Percentile\t| Round trip (us)");
+		double[] percentiles = { 50, 90, 99, 99.9, 100 };
+		for (double percentile : percentiles) {
+			int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+			System.out.println(percentile + "\t\t| " + latencies[Math.max(index, 0)] / 1000);
+		}
+	}
+
+	private static long[] run(InetSocketAddress address, int sessionCount, int requests) throws IOException {
+		Selector selector = Selector.open();
+		Session[] sessions = new Session[sessionCount];
+		for (int i = 0; i < sessionCount; i++) {
+			SocketChannel channel = SocketChannel.open(address);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			channel.configureBlocking(false);
+			sessions[i] = new Session(i, channel, requests);
+			channel.register(selector, SelectionKey.OP_READ, sessions[i]);
+		}
+
+		long[] latencies = new long[sessionCount * (requests - WARMUP_REQUESTS)];
+		int recorded = 0;
+		int finished = 0;
+		for (Session session : sessions)
+			session.sendNext();
+		while (finished < sessionCount) {
+			selector.select();
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				Session session = (Session) key.attachment();
+				long now = System.nanoTime();
+				int acks = session.readAcks();
+				for (int i = 0; i < acks; i++) {
+					if (session.sent > WARMUP_REQUESTS)
+						latencies[recorded++] = now - session.sentAt;
+					if (session.sent < requests)
+						session.sendNext();
+					else
+						finished++;
+				}
+			}
+		}
+		for (Session session : sessions)
+			session.channel.close();
+		selector.close();
+		return Arrays.copyOf(latencies, recorded);
+	}
+
+	/** Client session keeping one request in flight */
+	private static class Session {
+
+		private final SocketChannel channel;
+		private final byte[] symbol;
+		private final int firstOrderId;
+		private final ByteBuffer out = ByteBuffer.allocateDirect(256);
+		private final ByteBuffer in = ByteBuffer.allocateDirect(4096);
+
+		private int sent;
+		private long sentAt;
+
+		Session(int index, SocketChannel channel, int requests) {
+			this.channel = channel;
+			this.symbol = ("SYM" + index % SYMBOLS).getBytes(StandardCharsets.US_ASCII);
+			this.firstOrderId = index * requests;
+		}
+
+		void sendNext() throws IOException {
+			// Every second request cancels previous order so books stay small
+			int orderId = firstOrderId + sent / 2 * 2;
+			if (sent % 2 == 0)
+				GatewayProtocol.putNewOrder(out, orderId, orderId % 4 == 0 ? Side.Buy : Side.Sell, 100, (100 + orderId % 10) * PRICE_UNIT, symbol);
+			else
+				GatewayProtocol.putCancelOrder(out, orderId);
+			out.flip();
+			sentAt = System.nanoTime();
+			while (out.hasRemaining())
+				channel.write(out);
+			out.clear();
+			sent++;
+		}
+
+		/** @return number of complete acks read */
+		int readAcks() throws IOException {
+			if (channel.read(in) < 0)
+				throw new IOException("Gateway closed session");
+			in.flip();
+			int acks = 0;
+			while (in.remaining() >= GatewayProtocol.LENGTH_SIZE) {
+				int length = in.getShort(in.position()) & 0xFFFF;
+				if (in.remaining() < GatewayProtocol.LENGTH_SIZE + length)
+					break;
+				if (in.get(in.position() + GatewayProtocol.LENGTH_SIZE) == GatewayProtocol.ACK)
+					acks++;
+				in.position(in.position() + GatewayProtocol.LENGTH_SIZE + length);
+			}
+			in.compact();
+			return acks;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.exchange.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import com.exchange.Exchange;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.journal.Journal;
+import com.exchange.journal.JournalReplayer;
+import com.exchange.journal.SyncPolicy;
+
+/**
+ * Measures rate of journalling orders and cancels through Exchange and rate of
+ * rebuilding an exchange by replaying the journal. Journal is written to a
+ * temporary directory which is deleted at the end.
+ */
+public class JournalReplayBenchmark {
+
+	private static final int ORDERS = 2000000;
+
+	private static final int SYMBOLS = 1000;
+
+	/** Every n-th order is cancelled again */
+	private static final int CANCEL_INTERVAL = 3;
+
+	public static void main(String[] args) throws IOException {
+		Path directory = Files.createTempDirectory("journal-bench");
+		try {
+			String[] symbols = new String[SYMBOLS];
+			for (int i = 0; i < SYMBOLS; i++)
+				symbols[i] = "SYM" + i;
+
+			Exchange exchange = new Exchange(4, SYMBOLS, ORDERS, ORDERS / SYMBOLS);
+			Journal journal = new Journal(directory, Journal.DEFAULT_SEGMENT_SIZE, SyncPolicy.NONE, Journal.DEFAULT_SYNC_BATCH_SIZE);
+			exchange.setJournal(journal);
+			long start = System.nanoTime();
+			for (int i = 0; i < ORDERS; i++) {
+				Side side = (i & 1) == 0 ? Side.Buy : Side.Sell;
+				exchange.sendOrder(new Order(i, symbols[i % SYMBOLS], side, 100 + i % 900, 90 + i % 20));
+				if (i % CANCEL_INTERVAL == 0)
+					exchange.cancelOrder(i);
+			}
+			journal.close();
+			long records = journal.getSequence();
+			print("Journal write", records, System.nanoTime() - start);
+
+			Exchange replayed = new Exchange(4, SYMBOLS, ORDERS, ORDERS / SYMBOLS);
+			start = System.nanoTime();
+			long replayedRecords = JournalReplayer.replay(directory, replayed);
+			print("Replay", replayedRecords, System.nanoTime() - start);
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path file : (Iterable<Path>) files::iterator)
+					Files.delete(file);
+			}
+			Files.delete(directory);
+		}
+	}
+
+	private static void print(String phase, long records, long nanos) {
+		System.out.println(phase + ": " + records + " records in " + nanos / 1000000 + " ms, " + (long) (records * 1e9 / nanos) + " records/s");
+	}
+}
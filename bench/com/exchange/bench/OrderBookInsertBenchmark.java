@@ -0,0 +1,56 @@
+package com.exchange.bench;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Measures latency of adding orders to a single price level as its queue grows.
+ * Average insert latency is printed for each block of orders, it should stay flat
+ * irrespective of number of orders already queued at the price.
+ */
+public class OrderBookInsertBenchmark {
+
+	/** Number of orders queued at the price level per run */
+	private static final int QUEUE_DEPTH = 200000;
+
+	/** Number of orders in each measured block */
+	private static final int BLOCK_SIZE = 20000;
+
+	/** Runs done before measured one to let JIT compile hot path */
+	private static final int WARMUP_RUNS = 5;
+
+	private static final long PRICE = 1000000;
+
+	public static void main(String[] args) {
+		Order[] orders = createOrders(QUEUE_DEPTH);
+		for (int i = 0; i < WARMUP_RUNS; i++)
+			run(orders, null);
+
+		long[] blockNanos = new long[QUEUE_DEPTH / BLOCK_SIZE];
+		run(orders, blockNanos);
+
+		System.out.println("Queue depth\t| Avg insert latency (ns)");
+		for (int block = 0; block < blockNanos.length; block++)
+			System.out.println((block + 1) * BLOCK_SIZE + "\t\t| " + blockNanos[block] / BLOCK_SIZE);
+	}
+
+	private static void run(Order[] orders, long[] blockNanos) {
+		OrderBook book = new OrderBook(orders.length);
+		for (int block = 0; block < orders.length / BLOCK_SIZE; block++) {
+			long start = System.nanoTime();
+			for (int i = block * BLOCK_SIZE; i < (block + 1) * BLOCK_SIZE; i++)
+				book.addOrder(orders[i], PRICE);
+			long elapsed = System.nanoTime() - start;
+			if (blockNanos != null)
+				blockNanos[block] = elapsed;
+		}
+	}
+
+	private static Order[] createOrders(int count) {
+		Order[] orders = new Order[count];
+		for (int i = 0; i < count; i++)
+			orders[i] = new Order(i, "0005.HK", Side.Buy, 100, 100.0);
+		return orders;
+	}
+}
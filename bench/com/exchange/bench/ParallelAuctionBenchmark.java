@@ -0,0 +1,62 @@
+package com.exchange.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.exchange.Exchange;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+/**
+ * Measures time to uncross all order books of an exchange with parallel auction
+ * for increasing number of worker threads. Books are of uneven size, with a few
+ * much bigger than the rest, to show work is spread by book size.
+ */
+public class ParallelAuctionBenchmark {
+
+	private static final int SYMBOLS = 2000;
+
+	/** Orders per side in a normal and a big book */
+	private static final int ORDERS_PER_BOOK = 200;
+	private static final int ORDERS_PER_BIG_BOOK = 20000;
+
+	/** Every n-th symbol gets a big book */
+	private static final int BIG_BOOK_INTERVAL = 500;
+
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		MatchingAlgo algo = new CumulativeVolumeMaximizationAlgo();
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Threads\t| Auction time (ms)");
+		for (int threads = 1; threads <= cores; threads = threads * 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long best = Long.MAX_VALUE;
+			for (int run = 0; run < RUNS; run++) {
+				Exchange exchange = createExchange();
+				long start = System.nanoTime();
+				exchange.runAuction(algo, pool);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			pool.shutdown();
+			System.out.println(threads + "\t| " + best / 1000000);
+		}
+	}
+
+	private static Exchange createExchange() {
+		Random random = new Random(1);
+		Exchange exchange = new Exchange(4, SYMBOLS, SYMBOLS * ORDERS_PER_BOOK * 2, ORDERS_PER_BOOK * 2);
+		int orderId = 0;
+		for (int symbolIndex = 0; symbolIndex < SYMBOLS; symbolIndex++) {
+			String symbol = "SYM" + symbolIndex;
+			int orders = symbolIndex % BIG_BOOK_INTERVAL == 0 ? ORDERS_PER_BIG_BOOK : ORDERS_PER_BOOK;
+			for (int i = 0; i < orders; i++) {
+				exchange.sendOrder(new Order(orderId++, symbol, Side.Buy, 100 + random.nextInt(1000), 95 + random.nextInt(1000) / 100.0));
+				exchange.sendOrder(new Order(orderId++, symbol, Side.Sell, 100 + random.nextInt(1000), 95 + random.nextInt(1000) / 100.0));
+			}
+		}
+		return exchange;
+	}
+}
@@ -0,0 +1,73 @@
+package com.exchange.bench;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.engine.OrderCallback;
+import com.exchange.engine.ShardedExchange;
+
+/**
+ * Measures order throughput of sharded exchange for increasing number of
+ * shards. One producer thread per shard sends orders for many symbols, so
+ * throughput should grow with shard count up to number of cores.
+ */
+public class ShardedExchangeBenchmark {
+
+	private static final int SYMBOLS = 1000;
+
+	private static final int ORDERS_PER_PRODUCER = 1000000;
+
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Shards\t| Orders per second");
+		for (int shards = 1; shards <= Math.max(1, cores / 2); shards = shards * 2) {
+			double best = 0;
+			for (int run = 0; run < RUNS; run++)
+				best = Math.max(best, run(shards));
+			System.out.println(shards + "\t| " + (long) best);
+		}
+	}
+
+	private static double run(int shards) throws Exception {
+		final int totalOrders = shards * ORDERS_PER_PRODUCER;
+		final ShardedExchange exchange = new ShardedExchange(shards, ShardedExchange.DEFAULT_RING_BUFFER_SIZE, 4, SYMBOLS, totalOrders,
+				totalOrders / SYMBOLS);
+		final String[] symbols = new String[SYMBOLS];
+		for (int i = 0; i < SYMBOLS; i++)
+			symbols[i] = "SYM" + i;
+		final CountDownLatch done = new CountDownLatch(shards);
+		final OrderCallback callback = new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				// Last order of each producer marks its end
+				if ((orderId + 1) % ORDERS_PER_PRODUCER == 0)
+					done.countDown();
+			}
+		};
+		exchange.start();
+
+		long start = System.nanoTime();
+		Thread[] producers = new Thread[shards];
+		for (int p = 0; p < shards; p++) {
+			final int producer = p;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int firstId = producer * ORDERS_PER_PRODUCER;
+					for (int i = 0; i < ORDERS_PER_PRODUCER; i++) {
+						Side side = (i & 1) == 0 ? Side.Buy : Side.Sell;
+						exchange.sendOrder(new Order(firstId + i, symbols[i % SYMBOLS], side, 100, 90 + (i % 20)), callback);
+					}
+				}
+			});
+			producers[p].start();
+		}
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		exchange.shutdown();
+		return totalOrders * 1e9 / elapsed;
+	}
+}
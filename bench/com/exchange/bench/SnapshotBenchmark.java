@@ -0,0 +1,71 @@
+package com.exchange.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.exchange.Exchange;
+import com.exchange.ExchangeSnapshot;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+/**
+ * Measures startup time of an exchange from a snapshot against rebuilding it
+ * by sending every order again, for increasing number of resting orders.
+ */
+public class SnapshotBenchmark {
+
+	private static final int SYMBOLS = 100;
+
+	private static final int[] ORDER_COUNTS = { 10000, 100000, 1000000 };
+
+	private static final int RUNS = 3;
+
+	public static void main(String[] args) throws IOException {
+		Path file = Files.createTempFile("exchange", ".snapshot");
+		try {
+			System.out.println("Orders\t\t| Snapshot size (KB)\t| Load snapshot (ms)\t| Send all orders (ms)");
+			for (int orders : ORDER_COUNTS) {
+				Order[] allOrders = createOrders(orders);
+				Exchange exchange = createExchange(orders);
+				for (Order order : allOrders)
+					exchange.sendOrder(order);
+				ExchangeSnapshot.write(exchange, file);
+
+				long loadNanos = Long.MAX_VALUE;
+				long sendNanos = Long.MAX_VALUE;
+				for (int run = 0; run < RUNS; run++) {
+					Exchange loaded = createExchange(orders);
+					long start = System.nanoTime();
+					ExchangeSnapshot.load(loaded, file);
+					loadNanos = Math.min(loadNanos, System.nanoTime() - start);
+
+					Exchange rebuilt = createExchange(orders);
+					start = System.nanoTime();
+					for (Order order : allOrders)
+						rebuilt.sendOrder(order);
+					sendNanos = Math.min(sendNanos, System.nanoTime() - start);
+				}
+				System.out.println(orders + "\t\t| " + Files.size(file) / 1024 + "\t\t\t| " + loadNanos / 1000000 + "\t\t\t| "
+						+ sendNanos / 1000000);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static Exchange createExchange(int orders) {
+		return new Exchange(4, SYMBOLS, orders, orders / SYMBOLS);
+	}
+
+	private static Order[] createOrders(int count) {
+		Order[] orders = new Order[count];
+		for (int i = 0; i < count; i++) {
+			Side side = (i & 1) == 0 ? Side.Buy : Side.Sell;
+			// Bids below asks so nothing crosses and all orders rest
+			double price = side == Side.Buy ? 90 + i % 500 / 100.0 : 100 + i % 500 / 100.0;
+			orders[i] = new Order(i, "SYM" + i % SYMBOLS, side, 100 + i % 900, price);
+		}
+		return orders;
+	}
+}
@@ -0,0 +1,53 @@
+package com.exchange.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Throughput of adding an order to a price level which already has queueDepth
+ * orders. Each operation adds an order at the tail of the queue and cancels it
+ * again so the depth stays the same for the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddOrderBenchmark {
+
+	@Param({ "0", "1000", "100000" })
+	public int queueDepth;
+
+	private OrderBook book;
+	private Order order;
+
+	@Setup
+	public void setup() {
+		book = new OrderBook(queueDepth + 1);
+		for (Order queued : BookFixtures.createOrders(0, queueDepth, Side.Buy))
+			book.addOrder(queued, BookFixtures.BASE_PRICE);
+		order = BookFixtures.createOrders(queueDepth, 1, Side.Buy)[0];
+	}
+
+	@Benchmark
+	public boolean addOrder() {
+		book.addOrder(order, BookFixtures.BASE_PRICE);
+		return book.removeOrder(order.getOrderId());
+	}
+}
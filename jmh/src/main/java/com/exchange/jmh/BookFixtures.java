@@ -0,0 +1,54 @@
+package com.exchange.jmh;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Builds order books of a given shape for benchmarks
+ */
+final class BookFixtures {
+
+	static final String SYMBOL = "0005.HK";
+
+	/** Long price around which books are built */
+	static final long BASE_PRICE = 1000000;
+
+	static final long ORDER_QTY = 100;
+
+	private BookFixtures() {
+	}
+
+	static Order[] createOrders(int firstId, int count, Side side) {
+		Order[] orders = new Order[count];
+		for (int i = 0; i < count; i++)
+			orders[i] = new Order(firstId + i, SYMBOL, side, ORDER_QTY, 100.0);
+		return orders;
+	}
+
+	/**
+	 * Creates a book with given number of price levels on each side and orders
+	 * per level. Crossed book interleaves bid and ask prices so every level is a
+	 * candidate match price, uncrossed book keeps all bids below all asks.
+	 */
+	static OrderBook createBook(int levels, int ordersPerLevel, boolean crossed) {
+		int ordersPerSide = levels * ordersPerLevel;
+		OrderBook book = new OrderBook(ordersPerSide * 2);
+		Order[] bids = createOrders(0, ordersPerSide, Side.Buy);
+		Order[] asks = createOrders(ordersPerSide, ordersPerSide, Side.Sell);
+		fillBook(book, bids, asks, ordersPerLevel, crossed);
+		return book;
+	}
+
+	/**
+	 * Adds bids and asks to book, ordersPerLevel orders at each price level. Once
+	 * book has held these orders before, filling it again creates no objects.
+	 */
+	static void fillBook(OrderBook book, Order[] bids, Order[] asks, int ordersPerLevel, boolean crossed) {
+		for (int i = 0; i < bids.length; i++) {
+			int level = i / ordersPerLevel;
+			book.addOrder(bids[i], crossed ? BASE_PRICE + 2 * level : BASE_PRICE - level);
+			book.addOrder(asks[i], crossed ? BASE_PRICE + 2 * level + 1 : BASE_PRICE + 1 + level);
+		}
+	}
+}
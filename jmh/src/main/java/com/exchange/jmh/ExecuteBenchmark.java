@@ -0,0 +1,90 @@
+package com.exchange.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.data.Execution;
+import com.exchange.data.ExecutionIdAllocator;
+import com.exchange.data.ExecutionSink;
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Throughput of executing a large fill across a crossed book. Book is refilled
+ * with the same orders before each operation, which is long enough for
+ * per-invocation setup not to distort the result, and refilling creates no
+ * objects so allocation rate is of the execution alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+
+	@Param({ "10", "100" })
+	public int levels;
+
+	@Param({ "100", "1000" })
+	public int ordersPerLevel;
+
+	private Order[] bids;
+	private Order[] asks;
+	private OrderBook book;
+	private MatchingResult match;
+	private final ExecutionIdAllocator executionIds = new ExecutionIdAllocator();
+
+	@Setup(Level.Trial)
+	public void createBook() {
+		int ordersPerSide = levels * ordersPerLevel;
+		bids = BookFixtures.createOrders(0, ordersPerSide, Side.Buy);
+		asks = BookFixtures.createOrders(ordersPerSide, ordersPerSide, Side.Sell);
+		book = new OrderBook(ordersPerSide * 2);
+		BookFixtures.fillBook(book, bids, asks, ordersPerLevel, true);
+		match = new CumulativeVolumeMaximizationAlgo().execute(book);
+	}
+
+	@Setup(Level.Invocation)
+	public void refillBook() {
+		// Orders left over by previous fill are taken out so queue order is the same every time
+		for (int i = 0; i < bids.length; i++) {
+			book.removeOrder(bids[i].getOrderId());
+			book.removeOrder(asks[i].getOrderId());
+		}
+		BookFixtures.fillBook(book, bids, asks, ordersPerLevel, true);
+	}
+
+	@Benchmark
+	public int executeWithSink(final Blackhole blackhole) {
+		return book.execute(match.getPrice(), match.getVolume(), executionIds, new ExecutionSink() {
+			@Override
+			public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+				blackhole.consume(orderId);
+			}
+		});
+	}
+
+	@Benchmark
+	public List<Execution> executeToList() {
+		return book.execute(match.getPrice(), match.getVolume(), executionIds);
+	}
+}
@@ -0,0 +1,62 @@
+package com.exchange.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.algo.VolumeMaximizationAlgo;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Throughput of finding the match price of a book with given number of levels
+ * per side and orders per level, crossed or uncrossed. Book is not changed by
+ * the algorithm so the same book is used for every operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingAlgoBenchmark {
+
+	@Param({ "VolumeMaximization", "CumulativeVolumeMaximization" })
+	public String algo;
+
+	@Param({ "10", "100", "1000" })
+	public int levels;
+
+	@Param({ "1", "10" })
+	public int ordersPerLevel;
+
+	@Param({ "true", "false" })
+	public boolean crossed;
+
+	private MatchingAlgo matchingAlgo;
+	private OrderBook book;
+
+	@Setup
+	public void setup() {
+		matchingAlgo = "VolumeMaximization".equals(algo) ? new VolumeMaximizationAlgo()
+				: new CumulativeVolumeMaximizationAlgo();
+		book = BookFixtures.createBook(levels, ordersPerLevel, crossed);
+	}
+
+	@Benchmark
+	public MatchingResult execute() {
+		return matchingAlgo.execute(book);
+	}
+}
@@ -0,0 +1,47 @@
+package com.exchange.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Throughput of rendering an uncrossed book with given number of levels per
+ * side as text
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintBookBenchmark {
+
+	private static final int DECIMAL_PRECISION = 4;
+
+	@Param({ "10", "1000" })
+	public int levels;
+
+	private OrderBook book;
+
+	@Setup
+	public void setup() {
+		book = BookFixtures.createBook(levels, 1, false);
+	}
+
+	@Benchmark
+	public String printBook() {
+		return book.printBook(DECIMAL_PRECISION);
+	}
+}
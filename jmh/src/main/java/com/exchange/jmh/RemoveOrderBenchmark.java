@@ -0,0 +1,69 @@
+package com.exchange.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Throughput of cancelling an order at head, middle or tail of a queue of
+ * queueDepth orders at one price. Each operation cancels the order at the
+ * chosen position and adds it back at the tail, so depth stays the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoveOrderBenchmark {
+
+	public enum Position {
+		HEAD, MIDDLE, TAIL
+	}
+
+	@Param({ "1000", "100000" })
+	public int queueDepth;
+
+	@Param
+	public Position position;
+
+	private OrderBook book;
+	private Order[] orders;
+	private int firstId;
+	private int step;
+
+	@Setup
+	public void setup() {
+		book = new OrderBook(queueDepth);
+		orders = BookFixtures.createOrders(0, queueDepth, Side.Buy);
+		for (Order order : orders)
+			book.addOrder(order, BookFixtures.BASE_PRICE);
+		// Ids 0..queueDepth-1 are queued in order, moving the order at the
+		// position to the tail makes the next id slide into that position
+		firstId = position == Position.HEAD ? 0 : position == Position.MIDDLE ? queueDepth / 2 : queueDepth - 1;
+		step = 0;
+	}
+
+	@Benchmark
+	public boolean removeOrder() {
+		Order order = orders[firstId + step];
+		if (++step == queueDepth - firstId)
+			step = 0;
+		book.removeOrder(order.getOrderId());
+		return book.addOrder(order, BookFixtures.BASE_PRICE);
+	}
+}
@@ -0,0 +1,77 @@
+package com.exchange.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.exchange.Exchange;
+import com.exchange.OrderBatch;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+/**
+ * Throughput of sending a burst of orders for one symbol spread over a few
+ * price levels, one by one against as a single batch. Each operation sends the
+ * burst and cancels it again so the exchange holds the same orders for the
+ * whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendOrdersBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int batchSize;
+
+	@Param({ "5" })
+	public int levels;
+
+	private Exchange exchange;
+	private Order[] orders;
+	private OrderBatch batch;
+
+	@Setup
+	public void setup() {
+		exchange = new Exchange(4, 16, batchSize * 2, batchSize * 2);
+		orders = new Order[batchSize];
+		batch = new OrderBatch(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			Side side = i % 2 == 0 ? Side.Buy : Side.Sell;
+			long price = side == Side.Buy ? BookFixtures.BASE_PRICE - i % levels : BookFixtures.BASE_PRICE + 1 + i % levels;
+			orders[i] = new Order(i, BookFixtures.SYMBOL, side, BookFixtures.ORDER_QTY, price, 4);
+			batch.add(orders[i]);
+		}
+	}
+
+	@Benchmark
+	public int sendOrder() {
+		int accepted = 0;
+		for (Order order : orders) {
+			if (exchange.sendOrder(order))
+				accepted++;
+		}
+		for (Order order : orders)
+			exchange.cancelOrder(order);
+		return accepted;
+	}
+
+	@Benchmark
+	public int sendOrders() {
+		int accepted = exchange.sendOrders(batch);
+		exchange.cancelOrders(batch);
+		return accepted;
+	}
+}
@@ -4,11 +4,13 @@ import java.util.List;
 import java.util.Random;
 
 import com.exchange.Exchange;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
 import com.exchange.algo.MatchingResult;
-import com.exchange.algo.VolumeMaximizationAlgo;
 import com.exchange.data.Execution;
 import com.exchange.data.Order;
 import com.exchange.data.Side;
+import com.exchange.load.LoadGenerator;
+import com.exchange.load.LoadProfile;
 import com.exchange.util.ExchangeUtils;
 
 public class VolumeMaximizerSimulation {
@@ -31,9 +33,21 @@ public class VolumeMaximizerSimulation {
 	/** Total program run time in minutes */
 	private static final int PROGRAM_RUN_TIME_IN_MINS = 15;
 
+	/** Load mode defaults, overridden by arguments: load [rate] [seconds] [symbols] [cancel ratio] [seed] */
+	private static final int LOAD_RATE_PER_SECOND = 100000;
+	private static final int LOAD_RUN_TIME_IN_SECONDS = 30;
+	private static final int LOAD_SYMBOL_COUNT = 100;
+	private static final double LOAD_CANCEL_RATIO = 0.3;
+	private static final long LOAD_SEED = 42;
+	private static final int LOAD_WARMUP_IN_SECONDS = 5;
+
 	private static final Random random = new Random(System.currentTimeMillis());
 
 	public static void main(String[] args) {
+		if (args.length > 0 && "load".equals(args[0])) {
+			runLoad(args);
+			return;
+		}
 		Exchange exchange = new Exchange(DECIMAL_PRECISION);
 		long startTime = System.currentTimeMillis();
 		System.out.println("Order send operations started at," + new Date(startTime));
@@ -51,7 +65,7 @@ public class VolumeMaximizerSimulation {
 		System.out.println(exchange.getBookForSymbol(DEFAULT_SYMBOL).printBook(DECIMAL_PRECISION));
 		
 		//Run Volume maximization Algorithm on order book
-		MatchingResult rs = exchange.runMatchingAlgo(new VolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		MatchingResult rs = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
 		if (rs.matched()) {
 			System.out.println("Match found, Highest volume," + rs.getVolume() + 
 					" at price," + ExchangeUtils.convertPriceToDouble(rs.getPrice(), DECIMAL_PRECISION));
@@ -66,6 +80,23 @@ public class VolumeMaximizerSimulation {
 			System.out.println("Match not found");
 	}
 
+	/**
+	 * Drives exchange at a fixed rate with orders drawn from same distributions
+	 * as the simulation and prints throughput and latency percentiles
+	 */
+	private static void runLoad(String[] args) {
+		LoadProfile profile = new LoadProfile()
+				.setRatePerSecond(args.length > 1 ? Integer.parseInt(args[1]) : LOAD_RATE_PER_SECOND)
+				.setDurationMillis((args.length > 2 ? Integer.parseInt(args[2]) : LOAD_RUN_TIME_IN_SECONDS) * 1000L)
+				.setSymbolCount(args.length > 3 ? Integer.parseInt(args[3]) : LOAD_SYMBOL_COUNT)
+				.setCancelRatio(args.length > 4 ? Double.parseDouble(args[4]) : LOAD_CANCEL_RATIO)
+				.setSeed(args.length > 5 ? Long.parseLong(args[5]) : LOAD_SEED)
+				.setWarmupMillis(LOAD_WARMUP_IN_SECONDS * 1000L)
+				.setPrice(MEAN_FOR_PRICE, STD_DEVIATION_FOR_PRICE)
+				.setQuantity(MEAN_FOR_QUANTITY, STD_DEVIATION_FOR_QUANTITY);
+		LoadGenerator.run(new Exchange(DECIMAL_PRECISION), profile).print(System.out);
+	}
+
 	private static void waitForTimeInSeconds(int time) {
 		try {
 			Thread.sleep(time * 1000);
@@ -89,18 +120,17 @@ public class VolumeMaximizerSimulation {
 
 	private static Order createOrderFromDistribution(Side side) {
 		long qty = getLong(MEAN_FOR_QUANTITY, STD_DEVIATION_FOR_QUANTITY);
-		double price = getDoubleWithPrecision(MEAN_FOR_PRICE, STD_DEVIATION_FOR_PRICE);
+		long price = getPriceWithPrecision(MEAN_FOR_PRICE, STD_DEVIATION_FOR_PRICE);
 
-		return new Order(++DEFAULT_ORDER_ID, DEFAULT_SYMBOL, side, qty, price);
+		return new Order(++DEFAULT_ORDER_ID, DEFAULT_SYMBOL, side, qty, price, DECIMAL_PRECISION);
 	}
 
 	private static long getLong(double mean, double stdDeviation) {
 		return (long) ((random.nextGaussian() * stdDeviation) + mean);
 	}
 
-	private static double getDoubleWithPrecision(double mean, double stdDeviation) {
+	private static long getPriceWithPrecision(double mean, double stdDeviation) {
 		double value = (random.nextGaussian() * stdDeviation) + mean;
-		long price = ExchangeUtils.convertPriceToLong(value, DECIMAL_PRECISION);
-		return ExchangeUtils.convertPriceToDouble(price, DECIMAL_PRECISION);
+		return ExchangeUtils.convertPriceToLong(value, DECIMAL_PRECISION);
 	}
 }
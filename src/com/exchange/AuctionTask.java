@@ -0,0 +1,86 @@
+package com.exchange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.exchange.algo.AuctionResult;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Fork join task running matching algorithm and executing the match on a set of
+ * order books. A sub task is forked per book in descending order of book size,
+ * so idle workers steal biggest books first and a huge book is not left to the
+ * end of the batch.
+ */
+class AuctionTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Exchange exchange;
+	private final MatchingAlgo exchangeAlgo;
+	private final String[] symbols;
+	private final OrderBook[] books;
+	private final AuctionResult[] results;
+
+	/**
+	 * @param books
+	 *            order books at same index as their symbols, null if symbol has no book
+	 */
+	AuctionTask(Exchange exchange, MatchingAlgo exchangeAlgo, String[] symbols, OrderBook[] books) {
+		this.exchange = exchange;
+		this.exchangeAlgo = exchangeAlgo;
+		this.symbols = symbols;
+		this.books = books;
+		this.results = new AuctionResult[symbols.length];
+	}
+
+	@Override
+	protected void compute() {
+		// Sizes are read once, books may still change while tasks are ordered
+		int[] orderCounts = new int[books.length];
+		for (int i = 0; i < books.length; i++)
+			orderCounts[i] = orderCount(books[i]);
+		// Order count in high bits and index in low bits sorts indexes by size without boxing
+		long[] bySize = new long[books.length];
+		for (int i = 0; i < bySize.length; i++)
+			bySize[i] = ((long) orderCounts[i] << 32) | i;
+		Arrays.sort(bySize);
+
+		// Tasks forked first are stolen first by idle workers, biggest book is at the end
+		List<BookAuction> tasks = new ArrayList<>(books.length);
+		for (int i = bySize.length - 1; i >= 0; i--) {
+			BookAuction task = new BookAuction((int) bySize[i]);
+			task.fork();
+			tasks.add(task);
+		}
+		for (BookAuction task : tasks)
+			task.join();
+	}
+
+	private static int orderCount(OrderBook book) {
+		return book == null ? 0 : book.getOrderCount();
+	}
+
+	AuctionResult[] getResults() {
+		return results;
+	}
+
+	private class BookAuction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int index;
+
+		BookAuction(int index) {
+			this.index = index;
+		}
+
+		@Override
+		protected void compute() {
+			results[index] = exchange.runAuction(exchangeAlgo, symbols[index], books[index]);
+		}
+	}
+}
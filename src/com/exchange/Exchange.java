@@ -4,21 +4,40 @@ import static com.exchange.ExchangeConstants.DEFAULT_DECIMAL_PRECISION;
 import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_ORDERBOOK_CAPACITY;
 import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_ORDERS_COUNT;
 import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_SYMBOLS_COUNT;
+import static com.exchange.ExchangeConstants.DEFAULT_ORDER_STORE_STRIPES;
+import static com.exchange.ExchangeConstants.DEFAULT_PRICE_BAND_LEVELS;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import com.exchange.algo.AuctionResult;
 import com.exchange.algo.MatchingAlgo;
 import com.exchange.algo.MatchingResult;
 import com.exchange.data.Execution;
+import com.exchange.data.ExecutionCollector;
+import com.exchange.data.ExecutionIdAllocator;
+import com.exchange.data.ExecutionSink;
 import com.exchange.data.Order;
+import com.exchange.journal.Journal;
+import com.exchange.metrics.ExchangeMetrics;
+import com.exchange.metrics.Operation;
+import com.exchange.metrics.RejectReason;
+import com.exchange.orderbook.DensePriceLadder;
 import com.exchange.orderbook.OrderBook;
-import com.exchange.util.ExchangeUtils;
+import com.exchange.util.SymbolRegistry;
 
 /**
  * Main class to store Exchange related order books and information about order
  * received. It provides functions to send/cancel order to book and create executions.
+ * All functions can be called from many threads, order books are locked per symbol
+ * so that different symbols proceed in parallel.
  */
 public class Exchange {
 	
@@ -27,12 +46,36 @@ public class Exchange {
 	
 	/** Initial capacity of order entries in Order book */
 	private final int orderBookCapacity;
+
+	/** Ticks covered by dense price ladder of Order books, 0 for sorted price ladder */
+	private final int priceBandLevels;
+
+	/** Most ticks dense price ladder may grow to, orders priced beyond are rejected */
+	private final int maxPriceBandLevels;
+
+	/** True when exchange is only used by one thread, books and order store then take no locks */
+	private final boolean singleWriter;
 	
 	/** Map to store orders live in exchange */
-	private final HashMap<Integer, Order> orderStore;
+	private final StripedOrderStore orderStore;
 	
 	/** Map to store Order books live in exchange */
-	private final HashMap<String, OrderBook> symbolBooks;
+	private final ConcurrentHashMap<String, OrderBook> symbolBooks;
+
+	/** Dense int id of every symbol seen by exchange */
+	private final SymbolRegistry symbolRegistry;
+
+	/** Order books indexed by symbol id, replaced by a bigger copy when full */
+	private volatile AtomicReferenceArray<OrderBook> booksById;
+
+	/** Journal recording accepted changes, null if not journalled */
+	private volatile Journal journal;
+
+	/** Ids of executions created by exchange, may be shared with other exchanges */
+	private volatile ExecutionIdAllocator executionIds = new ExecutionIdAllocator();
+
+	/** Receiver of operation latencies and counts, no-op by default */
+	private volatile ExchangeMetrics metrics = ExchangeMetrics.NONE;
 
 	public Exchange() {
 		this(DEFAULT_DECIMAL_PRECISION, DEFAULT_INITIAL_SYMBOLS_COUNT, DEFAULT_INITIAL_ORDERS_COUNT, DEFAULT_INITIAL_ORDERBOOK_CAPACITY);
@@ -43,10 +86,103 @@ public class Exchange {
 	}
 	
 	public Exchange(int decimalPrecision, int symbolCount, int orderCount, int orderBookCapacity) {
+		this(decimalPrecision, symbolCount, orderCount, orderBookCapacity, DEFAULT_PRICE_BAND_LEVELS);
+	}
+
+	/**
+	 * @param priceBandLevels
+	 *            if greater than 0, order books use dense price ladder covering
+	 *            these many ticks around price of first order for the symbol
+	 */
+	public Exchange(int decimalPrecision, int symbolCount, int orderCount, int orderBookCapacity, int priceBandLevels) {
+		this(decimalPrecision, symbolCount, orderCount, orderBookCapacity, priceBandLevels,
+				Math.max(priceBandLevels, DensePriceLadder.DEFAULT_MAX_BAND_LEVELS));
+	}
+
+	/**
+	 * @param priceBandLevels
+	 *            if greater than 0, order books use dense price ladder covering
+	 *            these many ticks around price of first order for the symbol
+	 * @param maxPriceBandLevels
+	 *            most ticks dense price ladder may be grown to when prices move,
+	 *            orders which would need a wider band are rejected as invalid
+	 *            price
+	 */
+	public Exchange(int decimalPrecision, int symbolCount, int orderCount, int orderBookCapacity, int priceBandLevels, int maxPriceBandLevels) {
+		this(decimalPrecision, symbolCount, orderCount, orderBookCapacity, priceBandLevels, maxPriceBandLevels, false);
+	}
+
+	/**
+	 * @param singleWriter
+	 *            true if exchange is only ever used by one thread, as by a shard
+	 *            of ShardedExchange. Order books and order store then take no
+	 *            locks, exchange must not be touched by other threads till that
+	 *            thread is done with it.
+	 */
+	public Exchange(int decimalPrecision, int symbolCount, int orderCount, int orderBookCapacity, int priceBandLevels, int maxPriceBandLevels,
+			boolean singleWriter) {
 		this.decimalPrecision = decimalPrecision;
 		this.orderBookCapacity = orderBookCapacity;
-		this.symbolBooks = new HashMap<String, OrderBook>(symbolCount);
-		this.orderStore = new HashMap<>(orderCount);
+		this.priceBandLevels = priceBandLevels;
+		this.maxPriceBandLevels = maxPriceBandLevels;
+		this.symbolBooks = new ConcurrentHashMap<String, OrderBook>(symbolCount);
+		this.symbolRegistry = new SymbolRegistry(symbolCount);
+		this.booksById = new AtomicReferenceArray<OrderBook>(Math.max(symbolCount, 16));
+		this.singleWriter = singleWriter;
+		this.orderStore = singleWriter ? new StripedOrderStore(orderCount, 1, false)
+				: new StripedOrderStore(orderCount, DEFAULT_ORDER_STORE_STRIPES);
+	}
+
+	/**
+	 * Attaches journal to which every accepted order, cancel and executed match
+	 * is written, under lock of its book so journal order matches book order.
+	 * Should be attached before orders are sent, e.g. after replaying journal.
+	 * 
+	 * @param journal
+	 *            journal to write to, null to stop journalling
+	 */
+	public void setJournal(Journal journal) {
+		this.journal = journal;
+		journalExecutionIds(executionIds, journal);
+	}
+
+	/**
+	 * Every block of execution ids is journalled before it is used, so replay
+	 * never reuses an id. Blocks claimed before journal was attached are covered
+	 * by journalling reserved id once listener is in place.
+	 */
+	private static void journalExecutionIds(ExecutionIdAllocator executionIds, Journal journal) {
+		executionIds.setBlockListener(journal == null ? null : journal::appendExecutionIdBlock);
+		if (journal != null && executionIds.getReservedId() > 0)
+			journal.appendExecutionIdBlock(executionIds.getReservedId());
+	}
+
+	/**
+	 * @return allocator of ids given to executions created by exchange
+	 */
+	public ExecutionIdAllocator getExecutionIds() {
+		return executionIds;
+	}
+
+	/**
+	 * Replaces allocator of execution ids, e.g. so that exchanges of all shards
+	 * take blocks from one allocator and ids are unique across shards. Should be
+	 * set before orders are sent.
+	 */
+	public void setExecutionIds(ExecutionIdAllocator executionIds) {
+		this.executionIds = executionIds;
+		journalExecutionIds(executionIds, journal);
+	}
+
+	/**
+	 * Attaches metrics which receive latency of every operation and counts of
+	 * orders, cancels and executions
+	 * 
+	 * @param metrics
+	 *            metrics to record to, null to stop recording
+	 */
+	public void setMetrics(ExchangeMetrics metrics) {
+		this.metrics = metrics == null ? ExchangeMetrics.NONE : metrics;
 	}
 
 	/**
@@ -57,34 +193,127 @@ public class Exchange {
 	 * @return true if success, else false
 	 */
 	public boolean sendOrder(Order order) {
-		if (!validatePriceAndQty(order))
-			return false;
-		// Check if order id already exists
-		if (orderStore.containsKey(order.getOrderId()))
-			return false;
-		// set time as when order was received by exchange
-		order.setTimestamp(System.currentTimeMillis());
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return addOrder(order, System.currentTimeMillis()) == null;
+		long start = System.nanoTime();
+		RejectReason reason = addOrder(order, System.currentTimeMillis());
+		metrics.recordLatency(Operation.SEND_ORDER, System.nanoTime() - start);
+		if (reason == null)
+			metrics.onOrderAccepted();
+		else
+			metrics.onOrderRejected(reason);
+		return reason == null;
+	}
 
-		// If this is first order for symbol then create new OrderBook
-		if (!symbolBooks.containsKey(order.getSymbol()))
-			symbolBooks.put(order.getSymbol(), new OrderBook(orderBookCapacity));
-		OrderBook book = symbolBooks.get(order.getSymbol());
+	/**
+	 * Adds order which was accepted before, e.g. replayed from journal, keeping
+	 * its timestamp. Orders restored in their original sequence get back their
+	 * queue position.
+	 * 
+	 * @return true if success, else false
+	 */
+	public boolean restoreOrder(Order order) {
+		return addOrder(order, order.getTimestamp()) == null;
+	}
+
+	/**
+	 * @param timestamp
+	 *            time order was received by exchange
+	 * @return reason order was rejected for, null if it was added to book
+	 */
+	private RejectReason addOrder(Order order, long timestamp) {
+		// Order of same precision as exchange carries price as is
+		long price = order.getPrice(decimalPrecision);
+		RejectReason reason = validatePriceAndQty(order, price);
+		if (reason != null)
+			return reason;
+		Journal journal = this.journal;
+		// Journal records symbols of limited length
+		if (journal != null && order.getSymbol().length() > Journal.MAX_SYMBOL_LENGTH)
+			return RejectReason.SYMBOL_TOO_LONG;
+		// Symbol id is stamped on order before it is stored, so cancels find book by index
+		int symbolId = resolveSymbolId(order);
+		// Check if order id already exists, order is stored in same lookup
+		if (orderStore.putIfAbsent(order.getOrderId(), order) != null)
+			return RejectReason.DUPLICATE_ORDER_ID;
+		order.setTimestamp(timestamp);
+
+		OrderBook book = getBook(symbolId);
+		// If this is first order for symbol then create new OrderBook, only one thread gets to create it
+		if (book == null)
+			book = getOrCreateBook(symbolId, order.getSymbol(), price);
 
 		// Add order to the Order Book
-		boolean retVal = book.addOrder(order, ExchangeUtils.convertPriceToLong(order.getPrice(), decimalPrecision));
+		boolean retVal = false;
+		try {
+			if (journal == null) {
+				retVal = book.addOrder(order, price);
+			} else {
+				long stamp = book.lockWrite();
+				try {
+					retVal = book.addOrder(order, price);
+					if (retVal)
+						journal.appendNewOrder(order);
+				} finally {
+					book.unlockWrite(stamp);
+				}
+			}
+		} finally {
+			// Order id is given back if book did not take the order, also when it failed
+			if (!retVal)
+				orderStore.remove(order.getOrderId());
+		}
 
-		// If addition to book is success then add the order to store
-		if (retVal)
-			orderStore.put(order.getOrderId(), order);
-		return retVal;
+		if (!retVal)
+			return RejectReason.BOOK_REJECTED;
+		return null;
 	}
 
-	private boolean validatePriceAndQty(Order order) {
-		if (order.getPrice() <= 0)
-			return false;
+	/**
+	 * @return id of order symbol, id already carried by order is used if it
+	 *         belongs to same symbol
+	 */
+	private int resolveSymbolId(Order order) {
+		int symbolId = order.getSymbolId();
+		if (symbolId == SymbolRegistry.NULL_ID || !order.getSymbol().equals(symbolRegistry.getSymbol(symbolId))) {
+			symbolId = symbolRegistry.register(order.getSymbol());
+			order.setSymbolId(symbolId);
+		}
+		return symbolId;
+	}
+
+	private OrderBook createOrderBook(long referencePrice) {
+		OrderBook book;
+		if (priceBandLevels > 0)
+			// Prices are normalized to decimal precision so one tick is 1
+			book = new OrderBook(orderBookCapacity, referencePrice, 1, priceBandLevels, maxPriceBandLevels);
+		else
+			book = new OrderBook(orderBookCapacity);
+		book.setSingleWriter(singleWriter);
+		return book;
+	}
+
+	private RejectReason validatePriceAndQty(Order order, long price) {
+		if (price <= 0)
+			return RejectReason.INVALID_PRICE;
 		if (order.getQuantity() <= 0)
-			return false;
-		return true;
+			return RejectReason.INVALID_QUANTITY;
+		// Dense ladder of an existing book takes prices within its maximum band only
+		if (priceBandLevels > 0) {
+			OrderBook book = findBook(order);
+			if (book != null && !book.acceptsPrice(order.getSide(), price))
+				return RejectReason.INVALID_PRICE;
+		}
+		return null;
+	}
+
+	/** @return book of order symbol, null if there is none, symbol is not registered */
+	private OrderBook findBook(Order order) {
+		int symbolId = order.getSymbolId();
+		if (symbolId == SymbolRegistry.NULL_ID || !order.getSymbol().equals(symbolRegistry.getSymbol(symbolId)))
+			symbolId = symbolRegistry.getId(order.getSymbol());
+		return symbolId == SymbolRegistry.NULL_ID ? null : getBook(symbolId);
 	}
 
 	/**
@@ -95,21 +324,345 @@ public class Exchange {
 	 * @return true if success, else false
 	 */
 	public boolean cancelOrder(Order order) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return removeOrder(order);
+		long start = System.nanoTime();
+		boolean retVal = removeOrder(order);
+		metrics.recordLatency(Operation.CANCEL_ORDER, System.nanoTime() - start);
+		metrics.onCancel(retVal);
+		return retVal;
+	}
+
+	private boolean removeOrder(Order order) {
 		// Check order exists
-		if (!orderStore.containsKey(order.getOrderId()))
+		Order storedOrder = orderStore.get(order.getOrderId());
+		if (storedOrder == null)
+			return false;
+
+		// Order must be for same symbol, symbol of stored order gives the book
+		if (order != storedOrder && !order.getSymbol().equals(storedOrder.getSymbol()))
+			return false;
+		// check book exists, book decides which of racing cancels wins
+		OrderBook book = getBook(storedOrder.getSymbolId());
+		if (book == null)
 			return false;
-		// check book exists
-		if (!symbolBooks.containsKey(order.getSymbol()))
+		long price = order.getPrice(decimalPrecision);
+		boolean retVal;
+		Journal journal = this.journal;
+		if (journal == null) {
+			retVal = book.removeOrder(order, price);
+		} else {
+			long stamp = book.lockWrite();
+			try {
+				retVal = book.removeOrder(order, price);
+				if (retVal)
+					journal.appendCancelOrder(order.getOrderId());
+			} finally {
+				book.unlockWrite(stamp);
+			}
+		}
+		// only a successful removal takes order out of store
+		if (retVal)
+			orderStore.remove(storedOrder.getOrderId(), storedOrder);
+		return retVal;
+	}
+
+	/**
+	 * API call to cancel order using only its id. Order is unlinked from its
+	 * price level directly without any price conversion or level search
+	 * 
+	 * @param orderId
+	 *            id of order to be cancelled
+	 * @return true if success, else false
+	 */
+	public boolean cancelOrder(int orderId) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return removeOrder(orderId);
+		long start = System.nanoTime();
+		boolean retVal = removeOrder(orderId);
+		metrics.recordLatency(Operation.CANCEL_ORDER, System.nanoTime() - start);
+		metrics.onCancel(retVal);
+		return retVal;
+	}
+
+	private boolean removeOrder(int orderId) {
+		// Check order exists
+		Order order = orderStore.get(orderId);
+		if (order == null)
 			return false;
 
-		OrderBook book = symbolBooks.get(order.getSymbol());
-		boolean retVal = book.removeOrder(order, ExchangeUtils.convertPriceToLong(order.getPrice(), decimalPrecision));
-		// if removal success then remove from store as well
+		// Order reaches store before book, so it may not be on book yet
+		OrderBook book = getBook(order.getSymbolId());
+		if (book == null)
+			return false;
+		boolean retVal;
+		Journal journal = this.journal;
+		if (journal == null) {
+			retVal = book.removeOrder(orderId);
+		} else {
+			long stamp = book.lockWrite();
+			try {
+				retVal = book.removeOrder(orderId);
+				if (retVal)
+					journal.appendCancelOrder(orderId);
+			} finally {
+				book.unlockWrite(stamp);
+			}
+		}
 		if (retVal)
-			orderStore.remove(order.getOrderId());
+			orderStore.remove(orderId, order);
 		return retVal;
 	}
 
+	/**
+	 * API call to send a batch of orders. Each order is validated and stored in
+	 * batch order, as if sent one by one, then orders are grouped by symbol and
+	 * sorted by side and price, so each book is locked once and each distinct
+	 * price level is looked up once. Orders at same price keep batch order, and
+	 * all orders get same timestamp.
+	 * 
+	 * @param batch
+	 *            orders to be sent, result of each is set on batch
+	 * @return number of orders added to books
+	 */
+	public int sendOrders(OrderBatch batch) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return addOrders(batch);
+		long start = System.nanoTime();
+		int accepted = addOrders(batch);
+		metrics.recordLatency(Operation.SEND_ORDERS, System.nanoTime() - start);
+		for (int i = 0; i < batch.size(); i++) {
+			if (batch.isAccepted(i))
+				metrics.onOrderAccepted();
+			else
+				metrics.onOrderRejected(batch.getRejectReason(i));
+		}
+		return accepted;
+	}
+
+	private int addOrders(OrderBatch batch) {
+		int size = batch.size();
+		Journal journal = this.journal;
+		long timestamp = System.currentTimeMillis();
+		// Orders of a burst mostly share symbol, which is then resolved once
+		String lastSymbol = null;
+		int lastSymbolId = SymbolRegistry.NULL_ID;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			Order order = batch.getOrder(i);
+			long price = order.getPrice(decimalPrecision);
+			RejectReason reason = validatePriceAndQty(order, price);
+			if (reason == null && journal != null && order.getSymbol().length() > Journal.MAX_SYMBOL_LENGTH)
+				reason = RejectReason.SYMBOL_TOO_LONG;
+			if (reason == null) {
+				int symbolId;
+				if (order.getSymbol().equals(lastSymbol)) {
+					symbolId = lastSymbolId;
+					order.setSymbolId(symbolId);
+				} else {
+					symbolId = resolveSymbolId(order);
+					lastSymbol = order.getSymbol();
+					lastSymbolId = symbolId;
+				}
+				if (orderStore.putIfAbsent(order.getOrderId(), order) != null) {
+					reason = RejectReason.DUPLICATE_ORDER_ID;
+				} else {
+					order.setTimestamp(timestamp);
+					batch.symbolIds[i] = symbolId;
+					batch.prices[i] = price;
+					batch.positions[count++] = i;
+				}
+			}
+			batch.setResult(i, reason == null, reason);
+		}
+
+		batch.sortPositions(count);
+		for (int k = 0; k < count; k++) {
+			int position = batch.positions[k];
+			batch.sortedOrders[k] = batch.getOrder(position);
+			batch.sortedPrices[k] = batch.prices[position];
+		}
+		int accepted = 0;
+		int start = 0;
+		while (start < count) {
+			int symbolId = batch.symbolIds[batch.positions[start]];
+			int end = start + 1;
+			while (end < count && batch.symbolIds[batch.positions[end]] == symbolId)
+				end++;
+			OrderBook book = getBook(symbolId);
+			if (book == null)
+				book = getOrCreateBook(symbolId, batch.sortedOrders[start].getSymbol(), batch.sortedPrices[start]);
+			if (journal == null) {
+				accepted += book.addOrders(batch.sortedOrders, batch.sortedPrices, start, end - start, batch.added);
+			} else {
+				long stamp = book.lockWrite();
+				try {
+					accepted += book.addOrders(batch.sortedOrders, batch.sortedPrices, start, end - start, batch.added);
+					for (int k = start; k < end; k++) {
+						if (batch.added[k])
+							journal.appendNewOrder(batch.sortedOrders[k]);
+					}
+				} finally {
+					book.unlockWrite(stamp);
+				}
+			}
+			// If addition to book failed then remove the order from store
+			for (int k = start; k < end; k++) {
+				if (!batch.added[k]) {
+					orderStore.remove(batch.sortedOrders[k].getOrderId());
+					batch.setResult(batch.positions[k], false, RejectReason.BOOK_REJECTED);
+				}
+			}
+			start = end;
+		}
+		return accepted;
+	}
+
+	/**
+	 * API call to cancel a batch of orders. Orders are cancelled in batch order
+	 * as by {@link #cancelOrder(Order)}, and book of an order is kept locked
+	 * while following orders are for the same book.
+	 * 
+	 * @param batch
+	 *            orders to be cancelled, result of each is set on batch
+	 * @return number of orders cancelled
+	 */
+	public int cancelOrders(OrderBatch batch) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return removeOrders(batch);
+		long start = System.nanoTime();
+		int cancelled = removeOrders(batch);
+		metrics.recordLatency(Operation.CANCEL_ORDERS, System.nanoTime() - start);
+		for (int i = 0; i < batch.size(); i++)
+			metrics.onCancel(batch.isAccepted(i));
+		return cancelled;
+	}
+
+	private int removeOrders(OrderBatch batch) {
+		int size = batch.size();
+		Journal journal = this.journal;
+		int cancelled = 0;
+		// Book stays locked while consecutive orders are for it
+		OrderBook lockedBook = null;
+		long stamp = 0;
+		try {
+			for (int i = 0; i < size; i++) {
+				Order order = batch.getOrder(i);
+				batch.setResult(i, false, null);
+				Order storedOrder = orderStore.get(order.getOrderId());
+				// Order must be for same symbol, symbol of stored order gives the book
+				if (storedOrder == null || (order != storedOrder && !order.getSymbol().equals(storedOrder.getSymbol())))
+					continue;
+				// Order reaches store before book, so it may not be on book yet
+				OrderBook book = getBook(storedOrder.getSymbolId());
+				if (book == null)
+					continue;
+				if (book != lockedBook) {
+					if (lockedBook != null)
+						lockedBook.unlockWrite(stamp);
+					stamp = book.lockWrite();
+					lockedBook = book;
+				}
+				if (book.removeOrder(order, order.getPrice(decimalPrecision))) {
+					if (journal != null)
+						journal.appendCancelOrder(order.getOrderId());
+					// only a successful removal takes order out of store
+					orderStore.remove(storedOrder.getOrderId(), storedOrder);
+					batch.setResult(i, true, null);
+					cancelled++;
+				}
+			}
+		} finally {
+			if (lockedBook != null)
+				lockedBook.unlockWrite(stamp);
+		}
+		return cancelled;
+	}
+
+	public int getDecimalPrecision() {
+		return decimalPrecision;
+	}
+
+	/**
+	 * @return live read only view of symbols which have an order book
+	 */
+	public Set<String> getSymbols() {
+		return Collections.unmodifiableSet(symbolBooks.keySet());
+	}
+
+	/**
+	 * @return live order with given id, null if there is none
+	 */
+	public Order getOrder(int orderId) {
+		return orderStore.get(orderId);
+	}
+
+	Journal getJournal() {
+		return journal;
+	}
+
+	StripedOrderStore getOrderStore() {
+		return orderStore;
+	}
+
+	Map<String, OrderBook> getSymbolBooks() {
+		return symbolBooks;
+	}
+
+	/** @return book of symbol, created around reference price if missing */
+	OrderBook getOrCreateBook(String symbol, long referencePrice) {
+		return getOrCreateBook(symbolRegistry.register(symbol), symbol, referencePrice);
+	}
+
+	private synchronized OrderBook getOrCreateBook(int symbolId, String symbol, long referencePrice) {
+		AtomicReferenceArray<OrderBook> books = booksById;
+		if (symbolId < books.length() && books.get(symbolId) != null)
+			return books.get(symbolId);
+		if (symbolId >= books.length()) {
+			AtomicReferenceArray<OrderBook> grown = new AtomicReferenceArray<OrderBook>(Math.max(books.length() * 2, symbolId + 1));
+			for (int i = 0; i < books.length(); i++)
+				grown.set(i, books.get(i));
+			booksById = grown;
+			books = grown;
+		}
+		OrderBook book = createOrderBook(referencePrice);
+		books.set(symbolId, book);
+		symbolBooks.put(symbol, book);
+		return book;
+	}
+
+	/**
+	 * @return id of symbol, registered with next free id if exchange has not
+	 *         seen it before. Orders carrying the id and id based calls find
+	 *         the order book without hashing the symbol.
+	 */
+	public int registerSymbol(String symbol) {
+		return symbolRegistry.register(symbol);
+	}
+
+	/**
+	 * @return id of symbol, {@link SymbolRegistry#NULL_ID} if exchange has not seen it
+	 */
+	public int getSymbolId(String symbol) {
+		return symbolRegistry.getId(symbol);
+	}
+
+	/**
+	 * retrieves order book for a symbol id by array index
+	 * 
+	 * @return order book, null if symbol has no order book yet
+	 */
+	public OrderBook getBook(int symbolId) {
+		AtomicReferenceArray<OrderBook> books = booksById;
+		if (symbolId < 0 || symbolId >= books.length())
+			return null;
+		return books.get(symbolId);
+	}
+
 	/**
 	 * retrieves order book for a symbol
 	 * 
@@ -131,15 +684,203 @@ public class Exchange {
 	 * @return true if success, else false
 	 */
 	public MatchingResult runMatchingAlgo(MatchingAlgo exchangeAlgo, String symbol) {
-		if (symbolBooks.containsKey(symbol))
-			return exchangeAlgo.execute(symbolBooks.get(symbol));
-		return new MatchingResult(false, 0, 0);
+		return runMatchingAlgo(exchangeAlgo, symbolBooks.get(symbol));
+	}
+
+	/**
+	 * API to run matching algorithm on OrderBook for a symbol id
+	 */
+	public MatchingResult runMatchingAlgo(MatchingAlgo exchangeAlgo, int symbolId) {
+		return runMatchingAlgo(exchangeAlgo, getBook(symbolId));
+	}
+
+	private MatchingResult runMatchingAlgo(MatchingAlgo exchangeAlgo, OrderBook book) {
+		if (book == null)
+			return new MatchingResult(false, 0, 0);
+		// Book is locked so algorithm sees no change while walking it
+		long stamp = book.lockWrite();
+		try {
+			return match(exchangeAlgo, book);
+		} finally {
+			book.unlockWrite(stamp);
+		}
+	}
+
+	private MatchingResult match(MatchingAlgo exchangeAlgo, OrderBook book) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return exchangeAlgo.execute(book);
+		long start = System.nanoTime();
+		MatchingResult result = exchangeAlgo.execute(book);
+		metrics.recordLatency(Operation.RUN_MATCHING_ALGO, System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * API to run matching algorithm and execute the resulting match on OrderBook
+	 * for a symbol, book is locked for both so no order can change in between
+	 * 
+	 * @param exchangeAlgo
+	 *            Instance of Algorithm to be executed
+	 * @param symbol
+	 *            symbol for which auction needs to be run
+	 * @return auction result, not matched if symbol has no book
+	 */
+	public AuctionResult runAuction(MatchingAlgo exchangeAlgo, String symbol) {
+		return runAuction(exchangeAlgo, symbol, symbolBooks.get(symbol));
+	}
+
+	/**
+	 * API to run matching algorithm and execute the resulting match on OrderBook
+	 * for a symbol id
+	 */
+	public AuctionResult runAuction(MatchingAlgo exchangeAlgo, int symbolId) {
+		return runAuction(exchangeAlgo, symbolRegistry.getSymbol(symbolId), getBook(symbolId));
+	}
+
+	/**
+	 * API to run matching algorithm and execute the resulting match on OrderBook
+	 * for a symbol, executions are streamed to the sink while book is locked
+	 * 
+	 * @param exchangeAlgo
+	 *            Instance of Algorithm to be executed
+	 * @param symbol
+	 *            symbol for which auction needs to be run
+	 * @param sink
+	 *            receiver of executions
+	 * @return result of matching algorithm, not matched if symbol has no book
+	 */
+	public MatchingResult runAuction(MatchingAlgo exchangeAlgo, String symbol, ExecutionSink sink) {
+		return runAuction(exchangeAlgo, symbol, symbolBooks.get(symbol), sink);
+	}
+
+	AuctionResult runAuction(MatchingAlgo exchangeAlgo, String symbol, OrderBook book) {
+		ExecutionCollector collector = new ExecutionCollector();
+		MatchingResult result = runAuction(exchangeAlgo, symbol, book, collector);
+		return new AuctionResult(symbol, result, collector.getExecutions());
+	}
+
+	private MatchingResult runAuction(MatchingAlgo exchangeAlgo, String symbol, OrderBook book, ExecutionSink sink) {
+		if (book == null)
+			return new MatchingResult(false, 0, 0);
+		long stamp = book.lockWrite();
+		try {
+			MatchingResult result = match(exchangeAlgo, book);
+			if (result.matched())
+				execute(symbol, book, result.getPrice(), result.getVolume(), sink);
+			return result;
+		} finally {
+			book.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * API to run matching algorithm and execute the resulting match on OrderBooks
+	 * of all symbols in parallel
+	 * 
+	 * @param exchangeAlgo
+	 *            Instance of Algorithm to be executed, it is shared by all worker
+	 *            threads so it must not keep state between runs
+	 * @param pool
+	 *            fork join pool on which auctions are run
+	 * @return auction result for each symbol
+	 */
+	public Map<String, AuctionResult> runAuction(MatchingAlgo exchangeAlgo, ForkJoinPool pool) {
+		return runAuction(exchangeAlgo, symbolBooks.keySet(), pool);
+	}
+
+	/**
+	 * API to run matching algorithm and execute the resulting match on OrderBooks
+	 * of given symbols in parallel. Each book is handled by a single worker thread
+	 * and bigger books are picked up first.
+	 * 
+	 * @param exchangeAlgo
+	 *            Instance of Algorithm to be executed, it is shared by all worker
+	 *            threads so it must not keep state between runs
+	 * @param symbols
+	 *            symbols for which auction needs to be run
+	 * @param pool
+	 *            fork join pool on which auctions are run
+	 * @return auction result for each symbol, not matched if symbol has no book
+	 */
+	public Map<String, AuctionResult> runAuction(MatchingAlgo exchangeAlgo, Collection<String> symbols, ForkJoinPool pool) {
+		String[] auctionSymbols = symbols.toArray(new String[symbols.size()]);
+		OrderBook[] books = new OrderBook[auctionSymbols.length];
+		for (int i = 0; i < auctionSymbols.length; i++)
+			books[i] = symbolBooks.get(auctionSymbols[i]);
+
+		AuctionTask task = new AuctionTask(this, exchangeAlgo, auctionSymbols, books);
+		pool.invoke(task);
+
+		Map<String, AuctionResult> results = new HashMap<>(auctionSymbols.length * 2);
+		for (AuctionResult result : task.getResults())
+			results.put(result.getSymbol(), result);
+		return results;
 	}
 	
 	public List<Execution> executeMatch(String symbol, long price, long quantity) {
-		if (symbolBooks.containsKey(symbol))
-			return symbolBooks.get(symbol).execute(price, quantity);
-		return new ArrayList<>();
+		ExecutionCollector collector = new ExecutionCollector();
+		executeMatch(symbol, price, quantity, collector);
+		return collector.getExecutions();
+	}
+
+	/**
+	 * API to execute match on OrderBook for a symbol, executions are streamed to
+	 * the sink without creating objects per fill
+	 * 
+	 * @param symbol
+	 *            symbol for which match needs to be executed
+	 * @param price
+	 *            price at which match needs to be done
+	 * @param quantity
+	 *            total volume to be executed on each side
+	 * @param sink
+	 *            receiver of executions
+	 * @return number of executions reported to sink
+	 */
+	public int executeMatch(String symbol, long price, long quantity, ExecutionSink sink) {
+		OrderBook book = symbolBooks.get(symbol);
+		if (book == null)
+			return 0;
+		return execute(symbol, book, price, quantity, sink);
+	}
+
+	/**
+	 * API to execute match on OrderBook for a symbol id, executions are
+	 * streamed to the sink
+	 * 
+	 * @return number of executions reported to sink
+	 */
+	public int executeMatch(int symbolId, long price, long quantity, ExecutionSink sink) {
+		OrderBook book = getBook(symbolId);
+		if (book == null)
+			return 0;
+		return execute(symbolRegistry.getSymbol(symbolId), book, price, quantity, sink);
+	}
+
+	private int execute(String symbol, OrderBook book, long price, long quantity, ExecutionSink sink) {
+		ExchangeMetrics metrics = this.metrics;
+		if (!metrics.isEnabled())
+			return executeAndJournal(symbol, book, price, quantity, sink);
+		long start = System.nanoTime();
+		int executions = executeAndJournal(symbol, book, price, quantity, sink);
+		metrics.recordLatency(Operation.EXECUTE_MATCH, System.nanoTime() - start);
+		metrics.onExecutions(executions);
+		return executions;
+	}
+
+	private int executeAndJournal(String symbol, OrderBook book, long price, long quantity, ExecutionSink sink) {
+		Journal journal = this.journal;
+		if (journal == null)
+			return book.execute(price, quantity, executionIds, sink);
+		long stamp = book.lockWrite();
+		try {
+			// Replaying match at same price and quantity on same book gives same fills
+			journal.appendExecuteMatch(symbol, price, quantity);
+			return book.execute(price, quantity, executionIds, sink);
+		} finally {
+			book.unlockWrite(stamp);
+		}
 	}
 
 }
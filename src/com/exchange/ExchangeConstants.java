@@ -15,4 +15,10 @@ public interface ExchangeConstants {
 
 	/** Initial capacity for Orders at Exchange */
 	public static int DEFAULT_INITIAL_ORDERS_COUNT = 1000;
+
+	/** Number of ticks covered by dense price ladder, 0 to use sorted price ladder */
+	public static int DEFAULT_PRICE_BAND_LEVELS = 0;
+
+	/** Number of stripes order store is split in for concurrent access */
+	public static int DEFAULT_ORDER_STORE_STRIPES = 64;
 }
@@ -0,0 +1,257 @@
+package com.exchange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.exchange.codec.OrderCodec;
+import com.exchange.data.Order;
+import com.exchange.journal.Journal;
+import com.exchange.orderbook.OrderBook;
+import com.exchange.util.SymbolTable;
+
+/**
+ * Point in time snapshot of an Exchange in a compact little endian file, so
+ * that a restart loads state in bulk instead of replaying every event. File
+ * holds a header, every order in order store encoded by OrderCodec and for each
+ * symbol its order book with price levels, queue order and executed quantity of
+ * each entry.
+ * 
+ * All books are locked while snapshot is written, so books and journal sequence
+ * are consistent. Orders whose send is in progress may be in order store but not
+ * yet in their book, so snapshot should be taken while no requests are being sent.
+ * Snapshot is written to a temporary file which replaces the previous snapshot
+ * only once fully written, so a failed write leaves the previous one in place.
+ */
+public final class ExchangeSnapshot {
+
+	private static final int MAGIC = 0x50414E53; // "SNAP"
+	private static final int VERSION = 3;
+
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int PRECISION_OFFSET = 8;
+	private static final int ORDER_COUNT_OFFSET = 12;
+	private static final int JOURNAL_SEQUENCE_OFFSET = 16;
+	private static final int EXECUTION_ID_OFFSET = 24;
+	private static final int BOOK_COUNT_OFFSET = 32;
+	private static final int HEADER_SIZE = 40;
+
+	/** Size of buffer through which snapshot is written */
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private ExchangeSnapshot() {
+	}
+
+	/**
+	 * Writes snapshot of exchange to file, atomically replacing it if it exists
+	 * 
+	 * @return sequence of next journal record, records from it onwards are not in
+	 *         snapshot. 0 if exchange is not journalled
+	 * @throws IllegalArgumentException
+	 *             if a symbol is not ASCII of at most 16 characters, nothing is
+	 *             written then
+	 */
+	public static long write(Exchange exchange, Path file) throws IOException {
+		Map<String, OrderBook> symbolBooks = exchange.getSymbolBooks();
+		List<String> symbols = new ArrayList<>(symbolBooks.keySet());
+		Collections.sort(symbols);
+		// Orders carry symbols of their books, so checking books covers order records as well
+		for (String symbol : symbols)
+			checkSymbol(symbol);
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		long journalSequence = writeBooks(exchange, symbolBooks, symbols, tempFile);
+		Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return journalSequence;
+	}
+
+	private static void checkSymbol(String symbol) {
+		if (symbol.length() > OrderCodec.SYMBOL_CAPACITY)
+			throw new IllegalArgumentException(
+					"Symbol longer than " + OrderCodec.SYMBOL_CAPACITY + " characters can not be written to snapshot: " + symbol);
+		for (int c = 0; c < symbol.length(); c++)
+			if (symbol.charAt(c) > 0x7F)
+				throw new IllegalArgumentException("Symbol which is not ASCII can not be written to snapshot: " + symbol);
+	}
+
+	/** Writes and forces snapshot of given books to file, file is deleted if writing fails */
+	private static long writeBooks(Exchange exchange, Map<String, OrderBook> symbolBooks, List<String> symbols, Path file)
+			throws IOException {
+		OrderBook[] books = new OrderBook[symbols.size()];
+		long[] stamps = new long[books.length];
+		for (int i = 0; i < books.length; i++) {
+			books[i] = symbolBooks.get(symbols.get(i));
+			stamps[i] = books[i].lockWrite();
+		}
+		boolean written = false;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Journal journal = exchange.getJournal();
+			long journalSequence = journal == null ? 0 : journal.getSequence();
+			SnapshotOutput out = new SnapshotOutput(channel);
+
+			ByteBuffer header = out.reserve(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(exchange.getDecimalPrecision()).putInt(0).putLong(journalSequence)
+					.putLong(exchange.getExecutionIds().getReservedId()).putInt(books.length).putInt(0);
+
+			OrderWriter orders = new OrderWriter(out);
+			exchange.getOrderStore().forEach(orders);
+
+			for (int i = 0; i < books.length; i++) {
+				String symbol = symbols.get(i);
+				ByteBuffer buffer = out.reserve(1 + symbol.length() + books[i].getSnapshotSize());
+				buffer.put((byte) symbol.length());
+				for (int c = 0; c < symbol.length(); c++)
+					buffer.put((byte) symbol.charAt(c));
+				books[i].writeSnapshot(buffer);
+			}
+			out.flush();
+
+			// Order count is known only once store is walked
+			ByteBuffer orderCount = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, orders.count);
+			channel.write(orderCount, ORDER_COUNT_OFFSET);
+			channel.force(false);
+			written = true;
+			return journalSequence;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			for (int i = books.length - 1; i >= 0; i--)
+				books[i].unlockWrite(stamps[i]);
+			if (!written) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					// Left over temporary file is replaced by next snapshot
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads snapshot into an empty exchange with same decimal precision. Books
+	 * are rebuilt in bulk and execution ids of exchange are moved past every id
+	 * used before snapshot.
+	 * 
+	 * @return sequence of first journal record to be replayed after the snapshot
+	 */
+	public static long load(Exchange exchange, Path file) throws IOException {
+		MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			in = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		in.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.getInt(MAGIC_OFFSET) != MAGIC || in.getInt(VERSION_OFFSET) != VERSION)
+			throw new IOException("Not a snapshot file of version " + VERSION + ": " + file);
+		if (in.getInt(PRECISION_OFFSET) != exchange.getDecimalPrecision())
+			throw new IllegalArgumentException("Snapshot decimal precision " + in.getInt(PRECISION_OFFSET)
+					+ " does not match exchange precision " + exchange.getDecimalPrecision());
+		if (!exchange.getSymbolBooks().isEmpty())
+			throw new IllegalStateException("Snapshot can only be loaded into an empty exchange");
+
+		StripedOrderStore orderStore = exchange.getOrderStore();
+		SymbolTable symbols = new SymbolTable(1024);
+		OrderCodec codec = new OrderCodec();
+		int position = HEADER_SIZE;
+		int orderCount = in.getInt(ORDER_COUNT_OFFSET);
+		for (int i = 0; i < orderCount; i++) {
+			codec.wrap(in, position);
+			String symbol = symbols.get(in, position + OrderCodec.SYMBOL_OFFSET, codec.symbolLength());
+			Order order = new Order(codec.orderId(), symbol, codec.side(), codec.quantity(), codec.scaledPrice(),
+					codec.pricePrecision());
+			order.setTimestamp(codec.timestamp());
+			order.setSymbolId(exchange.registerSymbol(symbol));
+			orderStore.putIfAbsent(order.getOrderId(), order);
+			position = position + OrderCodec.LENGTH;
+		}
+
+		int bookCount = in.getInt(BOOK_COUNT_OFFSET);
+		for (int i = 0; i < bookCount; i++) {
+			int symbolLength = in.get(position);
+			String symbol = symbols.get(in, position + 1, symbolLength);
+			position = position + 1 + symbolLength;
+			// Any price of the book will do to centre a dense ladder
+			OrderBook book = exchange.getOrCreateBook(symbol, referencePrice(in, position));
+			in.position(position);
+			book.loadSnapshot(in);
+			position = in.position();
+		}
+
+		exchange.getExecutionIds().advanceTo(in.getLong(EXECUTION_ID_OFFSET));
+		return in.getLong(JOURNAL_SEQUENCE_OFFSET);
+	}
+
+	/** @return first price of book snapshot at position, 0 if book is empty */
+	private static long referencePrice(ByteBuffer in, int position) {
+		int bidLevels = in.getInt(position);
+		if (bidLevels > 0)
+			return in.getLong(position + 4);
+		// Ask side follows empty bid side
+		return in.getInt(position + 4) > 0 ? in.getLong(position + 8) : 0;
+	}
+
+	/** Writes orders of store through snapshot output and counts them */
+	private static final class OrderWriter implements Consumer<Order> {
+
+		private final SnapshotOutput out;
+		private final OrderCodec codec = new OrderCodec();
+		private int count;
+
+		OrderWriter(SnapshotOutput out) {
+			this.out = out;
+		}
+
+		@Override
+		public void accept(Order order) {
+			ByteBuffer buffer = out.reserve(OrderCodec.LENGTH);
+			codec.wrap(buffer, buffer.position()).encode(order);
+			buffer.position(buffer.position() + OrderCodec.LENGTH);
+			count++;
+		}
+	}
+
+	/** Buffered writer to file channel */
+	private static final class SnapshotOutput {
+
+		private final FileChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		SnapshotOutput(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		/** @return buffer with at least given bytes remaining */
+		ByteBuffer reserve(int bytes) {
+			if (buffer.remaining() < bytes) {
+				flush();
+				if (buffer.capacity() < bytes)
+					buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return buffer;
+		}
+
+		void flush() {
+			buffer.flip();
+			try {
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.exchange;
+
+import java.util.Arrays;
+
+import com.exchange.data.Order;
+import com.exchange.metrics.RejectReason;
+
+/**
+ * Orders sent to or cancelled from an Exchange in one call, see
+ * {@link Exchange#sendOrders(OrderBatch)} and
+ * {@link Exchange#cancelOrders(OrderBatch)}. Holds result of each order after
+ * the call along with scratch arrays used to sort orders by book, so a batch
+ * which is cleared and reused creates no objects once it has grown to its
+ * largest size. A batch is used by one thread at a time.
+ */
+public class OrderBatch {
+
+	/** Runs of this many positions are insertion sorted before they are merged */
+	private static final int INSERTION_SORT_RUN = 32;
+
+	private Order[] orders;
+	private int size;
+
+	/** Result of each order of last call */
+	private boolean[] accepted;
+	private RejectReason[] rejectReasons;
+
+	/** Symbol id and price at exchange precision of each order */
+	int[] symbolIds;
+	long[] prices;
+
+	/** Indexes of orders passed on to books, sorted by book, side and price before they are applied */
+	int[] positions;
+	private int[] mergeBuffer;
+
+	/** Orders and prices of positions in sorted order, as handed to a book */
+	Order[] sortedOrders;
+	long[] sortedPrices;
+	boolean[] added;
+
+	public OrderBatch() {
+		this(64);
+	}
+
+	public OrderBatch(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.orders = new Order[capacity];
+		this.accepted = new boolean[capacity];
+		this.rejectReasons = new RejectReason[capacity];
+		this.symbolIds = new int[capacity];
+		this.prices = new long[capacity];
+		this.positions = new int[capacity];
+		this.mergeBuffer = new int[capacity];
+		this.sortedOrders = new Order[capacity];
+		this.sortedPrices = new long[capacity];
+		this.added = new boolean[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * @param order
+	 *            order to be sent or cancelled, orders are processed in the
+	 *            order they are added
+	 * @return this batch
+	 */
+	public OrderBatch add(Order order) {
+		if (size == orders.length)
+			grow(size * 2);
+		orders[size++] = order;
+		return this;
+	}
+
+	/** Removes all orders so that batch can be reused */
+	public void clear() {
+		Arrays.fill(orders, 0, size, null);
+		Arrays.fill(sortedOrders, 0, size, null);
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Order getOrder(int index) {
+		checkIndex(index);
+		return orders[index];
+	}
+
+	/**
+	 * @return true if order at index was added to or cancelled from its book by
+	 *         last call
+	 */
+	public boolean isAccepted(int index) {
+		checkIndex(index);
+		return accepted[index];
+	}
+
+	/**
+	 * @return reason new order at index was rejected for by last send, null if
+	 *         it was accepted or batch was last cancelled
+	 */
+	public RejectReason getRejectReason(int index) {
+		checkIndex(index);
+		return rejectReasons[index];
+	}
+
+	void setResult(int index, boolean accepted, RejectReason rejectReason) {
+		this.accepted[index] = accepted;
+		this.rejectReasons[index] = rejectReason;
+	}
+
+	/**
+	 * Sorts first count positions by symbol id, side and price. Sort is stable,
+	 * positions which compare equal keep batch order.
+	 */
+	void sortPositions(int count) {
+		// Bursts are often already sorted, e.g. all for one symbol, which costs a single pass
+		int sorted = 1;
+		while (sorted < count && compare(positions[sorted - 1], positions[sorted]) <= 0)
+			sorted++;
+		if (sorted >= count)
+			return;
+		for (int low = 0; low < count; low += INSERTION_SORT_RUN)
+			insertionSort(low, Math.min(low + INSERTION_SORT_RUN, count));
+		int[] from = positions;
+		int[] to = mergeBuffer;
+		for (int width = INSERTION_SORT_RUN; width < count; width *= 2) {
+			for (int low = 0; low < count; low += 2 * width) {
+				int middle = Math.min(low + width, count);
+				int high = Math.min(low + 2 * width, count);
+				int left = low;
+				int right = middle;
+				for (int i = low; i < high; i++) {
+					if (left < middle && (right == high || compare(from[left], from[right]) <= 0))
+						to[i] = from[left++];
+					else
+						to[i] = from[right++];
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		if (from != positions)
+			System.arraycopy(from, 0, positions, 0, count);
+	}
+
+	private void insertionSort(int low, int high) {
+		for (int i = low + 1; i < high; i++) {
+			int position = positions[i];
+			int j = i - 1;
+			while (j >= low && compare(positions[j], position) > 0) {
+				positions[j + 1] = positions[j];
+				j--;
+			}
+			positions[j + 1] = position;
+		}
+	}
+
+	private int compare(int first, int second) {
+		int result = Integer.compare(symbolIds[first], symbolIds[second]);
+		if (result != 0)
+			return result;
+		result = orders[first].getSide().compareTo(orders[second].getSide());
+		if (result != 0)
+			return result;
+		return Long.compare(prices[first], prices[second]);
+	}
+
+	private void grow(int capacity) {
+		orders = Arrays.copyOf(orders, capacity);
+		accepted = Arrays.copyOf(accepted, capacity);
+		rejectReasons = Arrays.copyOf(rejectReasons, capacity);
+		symbolIds = Arrays.copyOf(symbolIds, capacity);
+		prices = Arrays.copyOf(prices, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+		mergeBuffer = Arrays.copyOf(mergeBuffer, capacity);
+		sortedOrders = Arrays.copyOf(sortedOrders, capacity);
+		sortedPrices = Arrays.copyOf(sortedPrices, capacity);
+		added = Arrays.copyOf(added, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " of batch of size " + size);
+	}
+}
@@ -0,0 +1,115 @@
+package com.exchange;
+
+import java.util.function.Consumer;
+
+import com.exchange.data.Order;
+import com.exchange.util.IntObjectHashMap;
+
+/**
+ * Store of live orders keyed on order id, split in stripes so that threads
+ * working on different orders rarely contend. Each stripe is a primitive keyed
+ * map guarded by its own monitor, a store used by a single thread has one
+ * stripe which is not locked.
+ */
+class StripedOrderStore {
+
+	private final IntObjectHashMap<Order>[] stripes;
+	private final int shift;
+
+	/** Only stripe of a store with one stripe, else null */
+	private final IntObjectHashMap<Order> singleStripe;
+
+	/** False when store is only used by one thread */
+	private final boolean locked;
+
+	/**
+	 * @param capacity
+	 *            expected number of orders, split across stripes
+	 * @param stripeCount
+	 *            number of stripes, rounded up to power of two
+	 */
+	StripedOrderStore(int capacity, int stripeCount) {
+		this(capacity, stripeCount, true);
+	}
+
+	/**
+	 * @param locked
+	 *            false if store is only ever used by one thread, stripes are then
+	 *            not locked
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	StripedOrderStore(int capacity, int stripeCount, boolean locked) {
+		this.locked = locked;
+		int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+		this.stripes = new IntObjectHashMap[count];
+		for (int i = 0; i < count; i++)
+			stripes[i] = new IntObjectHashMap<>(Math.max(capacity / count, 16));
+		this.shift = 32 - Integer.numberOfTrailingZeros(count);
+		this.singleStripe = count == 1 ? stripes[0] : null;
+	}
+
+	private IntObjectHashMap<Order> stripe(int orderId) {
+		// Shift of 32 would leave hash unchanged, a single stripe is taken as is
+		if (singleStripe != null)
+			return singleStripe;
+		// Top bits of multiplicative hash spread sequential ids over stripes
+		return stripes[(orderId * 0x9E3779B9) >>> shift];
+	}
+
+	Order get(int orderId) {
+		IntObjectHashMap<Order> stripe = stripe(orderId);
+		if (!locked)
+			return stripe.get(orderId);
+		synchronized (stripe) {
+			return stripe.get(orderId);
+		}
+	}
+
+	Order putIfAbsent(int orderId, Order order) {
+		IntObjectHashMap<Order> stripe = stripe(orderId);
+		if (!locked)
+			return stripe.putIfAbsent(orderId, order);
+		synchronized (stripe) {
+			return stripe.putIfAbsent(orderId, order);
+		}
+	}
+
+	Order remove(int orderId) {
+		IntObjectHashMap<Order> stripe = stripe(orderId);
+		if (!locked)
+			return stripe.remove(orderId);
+		synchronized (stripe) {
+			return stripe.remove(orderId);
+		}
+	}
+
+	/** Removes order only if it is mapped to given instance */
+	boolean remove(int orderId, Order order) {
+		IntObjectHashMap<Order> stripe = stripe(orderId);
+		if (!locked)
+			return stripe.remove(orderId, order);
+		synchronized (stripe) {
+			return stripe.remove(orderId, order);
+		}
+	}
+
+	/** @return number of orders in store */
+	int size() {
+		int size = 0;
+		for (IntObjectHashMap<Order> stripe : stripes) {
+			synchronized (stripe) {
+				size = size + stripe.size();
+			}
+		}
+		return size;
+	}
+
+	/** Passes every order to consumer, one stripe at a time */
+	void forEach(Consumer<Order> consumer) {
+		for (IntObjectHashMap<Order> stripe : stripes) {
+			synchronized (stripe) {
+				stripe.forEachValue(consumer);
+			}
+		}
+	}
+}
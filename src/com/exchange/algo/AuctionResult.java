@@ -0,0 +1,39 @@
+package com.exchange.algo;
+
+import java.util.List;
+
+import com.exchange.data.Execution;
+
+/**
+ * Stores result of running an auction on an order book, i.e. result of the
+ * matching algorithm and executions created for the match
+ *
+ */
+public class AuctionResult {
+
+	/** Symbol of the order book */
+	private final String symbol;
+	/** Result of matching algorithm */
+	private final MatchingResult matchingResult;
+	/** Executions created for the match, empty if nothing matched */
+	private final List<Execution> executions;
+
+	public AuctionResult(String symbol, MatchingResult matchingResult, List<Execution> executions) {
+		this.symbol = symbol;
+		this.matchingResult = matchingResult;
+		this.executions = executions;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	public MatchingResult getMatchingResult() {
+		return matchingResult;
+	}
+
+	public List<Execution> getExecutions() {
+		return executions;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.exchange.algo;
+
+import com.exchange.orderbook.MergedPriceCursor;
+import com.exchange.orderbook.OrderBook;
+import com.exchange.orderbook.PriceIndex;
+
+/**
+ * Single pass Volume Maximization Algorithm. Walks merged bid and ask prices
+ * once in descending order while maintaining cumulative buy demand and sell
+ * supply, and picks highest price at which maximum volume can be matched
+ *
+ */
+public class CumulativeVolumeMaximizationAlgo implements MatchingAlgo {
+
+	public final String name = "Cumulative Volume Maximization";
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public MatchingResult execute(OrderBook orderBook) {
+		long highestVolume = 0;
+		long matchingPrice = 0;
+
+		PriceIndex asks = orderBook.getAsks();
+
+		// Sell supply at highest price is all quantity on ask side
+		long sellQty = 0;
+		for (long ask = asks.best(); ask != PriceIndex.NULL_PRICE; ask = asks.next(ask))
+			sellQty = sellQty + orderBook.getAvailableSellQtyAtPrice(ask);
+
+		MergedPriceCursor allPrices = orderBook.getMergedPrices();
+		long buyQty = 0;
+		while (sellQty > 0 && allPrices.hasNext()) {
+			long price = allPrices.next();
+
+			// Buy demand grows with every bid level at or above current price
+			if (allPrices.hasBid())
+				buyQty = buyQty + orderBook.getAvailableBuyQtyAtPrice(price);
+
+			// Ask level at current price is still part of supply for this price
+			long askQtyAtPrice = 0;
+			if (allPrices.hasAsk())
+				askQtyAtPrice = orderBook.getAvailableSellQtyAtPrice(price);
+
+			// Only a strictly higher volume replaces the match, so ties keep higher price
+			long totalMatchingQty = Math.min(buyQty, sellQty);
+			if (totalMatchingQty > highestVolume) {
+				highestVolume = totalMatchingQty;
+				matchingPrice = price;
+			}
+
+			// Prices below current one can not use asks at current price
+			sellQty = sellQty - askQtyAtPrice;
+		}
+
+		if (highestVolume > 0)
+			return new MatchingResult(true, matchingPrice, highestVolume);
+		else
+			return new MatchingResult(false, matchingPrice, highestVolume);
+	}
+}
@@ -0,0 +1,25 @@
+package com.exchange.algo;
+
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Volume Maximization Algorithm reading indicative match which order book keeps
+ * up to date as orders are added, cancelled and executed. Gives same result as
+ * VolumeMaximizationAlgo without walking the whole book on every run.
+ *
+ */
+public class IndicativeVolumeMaximizationAlgo implements MatchingAlgo {
+
+	public final String name = "Indicative Volume Maximization";
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public MatchingResult execute(OrderBook orderBook) {
+		// Price and volume are read together so both are of same book state
+		return orderBook.getIndicativeMatch();
+	}
+}
@@ -1,10 +1,14 @@
 package com.exchange.algo;
 
+import java.io.Serializable;
+
 /**
  * Stores result of running Matching Algorithm on an order book
  *
  */
-public class MatchingResult {
+public class MatchingResult implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** Whether matching was successful or not */
 	private final boolean matched;
@@ -1,9 +1,8 @@
 package com.exchange.algo;
 
-import java.util.TreeSet;
-
-import com.exchange.data.Side;
+import com.exchange.orderbook.MergedPriceCursor;
 import com.exchange.orderbook.OrderBook;
+import com.exchange.orderbook.PriceIndex;
 
 /**
  * Matching Algorithm to traverse through a given book and find highest price at
@@ -24,22 +23,22 @@ public class VolumeMaximizationAlgo implements MatchingAlgo {
 		long highestVolume = 0;
 		long matchingPrice = 0;
 
-		// Get all prices from book in descending order
-		TreeSet<Long> allPrices = new TreeSet<>(Side.Buy.getComparator());
-		TreeSet<Long> bids = orderBook.getBids();
-		TreeSet<Long> asks = orderBook.getAsks();
-		allPrices.addAll(bids);
-		allPrices.addAll(asks);
+		// Walk all prices from book in descending order by merging both sides
+		PriceIndex bids = orderBook.getBids();
+		PriceIndex asks = orderBook.getAsks();
+		MergedPriceCursor allPrices = orderBook.getMergedPrices();
+
+		while (allPrices.hasNext()) {
+			long price = allPrices.next();
 
-		for (Long price : allPrices) {
 			// At each price level get buy and sell quantity available
 			long buyQty = 0;
-			for (Long bidPrice : bids.headSet(price, true))
-				buyQty = buyQty + orderBook.getAvailableBuyQtyAtPrice(bidPrice);
+			for (long bid = bids.best(); bid != PriceIndex.NULL_PRICE && bid >= price; bid = bids.next(bid))
+				buyQty = buyQty + orderBook.getAvailableBuyQtyAtPrice(bid);
 
 			long sellQty = 0;
-			for (Long askPrice : asks.headSet(price, true))
-				sellQty = sellQty + orderBook.getAvailableSellQtyAtPrice(askPrice);
+			for (long ask = asks.best(); ask != PriceIndex.NULL_PRICE && ask <= price; ask = asks.next(ask))
+				sellQty = sellQty + orderBook.getAvailableSellQtyAtPrice(ask);
 
 			// Quantity that can be matched is minimum of available buy and sell quantity
 			long totalMatchingQty = Math.min(buyQty, sellQty);
@@ -0,0 +1,100 @@
+package com.exchange.codec;
+
+import java.nio.ByteBuffer;
+
+import com.exchange.data.Execution;
+import com.exchange.data.ExecutionType;
+
+/**
+ * Flyweight for Execution with fixed layout:
+ * 
+ * <pre>
+ * 0  executionId long
+ * 8  orderId     int
+ * 12 execType    byte, ordinal of ExecutionType
+ * 16 quantity    long
+ * 24 price       long
+ * </pre>
+ */
+public final class ExecutionCodec extends Flyweight {
+
+	public static final int LENGTH = 32;
+
+	private static final int EXECUTION_ID = 0;
+	private static final int ORDER_ID = 8;
+	private static final int EXEC_TYPE = 12;
+	private static final int QUANTITY = 16;
+	private static final int PRICE = 24;
+
+	private static final ExecutionType[] EXEC_TYPES = ExecutionType.values();
+
+	@Override
+	public ExecutionCodec wrap(ByteBuffer buffer, int offset) {
+		super.wrap(buffer, offset);
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return LENGTH;
+	}
+
+	/** Writes all fields of execution at current offset */
+	public ExecutionCodec encode(Execution execution) {
+		return encode(execution.getExecutionId(), execution.getOrderId(), execution.getQuantity(), execution.getPrice(),
+				execution.getExecType());
+	}
+
+	/**
+	 * Writes execution from primitive values, e.g. from an ExecutionSink, without
+	 * an Execution object
+	 */
+	public ExecutionCodec encode(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+		return executionId(executionId).orderId(orderId).quantity(quantity).price(price).execType(execType);
+	}
+
+	public long executionId() {
+		return buffer.getLong(offset + EXECUTION_ID);
+	}
+
+	public ExecutionCodec executionId(long executionId) {
+		buffer.putLong(offset + EXECUTION_ID, executionId);
+		return this;
+	}
+
+	public int orderId() {
+		return buffer.getInt(offset + ORDER_ID);
+	}
+
+	public ExecutionCodec orderId(int orderId) {
+		buffer.putInt(offset + ORDER_ID, orderId);
+		return this;
+	}
+
+	public long quantity() {
+		return buffer.getLong(offset + QUANTITY);
+	}
+
+	public ExecutionCodec quantity(long quantity) {
+		buffer.putLong(offset + QUANTITY, quantity);
+		return this;
+	}
+
+	public long price() {
+		return buffer.getLong(offset + PRICE);
+	}
+
+	public ExecutionCodec price(long price) {
+		buffer.putLong(offset + PRICE, price);
+		return this;
+	}
+
+	public ExecutionType execType() {
+		return EXEC_TYPES[buffer.get(offset + EXEC_TYPE)];
+	}
+
+	public ExecutionCodec execType(ExecutionType execType) {
+		buffer.put(offset + EXEC_TYPE, (byte) execType.ordinal());
+		return this;
+	}
+}
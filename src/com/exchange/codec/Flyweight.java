@@ -0,0 +1,50 @@
+package com.exchange.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base of fixed layout codecs which read and write a message in place over a
+ * ByteBuffer. A flyweight is wrapped over an offset of a buffer and can be
+ * moved to any other offset, so one instance encodes or decodes any number of
+ * messages without creating objects. All values are little endian.
+ */
+public abstract class Flyweight {
+
+	/** Little endian view of wrapped buffer */
+	protected ByteBuffer buffer;
+	protected int offset;
+
+	/** Buffer given to wrap, view is reused while it does not change */
+	private ByteBuffer source;
+
+	/**
+	 * Points flyweight at message starting at offset. Buffer in little endian
+	 * order is used as it is, other buffers are viewed through a little endian
+	 * duplicate.
+	 * 
+	 * @param buffer
+	 *            heap, direct or mapped buffer holding messages
+	 * @param offset
+	 *            absolute offset of message in buffer
+	 * @return this flyweight
+	 */
+	public Flyweight wrap(ByteBuffer buffer, int offset) {
+		if (offset < 0 || offset + length() > buffer.capacity())
+			throw new IndexOutOfBoundsException("Message at " + offset + " does not fit buffer of " + buffer.capacity());
+		if (source != buffer) {
+			source = buffer;
+			this.buffer = buffer.order() == ByteOrder.LITTLE_ENDIAN ? buffer : buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		}
+		this.offset = offset;
+		return this;
+	}
+
+	/** @return offset of message in wrapped buffer */
+	public int offset() {
+		return offset;
+	}
+
+	/** @return encoded size of message in bytes */
+	public abstract int length();
+}
@@ -0,0 +1,71 @@
+package com.exchange.codec;
+
+import java.nio.ByteBuffer;
+
+import com.exchange.algo.MatchingResult;
+
+/**
+ * Flyweight for MatchingResult with fixed layout:
+ * 
+ * <pre>
+ * 0  matched byte, 1 if matched
+ * 8  price   long
+ * 16 volume  long
+ * </pre>
+ */
+public final class MatchingResultCodec extends Flyweight {
+
+	public static final int LENGTH = 24;
+
+	private static final int MATCHED = 0;
+	private static final int PRICE = 8;
+	private static final int VOLUME = 16;
+
+	@Override
+	public MatchingResultCodec wrap(ByteBuffer buffer, int offset) {
+		super.wrap(buffer, offset);
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return LENGTH;
+	}
+
+	/** Writes all fields of result at current offset */
+	public MatchingResultCodec encode(MatchingResult result) {
+		return matched(result.matched()).price(result.getPrice()).volume(result.getVolume());
+	}
+
+	/** Creates MatchingResult from message at current offset */
+	public MatchingResult decode() {
+		return new MatchingResult(matched(), price(), volume());
+	}
+
+	public boolean matched() {
+		return buffer.get(offset + MATCHED) == 1;
+	}
+
+	public MatchingResultCodec matched(boolean matched) {
+		buffer.put(offset + MATCHED, matched ? (byte) 1 : (byte) 0);
+		return this;
+	}
+
+	public long price() {
+		return buffer.getLong(offset + PRICE);
+	}
+
+	public MatchingResultCodec price(long price) {
+		buffer.putLong(offset + PRICE, price);
+		return this;
+	}
+
+	public long volume() {
+		return buffer.getLong(offset + VOLUME);
+	}
+
+	public MatchingResultCodec volume(long volume) {
+		buffer.putLong(offset + VOLUME, volume);
+		return this;
+	}
+}
@@ -0,0 +1,170 @@
+package com.exchange.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.util.ExchangeUtils;
+
+/**
+ * Flyweight for Order with fixed layout:
+ * 
+ * <pre>
+ * 0  orderId   int
+ * 4  side      byte, 'B' or 'S'
+ * 5  symbol length byte
+ * 6  price precision byte
+ * 8  quantity  long
+ * 16 price     long, fixed-point at price precision
+ * 24 timestamp long
+ * 32 symbol    16 ASCII bytes
+ * </pre>
+ */
+public final class OrderCodec extends Flyweight {
+
+	public static final int LENGTH = 48;
+
+	/** Longest symbol which fits the layout */
+	public static final int SYMBOL_CAPACITY = 16;
+
+	private static final int ORDER_ID = 0;
+	private static final int SIDE = 4;
+	private static final int SYMBOL_LENGTH = 5;
+	private static final int PRICE_PRECISION = 6;
+	private static final int QUANTITY = 8;
+	private static final int PRICE = 16;
+	private static final int TIMESTAMP = 24;
+	private static final int SYMBOL = 32;
+
+	/** Offset of symbol bytes within message, for reading them in place */
+	public static final int SYMBOL_OFFSET = SYMBOL;
+
+	@Override
+	public OrderCodec wrap(ByteBuffer buffer, int offset) {
+		super.wrap(buffer, offset);
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return LENGTH;
+	}
+
+	/** Writes all fields of order at current offset */
+	public OrderCodec encode(Order order) {
+		return orderId(order.getOrderId()).side(order.getSide()).quantity(order.getQuantity()).price(order.getScaledPrice(), order.getPricePrecision())
+				.timestamp(order.getTimestamp()).symbol(order.getSymbol());
+	}
+
+	/**
+	 * Creates Order from message at current offset, symbol String is created
+	 * from encoded bytes
+	 */
+	public Order decode() {
+		byte[] symbol = new byte[symbolLength()];
+		getSymbol(symbol);
+		Order order = new Order(orderId(), new String(symbol, StandardCharsets.US_ASCII), side(), quantity(), scaledPrice(),
+				pricePrecision());
+		order.setTimestamp(timestamp());
+		return order;
+	}
+
+	public int orderId() {
+		return buffer.getInt(offset + ORDER_ID);
+	}
+
+	public OrderCodec orderId(int orderId) {
+		buffer.putInt(offset + ORDER_ID, orderId);
+		return this;
+	}
+
+	public Side side() {
+		return buffer.get(offset + SIDE) == 'B' ? Side.Buy : Side.Sell;
+	}
+
+	public OrderCodec side(Side side) {
+		buffer.put(offset + SIDE, side == Side.Buy ? (byte) 'B' : (byte) 'S');
+		return this;
+	}
+
+	public long quantity() {
+		return buffer.getLong(offset + QUANTITY);
+	}
+
+	public OrderCodec quantity(long quantity) {
+		buffer.putLong(offset + QUANTITY, quantity);
+		return this;
+	}
+
+	/** @return price as decimal, for display */
+	public double price() {
+		return ExchangeUtils.convertPriceToDouble(scaledPrice(), pricePrecision());
+	}
+
+	/** @return price as fixed-point long at {@link #pricePrecision()} */
+	public long scaledPrice() {
+		return buffer.getLong(offset + PRICE);
+	}
+
+	public int pricePrecision() {
+		return buffer.get(offset + PRICE_PRECISION);
+	}
+
+	/**
+	 * @param price
+	 *            fixed-point price at given precision
+	 */
+	public OrderCodec price(long price, int decimalPrecision) {
+		buffer.putLong(offset + PRICE, price);
+		buffer.put(offset + PRICE_PRECISION, (byte) decimalPrecision);
+		return this;
+	}
+
+	public long timestamp() {
+		return buffer.getLong(offset + TIMESTAMP);
+	}
+
+	public OrderCodec timestamp(long timestamp) {
+		buffer.putLong(offset + TIMESTAMP, timestamp);
+		return this;
+	}
+
+	public int symbolLength() {
+		return buffer.get(offset + SYMBOL_LENGTH);
+	}
+
+	/** Writes ASCII characters of symbol without creating a byte array */
+	public OrderCodec symbol(CharSequence symbol) {
+		int length = symbol.length();
+		if (length > SYMBOL_CAPACITY)
+			throw new IllegalArgumentException("Symbol longer than " + SYMBOL_CAPACITY + " characters: " + symbol);
+		buffer.put(offset + SYMBOL_LENGTH, (byte) length);
+		for (int i = 0; i < length; i++)
+			buffer.put(offset + SYMBOL + i, (byte) symbol.charAt(i));
+		return this;
+	}
+
+	/**
+	 * Copies symbol bytes into destination
+	 * 
+	 * @return number of bytes copied
+	 */
+	public int getSymbol(byte[] destination) {
+		int length = symbolLength();
+		for (int i = 0; i < length; i++)
+			destination[i] = buffer.get(offset + SYMBOL + i);
+		return length;
+	}
+
+	/** @return true if encoded symbol equals given symbol, no objects are created */
+	public boolean symbolEquals(CharSequence symbol) {
+		int length = symbolLength();
+		if (symbol.length() != length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (buffer.get(offset + SYMBOL + i) != (byte) symbol.charAt(i))
+				return false;
+		return true;
+	}
+}
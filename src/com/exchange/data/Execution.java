@@ -1,15 +1,18 @@
 package com.exchange.data;
 
+import java.io.Serializable;
+
 import com.exchange.util.ExchangeUtils;
 
 /**
  * Class to store execution information
  */
-public class Execution {
-	private static int masterExecutionId = 0;
+public class Execution implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** Unique id for the execution */
-	private final int executionId;
+	private final long executionId;
 	
 	/** Order id for the execution */
 	private final int orderId;
@@ -22,7 +25,7 @@ public class Execution {
 	/** Whether full execution or partial execution */
 	private final ExecutionType execType;
 
-	public Execution(int orderId, long quantity, long price, ExecutionType execType) {
+	public Execution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
 
 		// Quantity validations
 		if (quantity <= 0)
@@ -32,14 +35,14 @@ public class Execution {
 		if (price <= 0)
 			throw new IllegalArgumentException("Price must be > 0");
 
-		this.executionId = masterExecutionId++;
+		this.executionId = executionId;
 		this.orderId = orderId;
 		this.quantity = quantity;
 		this.price = price;
 		this.execType = execType;
 	}
 
-	public int getExecutionId() {
+	public long getExecutionId() {
 		return this.executionId;
 	}
 
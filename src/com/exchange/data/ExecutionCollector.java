@@ -0,0 +1,26 @@
+package com.exchange.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ExecutionSink which creates an Execution object for each fill and collects
+ * them in a list
+ */
+public class ExecutionCollector implements ExecutionSink {
+
+	private final List<Execution> executions;
+
+	public ExecutionCollector() {
+		this.executions = new ArrayList<>();
+	}
+
+	@Override
+	public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+		executions.add(new Execution(executionId, orderId, quantity, price, execType));
+	}
+
+	public List<Execution> getExecutions() {
+		return executions;
+	}
+}
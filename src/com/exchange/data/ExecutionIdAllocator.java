@@ -0,0 +1,100 @@
+package com.exchange.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Hands out 64-bit execution ids. Each thread takes a contiguous block of ids
+ * from a shared counter and then allocates from its block without contention,
+ * so ids are unique across threads and increase within each thread, but are
+ * not ordered across threads. Ids left in blocks of idle or finished threads
+ * are never used.
+ */
+public class ExecutionIdAllocator {
+
+	public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	/** First id of next block to be claimed, every id below may have been used */
+	private final AtomicLong nextBlock;
+
+	private final int blockSize;
+
+	/** Block being used by each thread */
+	private final ThreadLocal<Block> blocks = new ThreadLocal<Block>() {
+		@Override
+		protected Block initialValue() {
+			return new Block();
+		}
+	};
+
+	/** Told the end of every claimed block before any id of it is used */
+	private volatile LongConsumer blockListener;
+
+	public ExecutionIdAllocator() {
+		this(0, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param firstId
+	 *            first id to be used
+	 * @param blockSize
+	 *            ids claimed by a thread at a time
+	 */
+	public ExecutionIdAllocator(long firstId, int blockSize) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+		this.nextBlock = new AtomicLong(firstId);
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * @return next id of block of calling thread
+	 */
+	public long nextId() {
+		return blocks.get().next();
+	}
+
+	/**
+	 * @return id from which next block will be claimed, no id at or above it
+	 *         has been used
+	 */
+	public long getReservedId() {
+		return nextBlock.get();
+	}
+
+	/**
+	 * Moves counter up so that ids below given id are never handed out again,
+	 * used when state is restored. Blocks already held by threads are kept.
+	 */
+	public void advanceTo(long id) {
+		long current;
+		while (id > (current = nextBlock.get()) && !nextBlock.compareAndSet(current, id))
+			;
+	}
+
+	/**
+	 * @param blockListener
+	 *            receives end (exclusive) of each claimed block before ids of it
+	 *            are used, e.g. to journal it, null for none
+	 */
+	public void setBlockListener(LongConsumer blockListener) {
+		this.blockListener = blockListener;
+	}
+
+	private final class Block {
+		private long next;
+		private long end;
+
+		long next() {
+			if (next == end) {
+				long start = nextBlock.getAndAdd(blockSize);
+				LongConsumer listener = blockListener;
+				if (listener != null)
+					listener.accept(start + blockSize);
+				next = start;
+				end = start + blockSize;
+			}
+			return next++;
+		}
+	}
+}
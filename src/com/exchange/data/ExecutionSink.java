@@ -0,0 +1,24 @@
+package com.exchange.data;
+
+/**
+ * Receives executions as primitive values while a match is being executed, so
+ * that matching can run without creating an Execution object per fill
+ */
+public interface ExecutionSink {
+
+	/**
+	 * Called for each fill in order of execution
+	 * 
+	 * @param executionId
+	 *            unique id given to the execution by the executing exchange
+	 * @param orderId
+	 *            order id for the execution
+	 * @param quantity
+	 *            quantity executed
+	 * @param price
+	 *            price at which execution occurred
+	 * @param execType
+	 *            whether full execution or partial execution
+	 */
+	public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType);
+}
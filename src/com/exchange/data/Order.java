@@ -1,11 +1,16 @@
 package com.exchange.data;
 
+import java.io.Serializable;
 import java.util.Date;
 
+import com.exchange.util.ExchangeUtils;
+
 /**
  * Class to store order information
  */
-public class Order {
+public class Order implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/** Unique id for the order */
 	private final int orderId;
@@ -18,19 +23,57 @@ public class Order {
 	private final long quantity;
 	/** Limit price for the order */
 	private final double price;
+	/** Limit price as fixed-point long at price precision */
+	private final long scaledPrice;
+	/** Decimal precision of scaled price */
+	private final int pricePrecision;
 
 	/** Time when order was created */
 	private long timestamp = 0;
 
+	/** Id of symbol given by exchange, -1 until known */
+	private int symbolId = -1;
+
+	/**
+	 * Order with decimal price, kept as fixed-point at
+	 * {@link ExchangeUtils#MAX_PRECISION} as well
+	 */
 	public Order(int orderId, String symbol, Side side, long quantity, double price) {
+		this(orderId, symbol, side, quantity, price, ExchangeUtils.convertPriceToLong(price, ExchangeUtils.MAX_PRECISION),
+				ExchangeUtils.MAX_PRECISION);
+	}
+
+	/**
+	 * Order with fixed-point price, exchange of same decimal precision uses it
+	 * without any conversion
+	 * 
+	 * @param price
+	 *            price * 10^decimalPrecision, e.g. 1005 for 10.05 at precision 2
+	 * @param decimalPrecision
+	 *            decimal places in price, up to {@link ExchangeUtils#MAX_PRECISION}
+	 */
+	public Order(int orderId, String symbol, Side side, long quantity, long price, int decimalPrecision) {
+		this(orderId, symbol, side, quantity, ExchangeUtils.convertPriceToDouble(price, decimalPrecision), price,
+				checkPrecision(decimalPrecision));
+	}
+
+	private Order(int orderId, String symbol, Side side, long quantity, double price, long scaledPrice, int pricePrecision) {
 		this.orderId = orderId;
 		this.symbol = symbol;
 		this.side = side;
 		this.quantity = quantity;
 		this.price = price;
+		this.scaledPrice = scaledPrice;
+		this.pricePrecision = pricePrecision;
 		this.timestamp = System.currentTimeMillis();
 	}
 
+	private static int checkPrecision(int decimalPrecision) {
+		if (decimalPrecision < 0 || decimalPrecision > ExchangeUtils.MAX_PRECISION)
+			throw new IllegalArgumentException("Precision must be between 0 and " + ExchangeUtils.MAX_PRECISION + ": " + decimalPrecision);
+		return decimalPrecision;
+	}
+
 	public int getOrderId() {
 		return this.orderId;
 	}
@@ -43,6 +86,22 @@ public class Order {
 		return symbol;
 	}
 
+	/**
+	 * @return id of symbol assigned by exchange, -1 if order has not been sent
+	 *         and id was not set
+	 */
+	public int getSymbolId() {
+		return symbolId;
+	}
+
+	/**
+	 * Sets id of symbol as registered with exchange, so exchange finds the book
+	 * by index. Exchange stamps it on every order it accepts.
+	 */
+	public void setSymbolId(int symbolId) {
+		this.symbolId = symbolId;
+	}
+
 	public long getQuantity() {
 		return quantity;
 	}
@@ -51,6 +110,29 @@ public class Order {
 		return price;
 	}
 
+	/**
+	 * @return price as fixed-point long at given precision, digits beyond it
+	 *         are truncated
+	 */
+	public long getPrice(int decimalPrecision) {
+		if (decimalPrecision == pricePrecision)
+			return scaledPrice;
+		return ExchangeUtils.rescalePrice(scaledPrice, pricePrecision, Math.min(decimalPrecision, ExchangeUtils.MAX_PRECISION));
+	}
+
+	/** @return price as fixed-point long at {@link #getPricePrecision()} */
+	public long getScaledPrice() {
+		return scaledPrice;
+	}
+
+	public int getPricePrecision() {
+		return pricePrecision;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
 	public void setTimestamp(long timestamp) {
 		this.timestamp = timestamp;
 	}
@@ -0,0 +1,29 @@
+package com.exchange.engine;
+
+import com.exchange.algo.AuctionResult;
+
+/**
+ * Receives result of an asynchronous auction request. It is called on the shard
+ * thread which ran the auction, so it should return quickly.
+ */
+public interface AuctionCallback {
+
+	/**
+	 * @param result
+	 *            result of matching algorithm and executions for the match
+	 */
+	public void onComplete(AuctionResult result);
+
+	/**
+	 * Called instead of onComplete if exchange threw while running the auction.
+	 * Error is also passed to the shard's ShardErrorHandler, which alone receives
+	 * exceptions thrown by onComplete.
+	 * 
+	 * @param symbol
+	 *            symbol of the auction
+	 * @param error
+	 *            exception thrown while processing the request
+	 */
+	public default void onError(String symbol, RuntimeException error) {
+	}
+}
@@ -0,0 +1,36 @@
+package com.exchange.engine;
+
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.data.Order;
+
+/**
+ * Pre-allocated ring buffer slot describing a request to a shard. Slots are
+ * filled by callers and cleared by the shard once request is processed.
+ */
+final class Command {
+
+	enum Type {
+		NEW_ORDER, CANCEL_ORDER, AUCTION
+	}
+
+	Type type;
+	/** Order to be sent, for NEW_ORDER */
+	Order order;
+	/** Id of order to be cancelled, for CANCEL_ORDER */
+	int orderId;
+	/** Symbol for AUCTION */
+	String symbol;
+	/** Algorithm for AUCTION */
+	MatchingAlgo algo;
+	OrderCallback orderCallback;
+	AuctionCallback auctionCallback;
+
+	void clear() {
+		type = null;
+		order = null;
+		symbol = null;
+		algo = null;
+		orderCallback = null;
+		auctionCallback = null;
+	}
+}
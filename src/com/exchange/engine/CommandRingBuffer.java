@@ -0,0 +1,112 @@
+package com.exchange.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of pre-allocated commands with many producers and a
+ * single consumer. Producers claim a sequence with an atomic increment, fill the
+ * slot and publish it by writing the sequence into the slot's published marker.
+ * Consumer reads slots in sequence order once they are published. No locks are
+ * taken and no objects are created per command. Once closed no more sequences
+ * can be claimed, consumer drains sequences claimed before close.
+ */
+final class CommandRingBuffer {
+
+	/** Added to claim sequence on close, sequences claimed afterwards are at or above it */
+	private static final long CLOSED = 1L << 62;
+
+	private final Command[] slots;
+	private final int mask;
+
+	/** Sequence published for each slot, consumer waits for its expected sequence */
+	private final AtomicLongArray published;
+
+	/** Next sequence to be claimed by producers */
+	private final AtomicLong claimSequence = new AtomicLong(0);
+
+	/** Next sequence to be consumed, producers wait if they would overwrite it */
+	private final AtomicLong consumeSequence = new AtomicLong(0);
+
+	/** Number of sequences claimed before close, -1 while open */
+	private volatile long closedAt = -1;
+
+	/**
+	 * @param size
+	 *            number of slots, rounded up to power of two
+	 */
+	CommandRingBuffer(int size) {
+		int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+		this.slots = new Command[capacity];
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = new Command();
+			published.set(i, -1);
+		}
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Claims next slot, waiting while buffer is full. A claimed slot must be
+	 * published.
+	 * 
+	 * @return sequence of claimed slot
+	 * @throws IllegalStateException
+	 *             if buffer is closed
+	 */
+	long claim() {
+		long sequence = claimSequence.getAndIncrement();
+		if (sequence >= CLOSED)
+			throw new IllegalStateException("Ring buffer is closed");
+		// Sequence was claimed before close, so consumer drains up to it and frees a slot
+		while (sequence - slots.length >= consumeSequence.get())
+			LockSupport.parkNanos(1);
+		return sequence;
+	}
+
+	/**
+	 * Stops further claims, sequences already claimed are still published and
+	 * consumed
+	 */
+	void close() {
+		if (closedAt < 0)
+			closedAt = claimSequence.getAndAdd(CLOSED);
+	}
+
+	/** @return true once buffer is closed and every sequence claimed before is consumed */
+	boolean isDrained() {
+		long closedAt = this.closedAt;
+		return closedAt >= 0 && consumeSequence.get() == closedAt;
+	}
+
+	Command get(long sequence) {
+		return slots[(int) sequence & mask];
+	}
+
+	/** Makes claimed slot visible to consumer */
+	void publish(long sequence) {
+		published.lazySet((int) sequence & mask, sequence);
+	}
+
+	/**
+	 * @return next command if published, null if buffer is empty. Command must be
+	 *         released once processed
+	 */
+	Command poll() {
+		long sequence = consumeSequence.get();
+		int index = (int) sequence & mask;
+		if (published.get(index) != sequence)
+			return null;
+		return slots[index];
+	}
+
+	/** Frees slot returned by last poll for producers */
+	void release() {
+		consumeSequence.lazySet(consumeSequence.get() + 1);
+	}
+
+	int capacity() {
+		return slots.length;
+	}
+}
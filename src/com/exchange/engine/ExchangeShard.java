@@ -0,0 +1,171 @@
+package com.exchange.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.exchange.Exchange;
+import com.exchange.algo.AuctionResult;
+
+/**
+ * Single writer of a subset of symbols. Owns an Exchange holding order books
+ * and orders of its symbols, which is only ever touched by the shard thread
+ * draining the command ring buffer, so the exchange is created in single writer
+ * mode and takes no locks. A request which throws is reported and the shard
+ * goes on with the next one.
+ */
+final class ExchangeShard implements Runnable {
+
+	/** Number of empty polls spun before shard thread starts parking */
+	private static final int SPIN_TRIES = 100;
+
+	private final int shardId;
+	private final Exchange exchange;
+	private final CommandRingBuffer ringBuffer;
+	private final Thread thread;
+
+	private volatile ShardErrorHandler errorHandler = ShardErrorHandler.PRINT_STACK_TRACE;
+
+	ExchangeShard(int shardId, Exchange exchange, int ringBufferSize) {
+		this.shardId = shardId;
+		this.exchange = exchange;
+		this.ringBuffer = new CommandRingBuffer(ringBufferSize);
+		this.thread = new Thread(this, "exchange-shard-" + shardId);
+		this.thread.setDaemon(true);
+	}
+
+	int getShardId() {
+		return shardId;
+	}
+
+	/** Only safe to use from shard thread or once shard is stopped */
+	Exchange getExchange() {
+		return exchange;
+	}
+
+	CommandRingBuffer getRingBuffer() {
+		return ringBuffer;
+	}
+
+	void setErrorHandler(ShardErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/** Starts shard thread, a shard can be started once */
+	void start() {
+		if (thread.getState() != Thread.State.NEW)
+			throw new IllegalStateException("Shard " + shardId + " was already started");
+		thread.start();
+	}
+
+	/**
+	 * Closes ring buffer to new requests and stops shard once every request
+	 * claimed before is processed, so each of them gets its callback
+	 */
+	void stop() throws InterruptedException {
+		ringBuffer.close();
+		LockSupport.unpark(thread);
+		thread.join();
+	}
+
+	@Override
+	public void run() {
+		int idlePolls = 0;
+		while (true) {
+			Command command = ringBuffer.poll();
+			if (command == null) {
+				if (ringBuffer.isDrained())
+					return;
+				if (++idlePolls > SPIN_TRIES)
+					LockSupport.parkNanos(1000);
+				continue;
+			}
+			idlePolls = 0;
+			try {
+				process(command);
+			} catch (RuntimeException e) {
+				// One failed request must not stop the shard, producers would wait on a full ring forever
+				reportError(e);
+			} finally {
+				command.clear();
+				ringBuffer.release();
+			}
+		}
+	}
+
+	/**
+	 * Runs request on exchange and reports its result. A request failing in
+	 * exchange gets onError, a callback throwing is only reported to error
+	 * handler, so a request never gets both onComplete and onError.
+	 */
+	private void process(Command command) {
+		switch (command.type) {
+		case NEW_ORDER: {
+			int orderId = command.order.getOrderId();
+			boolean success;
+			try {
+				success = exchange.sendOrder(command.order);
+			} catch (RuntimeException e) {
+				failOrder(command.orderCallback, orderId, e);
+				return;
+			}
+			completeOrder(command.orderCallback, orderId, success);
+			return;
+		}
+		case CANCEL_ORDER: {
+			boolean success;
+			try {
+				success = exchange.cancelOrder(command.orderId);
+			} catch (RuntimeException e) {
+				failOrder(command.orderCallback, command.orderId, e);
+				return;
+			}
+			completeOrder(command.orderCallback, command.orderId, success);
+			return;
+		}
+		case AUCTION: {
+			AuctionResult result;
+			try {
+				result = exchange.runAuction(command.algo, command.symbol);
+			} catch (RuntimeException e) {
+				reportError(e);
+				try {
+					command.auctionCallback.onError(command.symbol, e);
+				} catch (RuntimeException callbackError) {
+					reportError(callbackError);
+				}
+				return;
+			}
+			try {
+				command.auctionCallback.onComplete(result);
+			} catch (RuntimeException callbackError) {
+				reportError(callbackError);
+			}
+			return;
+		}
+		}
+	}
+
+	private void completeOrder(OrderCallback callback, int orderId, boolean success) {
+		try {
+			callback.onComplete(orderId, success);
+		} catch (RuntimeException callbackError) {
+			reportError(callbackError);
+		}
+	}
+
+	private void failOrder(OrderCallback callback, int orderId, RuntimeException error) {
+		reportError(error);
+		try {
+			callback.onError(orderId, error);
+		} catch (RuntimeException callbackError) {
+			reportError(callbackError);
+		}
+	}
+
+	private void reportError(RuntimeException error) {
+		try {
+			errorHandler.onError(shardId, error);
+		} catch (RuntimeException e) {
+			// Nothing more can be done for the request, shard keeps running
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.exchange.engine;
+
+/**
+ * Receives result of an asynchronous order or cancel request. It is called on
+ * the shard thread which processed the request, so it should return quickly.
+ */
+public interface OrderCallback {
+
+	/**
+	 * @param orderId
+	 *            id of the order in request
+	 * @param success
+	 *            true if request was accepted by exchange, else false
+	 */
+	public void onComplete(int orderId, boolean success);
+
+	/**
+	 * Called instead of onComplete if exchange threw while processing the
+	 * request. Error is also passed to the shard's ShardErrorHandler, which alone
+	 * receives exceptions thrown by onComplete.
+	 * 
+	 * @param orderId
+	 *            id of the order in request
+	 * @param error
+	 *            exception thrown while processing the request
+	 */
+	public default void onError(int orderId, RuntimeException error) {
+	}
+}
@@ -0,0 +1,26 @@
+package com.exchange.engine;
+
+/**
+ * Receives exceptions thrown while a shard processed a request, e.g. by a
+ * callback. It is called on the shard thread, which then carries on with the
+ * next request.
+ */
+public interface ShardErrorHandler {
+
+	/** Prints error to standard error */
+	public static final ShardErrorHandler PRINT_STACK_TRACE = new ShardErrorHandler() {
+		@Override
+		public void onError(int shardId, RuntimeException error) {
+			System.err.println("Error in exchange shard " + shardId);
+			error.printStackTrace();
+		}
+	};
+
+	/**
+	 * @param shardId
+	 *            shard on which request failed
+	 * @param error
+	 *            exception thrown while processing the request
+	 */
+	public void onError(int shardId, RuntimeException error);
+}
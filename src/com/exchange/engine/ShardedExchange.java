@@ -0,0 +1,213 @@
+package com.exchange.engine;
+
+import static com.exchange.ExchangeConstants.DEFAULT_DECIMAL_PRECISION;
+import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_ORDERBOOK_CAPACITY;
+import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_ORDERS_COUNT;
+import static com.exchange.ExchangeConstants.DEFAULT_INITIAL_SYMBOLS_COUNT;
+import static com.exchange.ExchangeConstants.DEFAULT_PRICE_BAND_LEVELS;
+
+import java.util.Objects;
+
+import com.exchange.Exchange;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.data.ExecutionIdAllocator;
+import com.exchange.data.Order;
+import com.exchange.orderbook.DensePriceLadder;
+
+/**
+ * Exchange engine where symbols are hashed to a fixed number of shards. Each
+ * shard owns order books and orders of its symbols and is driven by a single
+ * thread reading commands from a pre-allocated ring buffer. Requests can be sent
+ * from any number of threads, results are reported asynchronously through
+ * callbacks invoked on the shard thread. A request which fails in its shard
+ * exchange is passed to the ShardErrorHandler and to the callback's onError,
+ * exception thrown by a callback only to the ShardErrorHandler. Shard then goes
+ * on with next request.
+ * <p>
+ * Each shard has its own order store, so an order id is only checked for
+ * duplicates against live orders of same shard. Clients must use order ids
+ * unique across all symbols, a cancel is routed by symbol and only reaches
+ * order of that symbol.
+ */
+public class ShardedExchange {
+
+	/** Default number of commands each shard can have pending */
+	public static final int DEFAULT_RING_BUFFER_SIZE = 1 << 16;
+
+	private final ExchangeShard[] shards;
+
+	/** Execution ids shared by exchanges of all shards */
+	private final ExecutionIdAllocator executionIds;
+
+	private boolean started;
+
+	/** Set by shutdown, threads of a shut down exchange can not be started again */
+	private boolean terminated;
+
+	public ShardedExchange(int shardCount) {
+		this(shardCount, DEFAULT_RING_BUFFER_SIZE, DEFAULT_DECIMAL_PRECISION, DEFAULT_INITIAL_SYMBOLS_COUNT,
+				DEFAULT_INITIAL_ORDERS_COUNT, DEFAULT_INITIAL_ORDERBOOK_CAPACITY);
+	}
+
+	/**
+	 * @param shardCount
+	 *            number of shards, each one runs its own thread
+	 * @param ringBufferSize
+	 *            number of pending commands per shard, rounded up to power of two
+	 * @param symbolCount
+	 *            expected symbols, split across shards
+	 * @param orderCount
+	 *            expected live orders, split across shards
+	 */
+	public ShardedExchange(int shardCount, int ringBufferSize, int decimalPrecision, int symbolCount, int orderCount,
+			int orderBookCapacity) {
+		if (shardCount <= 0)
+			throw new IllegalArgumentException("Shard count must be > 0");
+		this.shards = new ExchangeShard[shardCount];
+		// Shard threads take blocks of ids from one allocator, so execution ids are unique across shards
+		this.executionIds = new ExecutionIdAllocator();
+		for (int i = 0; i < shardCount; i++) {
+			// Only shard thread touches its exchange, so books and order store are not locked
+			Exchange exchange = new Exchange(decimalPrecision, Math.max(1, symbolCount / shardCount),
+					Math.max(1, orderCount / shardCount), orderBookCapacity, DEFAULT_PRICE_BAND_LEVELS,
+					DensePriceLadder.DEFAULT_MAX_BAND_LEVELS, true);
+			exchange.setExecutionIds(executionIds);
+			shards[i] = new ExchangeShard(i, exchange, ringBufferSize);
+		}
+	}
+
+	public ExecutionIdAllocator getExecutionIds() {
+		return executionIds;
+	}
+
+	/**
+	 * Receiver of exceptions thrown while shards process requests, prints them
+	 * to standard error by default
+	 */
+	public void setErrorHandler(ShardErrorHandler errorHandler) {
+		Objects.requireNonNull(errorHandler, "errorHandler");
+		for (ExchangeShard shard : shards)
+			shard.setErrorHandler(errorHandler);
+	}
+
+	/**
+	 * Starts shard threads, requests published before start are processed once
+	 * started. Exchange can be started once, not again after shutdown.
+	 */
+	public synchronized void start() {
+		if (terminated)
+			throw new IllegalStateException("Exchange was shut down");
+		if (started)
+			throw new IllegalStateException("Exchange already started");
+		started = true;
+		for (ExchangeShard shard : shards)
+			shard.start();
+	}
+
+	/**
+	 * Stops shard threads once they have processed every request sent before
+	 * this call, including senders still waiting for room in a full ring.
+	 * Requests sent after this call are rejected with IllegalStateException.
+	 */
+	public synchronized void shutdown() throws InterruptedException {
+		if (!started)
+			return;
+		terminated = true;
+		// Rings of all shards stop taking requests before any shard is waited for
+		for (ExchangeShard shard : shards)
+			shard.getRingBuffer().close();
+		for (ExchangeShard shard : shards)
+			shard.stop();
+		started = false;
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/** @return shard owning given symbol */
+	public int shardOf(String symbol) {
+		int hash = symbol.hashCode();
+		hash = hash ^ (hash >>> 16);
+		return (hash & Integer.MAX_VALUE) % shards.length;
+	}
+
+	/**
+	 * Exchange of a shard, it is owned by shard thread and must only be read once
+	 * engine is shut down
+	 */
+	public Exchange getShardExchange(int shardId) {
+		return shards[shardId].getExchange();
+	}
+
+	/**
+	 * Asynchronously sends order to its symbol's shard
+	 * 
+	 * @param order
+	 *            order to be sent
+	 * @param callback
+	 *            receives true if order was added, else false, must not be null
+	 */
+	public void sendOrder(Order order, OrderCallback callback) {
+		Objects.requireNonNull(order, "order");
+		Objects.requireNonNull(callback, "callback");
+		CommandRingBuffer ringBuffer = shards[shardOf(order.getSymbol())].getRingBuffer();
+		long sequence = ringBuffer.claim();
+		Command command = ringBuffer.get(sequence);
+		command.type = Command.Type.NEW_ORDER;
+		command.order = order;
+		command.orderCallback = callback;
+		ringBuffer.publish(sequence);
+	}
+
+	/**
+	 * Asynchronously cancels order, symbol is needed to find shard which owns
+	 * the order
+	 * 
+	 * @param symbol
+	 *            symbol of order
+	 * @param orderId
+	 *            id of order to be cancelled
+	 * @param callback
+	 *            receives true if order was cancelled, else false, must not be
+	 *            null
+	 */
+	public void cancelOrder(String symbol, int orderId, OrderCallback callback) {
+		Objects.requireNonNull(symbol, "symbol");
+		Objects.requireNonNull(callback, "callback");
+		CommandRingBuffer ringBuffer = shards[shardOf(symbol)].getRingBuffer();
+		long sequence = ringBuffer.claim();
+		Command command = ringBuffer.get(sequence);
+		command.type = Command.Type.CANCEL_ORDER;
+		command.orderId = orderId;
+		command.orderCallback = callback;
+		ringBuffer.publish(sequence);
+	}
+
+	/**
+	 * Asynchronously runs matching algorithm on symbol and executes the match.
+	 * Auction is ordered with other requests of same shard, so it sees all orders
+	 * whose send was completed before this call.
+	 * 
+	 * @param exchangeAlgo
+	 *            Instance of Algorithm, shared by shard threads so it must not
+	 *            keep state between runs
+	 * @param symbol
+	 *            symbol for which auction needs to be run
+	 * @param callback
+	 *            receives auction result, must not be null
+	 */
+	public void runAuction(MatchingAlgo exchangeAlgo, String symbol, AuctionCallback callback) {
+		Objects.requireNonNull(exchangeAlgo, "exchangeAlgo");
+		Objects.requireNonNull(symbol, "symbol");
+		Objects.requireNonNull(callback, "callback");
+		CommandRingBuffer ringBuffer = shards[shardOf(symbol)].getRingBuffer();
+		long sequence = ringBuffer.claim();
+		Command command = ringBuffer.get(sequence);
+		command.type = Command.Type.AUCTION;
+		command.symbol = symbol;
+		command.algo = exchangeAlgo;
+		command.auctionCallback = callback;
+		ringBuffer.publish(sequence);
+	}
+}
@@ -0,0 +1,110 @@
+package com.exchange.gateway;
+
+import java.nio.ByteBuffer;
+
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Side;
+
+/**
+ * Binary messages exchanged between order entry clients and OrderGateway.
+ * Every message is a frame of a 2 byte body length followed by the body, body
+ * starts with 1 byte message type. Values are in network byte order and
+ * symbols are ASCII bytes prefixed by 1 byte length. Prices are fixed-point
+ * longs at decimal precision of the exchange behind the gateway.
+ * 
+ * Client to gateway:
+ * -> NEW_ORDER: orderId int, side byte, quantity long, price long, symbol
+ * -> CANCEL_ORDER: orderId int
+ * -> AUCTION: symbol
+ * 
+ * Gateway to client:
+ * -> ACK: orderId int, type of acknowledged request byte, success byte
+ * -> EXECUTION: executionId long, orderId int, quantity long, price long, execution type byte
+ * -> AUCTION_RESULT: matched byte, price long, volume long, symbol
+ */
+public final class GatewayProtocol {
+
+	public static final byte NEW_ORDER = 1;
+	public static final byte CANCEL_ORDER = 2;
+	public static final byte AUCTION = 3;
+
+	public static final byte ACK = 10;
+	public static final byte EXECUTION = 11;
+	public static final byte AUCTION_RESULT = 12;
+
+	/** Size of body length field */
+	public static final int LENGTH_SIZE = 2;
+
+	/** Largest body accepted by gateway */
+	public static final int MAX_BODY_SIZE = 1024;
+
+	public static final int MAX_SYMBOL_LENGTH = 127;
+
+	/** Body sizes without symbol */
+	static final int NEW_ORDER_SIZE = 1 + 4 + 1 + 8 + 8 + 1;
+	static final int CANCEL_ORDER_SIZE = 1 + 4;
+	static final int AUCTION_SIZE = 1 + 1;
+	static final int ACK_SIZE = 1 + 4 + 1 + 1;
+	static final int EXECUTION_SIZE = 1 + 8 + 4 + 8 + 8 + 1;
+	static final int AUCTION_RESULT_SIZE = 1 + 1 + 8 + 8 + 1;
+
+	private GatewayProtocol() {
+	}
+
+	public static void putNewOrder(ByteBuffer buffer, int orderId, Side side, long quantity, long price, byte[] symbol) {
+		buffer.putShort((short) (NEW_ORDER_SIZE + symbol.length));
+		buffer.put(NEW_ORDER).putInt(orderId).put(encodeSide(side)).putLong(quantity).putLong(price);
+		putSymbol(buffer, symbol);
+	}
+
+	public static void putCancelOrder(ByteBuffer buffer, int orderId) {
+		buffer.putShort((short) CANCEL_ORDER_SIZE);
+		buffer.put(CANCEL_ORDER).putInt(orderId);
+	}
+
+	public static void putAuction(ByteBuffer buffer, byte[] symbol) {
+		buffer.putShort((short) (AUCTION_SIZE + symbol.length));
+		buffer.put(AUCTION);
+		putSymbol(buffer, symbol);
+	}
+
+	static void putAck(ByteBuffer buffer, int orderId, byte requestType, boolean success) {
+		buffer.putShort((short) ACK_SIZE);
+		buffer.put(ACK).putInt(orderId).put(requestType).put(success ? (byte) 1 : (byte) 0);
+	}
+
+	static void putExecution(ByteBuffer buffer, long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+		buffer.putShort((short) EXECUTION_SIZE);
+		buffer.put(EXECUTION).putLong(executionId).putInt(orderId).putLong(quantity).putLong(price).put((byte) execType.ordinal());
+	}
+
+	static void putAuctionResult(ByteBuffer buffer, boolean matched, long price, long volume, byte[] symbol) {
+		buffer.putShort((short) (AUCTION_RESULT_SIZE + symbol.length));
+		buffer.put(AUCTION_RESULT).put(matched ? (byte) 1 : (byte) 0).putLong(price).putLong(volume);
+		putSymbol(buffer, symbol);
+	}
+
+	private static void putSymbol(ByteBuffer buffer, byte[] symbol) {
+		if (symbol.length > MAX_SYMBOL_LENGTH)
+			throw new IllegalArgumentException("Symbol longer than " + MAX_SYMBOL_LENGTH + " bytes");
+		buffer.put((byte) symbol.length).put(symbol);
+	}
+
+	static byte encodeSide(Side side) {
+		return side == Side.Buy ? (byte) 'B' : (byte) 'S';
+	}
+
+	/** @return side for encoded value, null if unknown */
+	static Side decodeSide(byte side) {
+		if (side == 'B')
+			return Side.Buy;
+		if (side == 'S')
+			return Side.Sell;
+		return null;
+	}
+
+	/** @return execution type for encoded value */
+	public static ExecutionType decodeExecutionType(byte execType) {
+		return ExecutionType.values()[execType];
+	}
+}
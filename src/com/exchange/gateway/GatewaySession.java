@@ -0,0 +1,149 @@
+package com.exchange.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import com.exchange.util.IntIntHashMap;
+import com.exchange.util.IntObjectHashMap;
+
+/**
+ * Connection of a client to OrderGateway. Incoming bytes are read into a
+ * direct buffer and decoded in place, outgoing messages are appended to a
+ * direct buffer which is written once per selector loop so that many replies
+ * go out in a single write. Session keeps ids of its live orders so that their
+ * entries in gateway's map of order owners are removed when it closes.
+ */
+final class GatewaySession {
+
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final ByteBuffer in;
+	private ByteBuffer out;
+
+	/** Most pending output kept for a client which does not read */
+	private final int maxOutputSize;
+
+	/** Session of each live order entered through the gateway, shared by all sessions */
+	private final IntObjectHashMap<GatewaySession> orderOwners;
+
+	/** Ids of live orders entered by this session */
+	private final IntIntHashMap orderIds;
+
+	/** Set while session is in gateway's list of sessions with pending output */
+	private boolean flushPending;
+
+	private boolean closed;
+
+	/**
+	 * @param maxOutputSize
+	 *            most bytes output buffer may grow to, session is closed when
+	 *            more output is pending
+	 * @param orderOwners
+	 *            gateway's map of session of each live order
+	 */
+	GatewaySession(SocketChannel channel, SelectionKey key, int bufferSize, int maxOutputSize,
+			IntObjectHashMap<GatewaySession> orderOwners) {
+		this.maxOutputSize = Math.max(maxOutputSize, bufferSize);
+		this.orderOwners = orderOwners;
+		this.orderIds = new IntIntHashMap(16, -1);
+		this.channel = channel;
+		this.key = key;
+		this.in = ByteBuffer.allocateDirect(bufferSize);
+		this.out = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	ByteBuffer getIn() {
+		return in;
+	}
+
+	/**
+	 * @param bytes
+	 *            size of message about to be appended
+	 * @return output buffer with room for the message, null if session is closed
+	 *         or was closed as its output would exceed maximum size
+	 */
+	ByteBuffer reserve(int bytes) {
+		if (closed)
+			return null;
+		if (out.remaining() < bytes) {
+			int needed = out.position() + bytes;
+			if (needed > maxOutputSize) {
+				// Client stopped reading, it can not hold direct memory of the gateway without limit
+				close();
+				return null;
+			}
+			// Slow reader, keep its replies rather than blocking other sessions
+			ByteBuffer bigger = ByteBuffer.allocateDirect(Math.min(Math.max(out.capacity() * 2, needed), maxOutputSize));
+			out.flip();
+			bigger.put(out);
+			out = bigger;
+		}
+		return out;
+	}
+
+	/** Records session as owner of a live order, executions of it are sent here */
+	void addOrder(int orderId) {
+		orderOwners.put(orderId, this);
+		orderIds.put(orderId, 0);
+	}
+
+	/** Forgets order once it is cancelled or fully filled */
+	void removeOrder(int orderId) {
+		orderOwners.remove(orderId, this);
+		orderIds.remove(orderId);
+	}
+
+	boolean isFlushPending() {
+		return flushPending;
+	}
+
+	void setFlushPending(boolean flushPending) {
+		this.flushPending = flushPending;
+	}
+
+	/** @return number of bytes read, -1 if client closed connection */
+	int read() throws IOException {
+		return channel.read(in);
+	}
+
+	/**
+	 * Writes as much of pending output as socket takes, interest in write
+	 * readiness is kept only while some output is left
+	 */
+	void flush() throws IOException {
+		if (closed)
+			return;
+		out.flip();
+		channel.write(out);
+		out.compact();
+		if (out.position() > 0)
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		else
+			key.interestOps(SelectionKey.OP_READ);
+	}
+
+	boolean hasPendingOutput() {
+		return out.position() > 0;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	void close() {
+		if (closed)
+			return;
+		closed = true;
+		// Orders stay on their books, executions of them are no longer routed to this session
+		orderIds.forEachKey(orderId -> orderOwners.remove(orderId, this));
+		orderIds.clear();
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Nothing more to do for a closed session
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package com.exchange.gateway;
+
+import static com.exchange.gateway.GatewayProtocol.AUCTION;
+import static com.exchange.gateway.GatewayProtocol.AUCTION_RESULT_SIZE;
+import static com.exchange.gateway.GatewayProtocol.AUCTION_SIZE;
+import static com.exchange.gateway.GatewayProtocol.ACK_SIZE;
+import static com.exchange.gateway.GatewayProtocol.CANCEL_ORDER;
+import static com.exchange.gateway.GatewayProtocol.CANCEL_ORDER_SIZE;
+import static com.exchange.gateway.GatewayProtocol.EXECUTION_SIZE;
+import static com.exchange.gateway.GatewayProtocol.LENGTH_SIZE;
+import static com.exchange.gateway.GatewayProtocol.MAX_BODY_SIZE;
+import static com.exchange.gateway.GatewayProtocol.NEW_ORDER;
+import static com.exchange.gateway.GatewayProtocol.NEW_ORDER_SIZE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.exchange.Exchange;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.data.ExecutionSink;
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.util.IntObjectHashMap;
+import com.exchange.util.SymbolTable;
+
+/**
+ * TCP order entry gateway in front of an Exchange. A single thread serves all
+ * client sessions with a non-blocking selector, decodes GatewayProtocol
+ * messages straight from each session's direct buffer and feeds them to the
+ * Exchange. Acks and executions are appended to per session output buffers and
+ * written once per selector loop, so replies to a burst of requests go out in a
+ * single write.
+ */
+public class OrderGateway implements Runnable, ExecutionSink, Closeable {
+
+	/** Default size of input and initial output buffer of each session */
+	public static final int DEFAULT_SESSION_BUFFER_SIZE = 8192;
+
+	/** Output pending for a session may grow to this many times session buffer size before it is closed */
+	public static final int MAX_OUTPUT_BUFFERS = 64;
+
+	/** Default number of distinct symbols clients may send orders for */
+	public static final int DEFAULT_MAX_SYMBOLS = 1 << 16;
+
+	private final Exchange exchange;
+	private final MatchingAlgo auctionAlgo;
+	private final int sessionBufferSize;
+
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private final Thread thread;
+
+	/** Session which sent each live order, executions are reported to it */
+	private final IntObjectHashMap<GatewaySession> orderOwners;
+
+	/** Symbols seen in new orders, bounded so clients can not create books without limit */
+	private final SymbolTable symbols;
+
+	/** Sessions with output appended in current selector loop */
+	private GatewaySession[] pendingFlush;
+	private int pendingFlushCount;
+
+	private volatile boolean running;
+
+	public OrderGateway(Exchange exchange, MatchingAlgo auctionAlgo, InetSocketAddress address) throws IOException {
+		this(exchange, auctionAlgo, address, DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_MAX_SYMBOLS);
+	}
+
+	public OrderGateway(Exchange exchange, MatchingAlgo auctionAlgo, InetSocketAddress address, int sessionBufferSize)
+			throws IOException {
+		this(exchange, auctionAlgo, address, sessionBufferSize, DEFAULT_MAX_SYMBOLS);
+	}
+
+	/**
+	 * @param exchange
+	 *            exchange receiving orders
+	 * @param auctionAlgo
+	 *            algorithm run when a client triggers an auction
+	 * @param address
+	 *            address to listen on, port 0 picks a free port
+	 * @param sessionBufferSize
+	 *            size of input buffer of each session, at least largest message
+	 * @param maxSymbols
+	 *            most distinct symbols clients may send orders for, orders for
+	 *            further symbols are rejected
+	 */
+	public OrderGateway(Exchange exchange, MatchingAlgo auctionAlgo, InetSocketAddress address, int sessionBufferSize,
+			int maxSymbols) throws IOException {
+		if (sessionBufferSize < LENGTH_SIZE + MAX_BODY_SIZE)
+			throw new IllegalArgumentException("Session buffer size must be >= " + (LENGTH_SIZE + MAX_BODY_SIZE));
+		this.exchange = exchange;
+		this.auctionAlgo = auctionAlgo;
+		this.sessionBufferSize = sessionBufferSize;
+		this.orderOwners = new IntObjectHashMap<>(1024);
+		this.symbols = new SymbolTable(Math.min(maxSymbols, 1024), maxSymbols);
+		this.pendingFlush = new GatewaySession[64];
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		this.server.bind(address, 1024);
+		this.server.configureBlocking(false);
+		this.server.register(selector, SelectionKey.OP_ACCEPT);
+		this.thread = new Thread(this, "order-gateway");
+		this.thread.setDaemon(true);
+	}
+
+	/** @return port gateway listens on */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) server.getLocalAddress()).getPort();
+	}
+
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	/** Stops gateway thread and closes all sessions */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		selector.wakeup();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (SelectionKey key : selector.keys())
+			if (key.attachment() != null)
+				((GatewaySession) key.attachment()).close();
+		server.close();
+		selector.close();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable())
+						accept();
+					else
+						onReady((GatewaySession) key.attachment(), key);
+				}
+				flushSessions();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Gateway selector failed", e);
+		}
+	}
+
+	private void accept() {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = server.accept();
+			} catch (IOException e) {
+				// E.g. out of file handles, connection is accepted on a later loop
+				return;
+			}
+			if (channel == null)
+				return;
+			try {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+				key.attach(new GatewaySession(channel, key, sessionBufferSize,
+						(int) Math.min((long) sessionBufferSize * MAX_OUTPUT_BUFFERS, Integer.MAX_VALUE), orderOwners));
+			} catch (IOException e) {
+				try {
+					channel.close();
+				} catch (IOException closeFailure) {
+					// Nothing more to do for a connection which was never served
+				}
+			}
+		}
+	}
+
+	private void onReady(GatewaySession session, SelectionKey key) {
+		try {
+			if (key.isWritable())
+				session.flush();
+			if (key.isValid() && key.isReadable())
+				onReadable(session);
+		} catch (IOException | RuntimeException e) {
+			// Failure of one session's request, e.g. thrown by exchange, closes only that session
+			session.close();
+		}
+	}
+
+	private void onReadable(GatewaySession session) throws IOException {
+		if (session.read() < 0) {
+			session.close();
+			return;
+		}
+		ByteBuffer in = session.getIn();
+		in.flip();
+		while (in.remaining() >= LENGTH_SIZE) {
+			int length = in.getShort(in.position()) & 0xFFFF;
+			if (length == 0 || length > MAX_BODY_SIZE) {
+				// Framing is lost, nothing more can be decoded from this session
+				session.close();
+				return;
+			}
+			if (in.remaining() < LENGTH_SIZE + length)
+				break;
+			int body = in.position() + LENGTH_SIZE;
+			if (!decode(session, in, body, length)) {
+				session.close();
+				return;
+			}
+			// Session is closed if its output overflowed, rest of its input is dropped
+			if (session.isClosed())
+				return;
+			in.position(body + length);
+		}
+		in.compact();
+	}
+
+	/**
+	 * Decodes message at given offset of buffer and applies it to exchange
+	 * 
+	 * @return false if message is malformed
+	 */
+	private boolean decode(GatewaySession session, ByteBuffer in, int body, int length) {
+		switch (in.get(body)) {
+		case NEW_ORDER: {
+			if (length < NEW_ORDER_SIZE || length != NEW_ORDER_SIZE + (in.get(body + NEW_ORDER_SIZE - 1) & 0xFF))
+				return false;
+			int orderId = in.getInt(body + 1);
+			Side side = GatewayProtocol.decodeSide(in.get(body + 5));
+			long quantity = in.getLong(body + 6);
+			long price = in.getLong(body + 14);
+			String symbol = symbols.get(in, body + NEW_ORDER_SIZE, length - NEW_ORDER_SIZE);
+			// Once clients have sent orders for max symbols, only symbols exchange already has a book for are taken
+			if (symbol == null)
+				symbol = existingSymbol(in, body + NEW_ORDER_SIZE, length - NEW_ORDER_SIZE);
+			boolean success = side != null && symbol != null && exchange.sendOrder(new Order(orderId, symbol, side, quantity, price, exchange.getDecimalPrecision()));
+			if (success)
+				session.addOrder(orderId);
+			ack(session, orderId, NEW_ORDER, success);
+			return true;
+		}
+		case CANCEL_ORDER: {
+			if (length != CANCEL_ORDER_SIZE)
+				return false;
+			int orderId = in.getInt(body + 1);
+			// Sessions can only cancel their own orders
+			boolean success = orderOwners.get(orderId) == session && exchange.cancelOrder(orderId);
+			if (success)
+				session.removeOrder(orderId);
+			ack(session, orderId, CANCEL_ORDER, success);
+			return true;
+		}
+		case AUCTION: {
+			if (length < AUCTION_SIZE || length != AUCTION_SIZE + (in.get(body + 1) & 0xFF))
+				return false;
+			// Auction creates no book, so it does not add symbol to table
+			String symbol = symbols.find(in, body + AUCTION_SIZE, length - AUCTION_SIZE);
+			if (symbol == null)
+				symbol = new String(copyBytes(in, body + AUCTION_SIZE, length - AUCTION_SIZE), StandardCharsets.US_ASCII);
+			// Executions are routed to owners of filled orders through onExecution
+			MatchingResult result = exchange.runAuction(auctionAlgo, symbol, this);
+			byte[] symbolBytes = symbol.getBytes(StandardCharsets.US_ASCII);
+			ByteBuffer out = session.reserve(LENGTH_SIZE + AUCTION_RESULT_SIZE + symbolBytes.length);
+			if (out != null) {
+				GatewayProtocol.putAuctionResult(out, result.matched(), result.getPrice(), result.getVolume(), symbolBytes);
+				markForFlush(session);
+			}
+			return true;
+		}
+		default:
+			return false;
+		}
+	}
+
+	/** @return symbol at given position of buffer if exchange has its book, else null */
+	private String existingSymbol(ByteBuffer in, int offset, int length) {
+		String symbol = new String(copyBytes(in, offset, length), StandardCharsets.US_ASCII);
+		return exchange.getBookForSymbol(symbol) != null ? symbol : null;
+	}
+
+	private static byte[] copyBytes(ByteBuffer in, int offset, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = in.get(offset + i);
+		return bytes;
+	}
+
+	private void ack(GatewaySession session, int orderId, byte requestType, boolean success) {
+		ByteBuffer out = session.reserve(LENGTH_SIZE + ACK_SIZE);
+		if (out == null)
+			return;
+		GatewayProtocol.putAck(out, orderId, requestType, success);
+		markForFlush(session);
+	}
+
+	@Override
+	public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+		// Closed sessions have removed their orders
+		GatewaySession owner = orderOwners.get(orderId);
+		if (owner == null)
+			return;
+		if (execType == ExecutionType.FULL)
+			owner.removeOrder(orderId);
+		// Null once owner is closed, e.g. for not reading its output
+		ByteBuffer out = owner.reserve(LENGTH_SIZE + EXECUTION_SIZE);
+		if (out == null)
+			return;
+		GatewayProtocol.putExecution(out, executionId, orderId, quantity, price, execType);
+		markForFlush(owner);
+	}
+
+	private void markForFlush(GatewaySession session) {
+		if (session.isFlushPending())
+			return;
+		session.setFlushPending(true);
+		if (pendingFlushCount == pendingFlush.length)
+			pendingFlush = Arrays.copyOf(pendingFlush, pendingFlushCount * 2);
+		pendingFlush[pendingFlushCount++] = session;
+	}
+
+	private void flushSessions() {
+		for (int i = 0; i < pendingFlushCount; i++) {
+			GatewaySession session = pendingFlush[i];
+			pendingFlush[i] = null;
+			session.setFlushPending(false);
+			try {
+				session.flush();
+			} catch (IOException | RuntimeException e) {
+				session.close();
+			}
+		}
+		pendingFlushCount = 0;
+	}
+}
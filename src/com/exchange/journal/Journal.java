@@ -0,0 +1,207 @@
+package com.exchange.journal;
+
+import static com.exchange.journal.JournalRecord.CANCEL_ORDER;
+import static com.exchange.journal.JournalRecord.CANCEL_ORDER_ID;
+import static com.exchange.journal.JournalRecord.CANCEL_ORDER_SIZE;
+import static com.exchange.journal.JournalRecord.EXECUTE_MATCH;
+import static com.exchange.journal.JournalRecord.EXECUTE_MATCH_SIZE;
+import static com.exchange.journal.JournalRecord.EXECUTION_ID_BLOCK;
+import static com.exchange.journal.JournalRecord.EXECUTION_ID_BLOCK_END;
+import static com.exchange.journal.JournalRecord.EXECUTION_ID_BLOCK_SIZE;
+import static com.exchange.journal.JournalRecord.HEADER_SIZE;
+import static com.exchange.journal.JournalRecord.LENGTH;
+import static com.exchange.journal.JournalRecord.MATCH_PRICE;
+import static com.exchange.journal.JournalRecord.MATCH_QUANTITY;
+import static com.exchange.journal.JournalRecord.MATCH_SYMBOL;
+import static com.exchange.journal.JournalRecord.MATCH_SYMBOL_LENGTH;
+import static com.exchange.journal.JournalRecord.MAX_SIZE;
+import static com.exchange.journal.JournalRecord.NEW_ORDER;
+import static com.exchange.journal.JournalRecord.NEW_ORDER_SIZE;
+import static com.exchange.journal.JournalRecord.SEQUENCE;
+import static com.exchange.journal.JournalRecord.TYPE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.exchange.codec.OrderCodec;
+import com.exchange.data.Order;
+
+/**
+ * Append only journal of exchange events kept in memory mapped segment files
+ * of fixed size. Appending a record is a copy into mapped memory, records are
+ * forced to disk as per SyncPolicy. A new journal on an existing directory
+ * starts a new segment after existing ones and continues their sequence.
+ * Appends from many threads are serialized.
+ */
+public class Journal implements Closeable {
+
+	/** Default size of each segment file */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/** Longest symbol which can be recorded */
+	public static final int MAX_SYMBOL_LENGTH = OrderCodec.SYMBOL_CAPACITY;
+
+	/** Default number of records between syncs for BATCH policy */
+	public static final int DEFAULT_SYNC_BATCH_SIZE = 1000;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final SyncPolicy syncPolicy;
+	private final int syncBatchSize;
+	private final OrderCodec orderCodec = new OrderCodec();
+
+	private MappedByteBuffer segment;
+	private long segmentIndex;
+	private int position;
+
+	/** Sequence of next record */
+	private long sequence;
+
+	/** Records appended since last sync */
+	private int unsyncedRecords;
+
+	private boolean closed;
+
+	public Journal(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE, SyncPolicy.BATCH, DEFAULT_SYNC_BATCH_SIZE);
+	}
+
+	/**
+	 * @param directory
+	 *            directory of segment files, created if missing
+	 * @param segmentSize
+	 *            size of each segment file
+	 * @param syncPolicy
+	 *            when records are forced to disk
+	 * @param syncBatchSize
+	 *            records between syncs for BATCH policy
+	 */
+	public Journal(Path directory, int segmentSize, SyncPolicy syncPolicy, int syncBatchSize) throws IOException {
+		if (segmentSize < MAX_SIZE * 2)
+			throw new IllegalArgumentException("Segment size must be >= " + MAX_SIZE * 2);
+		if (syncBatchSize <= 0)
+			throw new IllegalArgumentException("Sync batch size must be > 0");
+		this.directory = Files.createDirectories(directory);
+		this.segmentSize = segmentSize;
+		this.syncPolicy = syncPolicy;
+		this.syncBatchSize = syncBatchSize;
+
+		List<Path> segments = JournalReplayer.segments(directory);
+		this.segmentIndex = -1;
+		long lastSequence = -1;
+		if (!segments.isEmpty())
+			this.segmentIndex = JournalRecord.segmentIndex(segments.get(segments.size() - 1).getFileName().toString());
+		// Sequence continues from last record, which may be in an older segment if newer ones are empty
+		for (int i = segments.size() - 1; i >= 0 && lastSequence < 0; i--)
+			lastSequence = JournalReplayer.lastSequence(segments.get(i));
+		this.sequence = lastSequence + 1;
+		openNextSegment();
+	}
+
+	private void openNextSegment() throws IOException {
+		if (segment != null && syncPolicy != SyncPolicy.NONE)
+			segment.force();
+		segmentIndex++;
+		Path path = directory.resolve(JournalRecord.segmentName(segmentIndex));
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// Mapping stays valid once channel is closed
+			segment = channel.map(MapMode.READ_WRITE, 0, segmentSize);
+		}
+		segment.order(ByteOrder.LITTLE_ENDIAN);
+		position = 0;
+	}
+
+	/** @return offset of record with room for given size, rolling segment if needed */
+	private int claim(int size) {
+		if (closed)
+			throw new IllegalStateException("Journal is closed");
+		// A zero length left at end of segment tells reader to move to next segment
+		if (position + size > segmentSize) {
+			try {
+				openNextSegment();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return position;
+	}
+
+	/** Writes header with length last, so record becomes visible only when complete */
+	private void commit(int offset, byte type, int size) {
+		segment.put(offset + TYPE, type);
+		segment.putLong(offset + SEQUENCE, sequence++);
+		segment.putInt(offset + LENGTH, size);
+		position = offset + size;
+		if (syncPolicy == SyncPolicy.ALWAYS || (syncPolicy == SyncPolicy.BATCH && ++unsyncedRecords >= syncBatchSize)) {
+			segment.force();
+			unsyncedRecords = 0;
+		}
+	}
+
+	/** Records an order accepted by exchange */
+	public synchronized void appendNewOrder(Order order) {
+		int offset = claim(NEW_ORDER_SIZE);
+		orderCodec.wrap(segment, offset + HEADER_SIZE).encode(order);
+		commit(offset, NEW_ORDER, NEW_ORDER_SIZE);
+	}
+
+	/** Records an order cancelled by exchange */
+	public synchronized void appendCancelOrder(int orderId) {
+		int offset = claim(CANCEL_ORDER_SIZE);
+		segment.putInt(offset + CANCEL_ORDER_ID, orderId);
+		commit(offset, CANCEL_ORDER, CANCEL_ORDER_SIZE);
+	}
+
+	/** Records a match executed on the book of a symbol */
+	public synchronized void appendExecuteMatch(String symbol, long price, long quantity) {
+		if (symbol.length() > OrderCodec.SYMBOL_CAPACITY)
+			throw new IllegalArgumentException("Symbol longer than " + OrderCodec.SYMBOL_CAPACITY + " characters: " + symbol);
+		int offset = claim(EXECUTE_MATCH_SIZE);
+		segment.putLong(offset + MATCH_PRICE, price);
+		segment.putLong(offset + MATCH_QUANTITY, quantity);
+		segment.put(offset + MATCH_SYMBOL_LENGTH, (byte) symbol.length());
+		for (int i = 0; i < symbol.length(); i++)
+			segment.put(offset + MATCH_SYMBOL + i, (byte) symbol.charAt(i));
+		commit(offset, EXECUTE_MATCH, EXECUTE_MATCH_SIZE);
+	}
+
+	/**
+	 * Records that execution ids below given id may have been used, so replay
+	 * moves execution ids of exchange past them
+	 */
+	public synchronized void appendExecutionIdBlock(long blockEnd) {
+		int offset = claim(EXECUTION_ID_BLOCK_SIZE);
+		segment.putLong(offset + EXECUTION_ID_BLOCK_END, blockEnd);
+		commit(offset, EXECUTION_ID_BLOCK, EXECUTION_ID_BLOCK_SIZE);
+	}
+
+	/** @return sequence which will be given to next record */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+
+	/** Forces all appended records to disk irrespective of sync policy */
+	public synchronized void flush() {
+		segment.force();
+		unsyncedRecords = 0;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed)
+			return;
+		if (syncPolicy != SyncPolicy.NONE)
+			flush();
+		closed = true;
+	}
+}
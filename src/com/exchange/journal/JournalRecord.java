@@ -0,0 +1,65 @@
+package com.exchange.journal;
+
+import com.exchange.codec.OrderCodec;
+
+/**
+ * Layout of records in journal segments. Each record starts with a header of
+ * record length int, record type byte and sequence long at offset 8, followed
+ * by the payload. Records are aligned to 8 bytes and length is written last, so
+ * a zero length marks end of written data in a segment. All values are little
+ * endian.
+ */
+final class JournalRecord {
+
+	static final byte NEW_ORDER = 1;
+	static final byte CANCEL_ORDER = 2;
+	static final byte EXECUTE_MATCH = 3;
+	static final byte EXECUTION_ID_BLOCK = 4;
+
+	static final int LENGTH = 0;
+	static final int TYPE = 4;
+	static final int SEQUENCE = 8;
+	static final int HEADER_SIZE = 16;
+
+	/** NEW_ORDER payload is an encoded Order */
+	static final int NEW_ORDER_SIZE = HEADER_SIZE + OrderCodec.LENGTH;
+
+	/** CANCEL_ORDER payload is order id */
+	static final int CANCEL_ORDER_ID = HEADER_SIZE;
+	static final int CANCEL_ORDER_SIZE = HEADER_SIZE + 8;
+
+	/** EXECUTE_MATCH payload is price, quantity and symbol */
+	static final int MATCH_PRICE = HEADER_SIZE;
+	static final int MATCH_QUANTITY = HEADER_SIZE + 8;
+	static final int MATCH_SYMBOL_LENGTH = HEADER_SIZE + 16;
+	static final int MATCH_SYMBOL = HEADER_SIZE + 17;
+	static final int EXECUTE_MATCH_SIZE = HEADER_SIZE + 40;
+
+	/** EXECUTION_ID_BLOCK payload is end of a claimed block of execution ids */
+	static final int EXECUTION_ID_BLOCK_END = HEADER_SIZE;
+	static final int EXECUTION_ID_BLOCK_SIZE = HEADER_SIZE + 8;
+
+	/** Largest record, segments must hold at least one */
+	static final int MAX_SIZE = EXECUTE_MATCH_SIZE;
+
+	static final String SEGMENT_PREFIX = "journal-";
+	static final String SEGMENT_SUFFIX = ".log";
+
+	private JournalRecord() {
+	}
+
+	static String segmentName(long index) {
+		return String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+	}
+
+	/** @return index of segment file, -1 if name is not a segment */
+	static long segmentIndex(String fileName) {
+		if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX))
+			return -1;
+		try {
+			return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
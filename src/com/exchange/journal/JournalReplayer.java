@@ -0,0 +1,169 @@
+package com.exchange.journal;
+
+import static com.exchange.journal.JournalRecord.CANCEL_ORDER;
+import static com.exchange.journal.JournalRecord.CANCEL_ORDER_ID;
+import static com.exchange.journal.JournalRecord.EXECUTE_MATCH;
+import static com.exchange.journal.JournalRecord.EXECUTION_ID_BLOCK;
+import static com.exchange.journal.JournalRecord.EXECUTION_ID_BLOCK_END;
+import static com.exchange.journal.JournalRecord.HEADER_SIZE;
+import static com.exchange.journal.JournalRecord.LENGTH;
+import static com.exchange.journal.JournalRecord.MATCH_PRICE;
+import static com.exchange.journal.JournalRecord.MATCH_QUANTITY;
+import static com.exchange.journal.JournalRecord.MATCH_SYMBOL;
+import static com.exchange.journal.JournalRecord.MATCH_SYMBOL_LENGTH;
+import static com.exchange.journal.JournalRecord.NEW_ORDER;
+import static com.exchange.journal.JournalRecord.SEQUENCE;
+import static com.exchange.journal.JournalRecord.TYPE;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.exchange.Exchange;
+import com.exchange.codec.OrderCodec;
+import com.exchange.data.ExecutionSink;
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Order;
+import com.exchange.util.SymbolTable;
+
+/**
+ * Rebuilds exchange state by applying journal records in sequence. Segments
+ * are read through read only mappings and records are decoded in place, only
+ * the Order objects the exchange keeps are created.
+ */
+public final class JournalReplayer {
+
+	/** Executions are not reported again while replaying */
+	private static final ExecutionSink IGNORE_EXECUTIONS = new ExecutionSink() {
+		@Override
+		public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+		}
+	};
+
+	private JournalReplayer() {
+	}
+
+	/**
+	 * Applies all records of journal to exchange, exchange should have no journal
+	 * attached while replaying
+	 * 
+	 * @param directory
+	 *            directory of segment files
+	 * @param exchange
+	 *            exchange to be rebuilt
+	 * @return number of records applied
+	 */
+	public static long replay(Path directory, Exchange exchange) throws IOException {
+		return replay(directory, exchange, 0);
+	}
+
+	/**
+	 * Applies records of journal from given sequence onwards, e.g. records written
+	 * after a snapshot was taken
+	 * 
+	 * @param fromSequence
+	 *            sequence of first record to be applied
+	 * @return number of records applied
+	 */
+	public static long replay(Path directory, Exchange exchange, long fromSequence) throws IOException {
+		OrderCodec orderCodec = new OrderCodec();
+		SymbolTable symbols = new SymbolTable(1024);
+		long records = 0;
+		for (Path path : segments(directory)) {
+			MappedByteBuffer segment = map(path);
+			int position = 0;
+			while (position + HEADER_SIZE <= segment.capacity()) {
+				int length = segment.getInt(position + LENGTH);
+				if (length == 0)
+					break;
+				if (segment.getLong(position + SEQUENCE) >= fromSequence) {
+					apply(exchange, segment, position, orderCodec, symbols);
+					records++;
+				}
+				position = position + length;
+			}
+		}
+		return records;
+	}
+
+	private static void apply(Exchange exchange, MappedByteBuffer segment, int position, OrderCodec orderCodec, SymbolTable symbols) {
+		switch (segment.get(position + TYPE)) {
+		case NEW_ORDER: {
+			orderCodec.wrap(segment, position + HEADER_SIZE);
+			String symbol = symbols.get(segment, position + HEADER_SIZE + OrderCodec.SYMBOL_OFFSET, orderCodec.symbolLength());
+			Order order = new Order(orderCodec.orderId(), symbol, orderCodec.side(), orderCodec.quantity(), orderCodec.scaledPrice(),
+					orderCodec.pricePrecision());
+			order.setTimestamp(orderCodec.timestamp());
+			// Journal is in book order, so orders get back their queue position along with their time
+			exchange.restoreOrder(order);
+			break;
+		}
+		case CANCEL_ORDER:
+			exchange.cancelOrder(segment.getInt(position + CANCEL_ORDER_ID));
+			break;
+		case EXECUTE_MATCH: {
+			String symbol = symbols.get(segment, position + MATCH_SYMBOL, segment.get(position + MATCH_SYMBOL_LENGTH));
+			exchange.executeMatch(symbol, segment.getLong(position + MATCH_PRICE), segment.getLong(position + MATCH_QUANTITY), IGNORE_EXECUTIONS);
+			break;
+		}
+		case EXECUTION_ID_BLOCK:
+			exchange.getExecutionIds().advanceTo(segment.getLong(position + EXECUTION_ID_BLOCK_END));
+			break;
+		default:
+			throw new IllegalStateException("Unknown journal record type " + segment.get(position + TYPE) + " at " + position);
+		}
+	}
+
+	private static MappedByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer segment = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			segment.order(ByteOrder.LITTLE_ENDIAN);
+			return segment;
+		}
+	}
+
+	/** @return segment files of directory in order of their index */
+	static List<Path> segments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(directory))
+			return segments;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files)
+				if (JournalRecord.segmentIndex(file.getFileName().toString()) >= 0)
+					segments.add(file);
+		}
+		Collections.sort(segments, new Comparator<Path>() {
+			@Override
+			public int compare(Path o1, Path o2) {
+				return Long.compare(JournalRecord.segmentIndex(o1.getFileName().toString()),
+						JournalRecord.segmentIndex(o2.getFileName().toString()));
+			}
+		});
+		return segments;
+	}
+
+	/** @return sequence of last record in segment, -1 if segment is empty */
+	static long lastSequence(Path segmentPath) throws IOException {
+		MappedByteBuffer segment = map(segmentPath);
+		long sequence = -1;
+		int position = 0;
+		while (position + HEADER_SIZE <= segment.capacity()) {
+			int length = segment.getInt(position + LENGTH);
+			if (length == 0)
+				break;
+			sequence = segment.getLong(position + SEQUENCE);
+			position = position + length;
+		}
+		return sequence;
+	}
+}
@@ -0,0 +1,13 @@
+package com.exchange.journal;
+
+/**
+ * When journal forces written records from memory mapped segments to disk
+ */
+public enum SyncPolicy {
+	/** Left to operating system, survives a process crash but not a machine crash */
+	NONE,
+	/** After every batch of records and on flush */
+	BATCH,
+	/** After every record */
+	ALWAYS
+}
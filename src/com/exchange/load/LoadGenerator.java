@@ -0,0 +1,70 @@
+package com.exchange.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.exchange.Exchange;
+import com.exchange.metrics.LatencyHistogram;
+
+/**
+ * Drives an exchange with requests from an {@link OrderFlow} at a fixed target
+ * rate on the calling thread. Request i is due at start + i / rate, latency is
+ * measured from that intended time rather than from when request was actually
+ * sent, so time spent behind schedule after a stall is counted for every
+ * request that had to wait (coordinated omission correction). Service time,
+ * measured from actual send, is reported alongside.
+ */
+public class LoadGenerator {
+
+	/** Latencies above this are counted as this */
+	private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	/** Waits longer than this park the thread, shorter ones spin */
+	private static final long PARK_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private LoadGenerator() {
+	}
+
+	/**
+	 * Sends requests for warmup and measured duration of profile
+	 * 
+	 * @return throughput and latency of requests due after warmup
+	 */
+	public static LoadReport run(Exchange exchange, LoadProfile profile) {
+		OrderFlow flow = new OrderFlow(profile, exchange.getDecimalPrecision());
+		LatencyHistogram latency = new LatencyHistogram(HIGHEST_LATENCY_NANOS);
+		LatencyHistogram serviceTime = new LatencyHistogram(HIGHEST_LATENCY_NANOS);
+		double intervalNanos = (double) TimeUnit.SECONDS.toNanos(1) / profile.getRatePerSecond();
+
+		long start = System.nanoTime();
+		long measureStart = start + TimeUnit.MILLISECONDS.toNanos(profile.getWarmupMillis());
+		long end = measureStart + TimeUnit.MILLISECONDS.toNanos(profile.getDurationMillis());
+		long measuredRequests = 0;
+		for (long i = 0;; i++) {
+			long intended = start + (long) (i * intervalNanos);
+			if (intended >= end)
+				break;
+			long sent = waitUntil(intended);
+			flow.sendNext(exchange);
+			long done = System.nanoTime();
+			if (intended >= measureStart) {
+				latency.record(done - intended);
+				serviceTime.record(done - sent);
+				measuredRequests++;
+			}
+		}
+		// Falling behind schedule shows up as run taking longer than its duration
+		long elapsedNanos = System.nanoTime() - measureStart;
+		return new LoadReport(profile, flow, measuredRequests, elapsedNanos, latency, serviceTime);
+	}
+
+	/** @return time at which wait ended, right away if time is already past */
+	private static long waitUntil(long time) {
+		long now;
+		while ((now = System.nanoTime()) < time) {
+			if (time - now > PARK_THRESHOLD_NANOS)
+				LockSupport.parkNanos(time - now - PARK_THRESHOLD_NANOS);
+		}
+		return now;
+	}
+}
@@ -0,0 +1,123 @@
+package com.exchange.load;
+
+/**
+ * Parameters of generated load. Setters return the profile so a profile can be
+ * built in one statement, defaults describe a single symbol at 10000 requests
+ * per second for 10 seconds.
+ */
+public class LoadProfile {
+
+	private long seed = 42;
+	private int ratePerSecond = 10000;
+	private long durationMillis = 10000;
+	private long warmupMillis = 2000;
+	private int symbolCount = 1;
+	private double meanPrice = 50.0;
+	private double priceStdDeviation = 6.0;
+	private double meanQuantity = 100000.0;
+	private double quantityStdDeviation = 20000.0;
+	private double cancelRatio = 0.0;
+
+	/** Seed of random source, same seed gives same sequence of requests */
+	public LoadProfile setSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/** Requests sent per second, each request is a new order or a cancel */
+	public LoadProfile setRatePerSecond(int ratePerSecond) {
+		if (ratePerSecond <= 0)
+			throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+		this.ratePerSecond = ratePerSecond;
+		return this;
+	}
+
+	/** Measured run time, after warmup */
+	public LoadProfile setDurationMillis(long durationMillis) {
+		this.durationMillis = durationMillis;
+		return this;
+	}
+
+	/** Run time at same rate before measuring starts */
+	public LoadProfile setWarmupMillis(long warmupMillis) {
+		this.warmupMillis = warmupMillis;
+		return this;
+	}
+
+	public LoadProfile setSymbolCount(int symbolCount) {
+		if (symbolCount <= 0)
+			throw new IllegalArgumentException("Symbol count must be positive: " + symbolCount);
+		this.symbolCount = symbolCount;
+		return this;
+	}
+
+	/** Normal distribution from which order prices are drawn */
+	public LoadProfile setPrice(double mean, double stdDeviation) {
+		this.meanPrice = mean;
+		this.priceStdDeviation = stdDeviation;
+		return this;
+	}
+
+	/** Normal distribution from which order quantities are drawn */
+	public LoadProfile setQuantity(double mean, double stdDeviation) {
+		this.meanQuantity = mean;
+		this.quantityStdDeviation = stdDeviation;
+		return this;
+	}
+
+	/** Share of requests which cancel a random open order instead of sending a new one */
+	public LoadProfile setCancelRatio(double cancelRatio) {
+		if (cancelRatio < 0 || cancelRatio > 1)
+			throw new IllegalArgumentException("Cancel ratio must be between 0 and 1: " + cancelRatio);
+		this.cancelRatio = cancelRatio;
+		return this;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getRatePerSecond() {
+		return ratePerSecond;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public long getWarmupMillis() {
+		return warmupMillis;
+	}
+
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	public double getMeanPrice() {
+		return meanPrice;
+	}
+
+	public double getPriceStdDeviation() {
+		return priceStdDeviation;
+	}
+
+	public double getMeanQuantity() {
+		return meanQuantity;
+	}
+
+	public double getQuantityStdDeviation() {
+		return quantityStdDeviation;
+	}
+
+	public double getCancelRatio() {
+		return cancelRatio;
+	}
+
+	@Override
+	public String toString() {
+		return "LoadProfile [seed=" + seed + ", ratePerSecond=" + ratePerSecond + ", durationMillis=" + durationMillis
+				+ ", warmupMillis=" + warmupMillis + ", symbolCount=" + symbolCount + ", price=" + meanPrice + "+-"
+				+ priceStdDeviation + ", quantity=" + meanQuantity + "+-" + quantityStdDeviation + ", cancelRatio="
+				+ cancelRatio + "]";
+	}
+}
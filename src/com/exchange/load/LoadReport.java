@@ -0,0 +1,86 @@
+package com.exchange.load;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import com.exchange.metrics.LatencyHistogram;
+
+/**
+ * Sustained throughput and latency percentiles of a load run
+ */
+public class LoadReport {
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+	private final LoadProfile profile;
+	private final long newOrders;
+	private final long cancels;
+	private final long rejected;
+	private final int openOrders;
+	private final long measuredRequests;
+	private final long elapsedNanos;
+	private final LatencyHistogram latency;
+	private final LatencyHistogram serviceTime;
+
+	LoadReport(LoadProfile profile, OrderFlow flow, long measuredRequests, long elapsedNanos, LatencyHistogram latency,
+			LatencyHistogram serviceTime) {
+		this.profile = profile;
+		this.newOrders = flow.getNewOrders();
+		this.cancels = flow.getCancels();
+		this.rejected = flow.getRejected();
+		this.openOrders = flow.getOpenOrderCount();
+		this.measuredRequests = measuredRequests;
+		this.elapsedNanos = elapsedNanos;
+		this.latency = latency;
+		this.serviceTime = serviceTime;
+	}
+
+	/** @return requests completed per second after warmup */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : measuredRequests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	public long getMeasuredRequests() {
+		return measuredRequests;
+	}
+
+	/** @return new orders sent including warmup */
+	public long getNewOrders() {
+		return newOrders;
+	}
+
+	/** @return cancels sent including warmup */
+	public long getCancels() {
+		return cancels;
+	}
+
+	/** @return requests rejected by exchange including warmup */
+	public long getRejected() {
+		return rejected;
+	}
+
+	public int getOpenOrders() {
+		return openOrders;
+	}
+
+	/** @return latency from intended send time to completion, in nanoseconds */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/** @return latency from actual send time to completion, in nanoseconds */
+	public LatencyHistogram getServiceTime() {
+		return serviceTime;
+	}
+
+	public void print(PrintStream out) {
+		out.println(profile);
+		out.printf("Requests: %d new orders, %d cancels, %d rejected, %d orders open%n", newOrders, cancels, rejected, openOrders);
+		out.printf("Throughput: %.0f requests/s (target %d)%n", getThroughput(), profile.getRatePerSecond());
+		out.println("Percentile\t| Latency (us)\t| Service time (us)");
+		for (double percentile : PERCENTILES)
+			out.printf("%s\t\t| %.1f\t\t| %.1f%n", percentile, latency.getValueAtPercentile(percentile) / 1000.0,
+					serviceTime.getValueAtPercentile(percentile) / 1000.0);
+		out.printf("max\t\t| %.1f\t\t| %.1f%n", latency.getMax() / 1000.0, serviceTime.getMax() / 1000.0);
+	}
+}
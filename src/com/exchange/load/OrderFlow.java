@@ -0,0 +1,104 @@
+package com.exchange.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.exchange.Exchange;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.util.ExchangeUtils;
+
+/**
+ * Deterministic stream of new orders and cancels drawn from a seeded random
+ * source as per a load profile. Same profile sent to an empty exchange always
+ * gives same books. Ids of open orders are kept in a primitive array so a
+ * random one can be picked for cancel in constant time.
+ */
+public class OrderFlow {
+
+	private final LoadProfile profile;
+	private final int decimalPrecision;
+	private final Random random;
+	private final String[] symbols;
+
+	private int[] openOrderIds = new int[1024];
+	private int openOrderCount;
+	private int nextOrderId = 1;
+
+	private long newOrders;
+	private long cancels;
+	private long rejected;
+
+	/**
+	 * @param decimalPrecision
+	 *            precision of exchange, prices are rounded to it
+	 */
+	public OrderFlow(LoadProfile profile, int decimalPrecision) {
+		this.profile = profile;
+		this.decimalPrecision = decimalPrecision;
+		this.random = new Random(profile.getSeed());
+		this.symbols = new String[profile.getSymbolCount()];
+		for (int i = 0; i < symbols.length; i++)
+			symbols[i] = String.format("SYM%04d", i);
+	}
+
+	/**
+	 * Sends next request, a new order or cancel of an open order, to exchange
+	 * 
+	 * @return true if exchange accepted the request
+	 */
+	public boolean sendNext(Exchange exchange) {
+		if (openOrderCount > 0 && random.nextDouble() < profile.getCancelRatio()) {
+			// Last open order takes place of the cancelled one
+			int index = random.nextInt(openOrderCount);
+			int orderId = openOrderIds[index];
+			openOrderIds[index] = openOrderIds[--openOrderCount];
+			cancels++;
+			return count(exchange.cancelOrder(orderId));
+		}
+		Order order = nextOrder();
+		newOrders++;
+		boolean accepted = exchange.sendOrder(order);
+		if (accepted) {
+			if (openOrderCount == openOrderIds.length)
+				openOrderIds = Arrays.copyOf(openOrderIds, openOrderCount * 2);
+			openOrderIds[openOrderCount++] = order.getOrderId();
+		}
+		return count(accepted);
+	}
+
+	private boolean count(boolean accepted) {
+		if (!accepted)
+			rejected++;
+		return accepted;
+	}
+
+	private Order nextOrder() {
+		String symbol = symbols[random.nextInt(symbols.length)];
+		Side side = random.nextBoolean() ? Side.Buy : Side.Sell;
+		long quantity = Math.max(1, (long) (random.nextGaussian() * profile.getQuantityStdDeviation() + profile.getMeanQuantity()));
+		double price = random.nextGaussian() * profile.getPriceStdDeviation() + profile.getMeanPrice();
+		// Price is drawn at exchange precision, prices at or below 0 are rejected by exchange
+		return new Order(nextOrderId++, symbol, side, quantity, ExchangeUtils.convertPriceToLong(price, decimalPrecision), decimalPrecision);
+	}
+
+	public String[] getSymbols() {
+		return symbols.clone();
+	}
+
+	public int getOpenOrderCount() {
+		return openOrderCount;
+	}
+
+	public long getNewOrders() {
+		return newOrders;
+	}
+
+	public long getCancels() {
+		return cancels;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+}
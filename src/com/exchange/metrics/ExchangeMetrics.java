@@ -0,0 +1,50 @@
+package com.exchange.metrics;
+
+/**
+ * Receiver of latencies and counts of exchange operations. Methods are called
+ * on the thread doing the operation, possibly from many threads at once, and
+ * must not block. Exchange reads the clock only when metrics are enabled, so
+ * {@link #NONE} costs a single inlined check per operation.
+ */
+public interface ExchangeMetrics {
+
+	/** Metrics which record nothing, used by exchange by default */
+	ExchangeMetrics NONE = new ExchangeMetrics() {
+	};
+
+	/**
+	 * @return false if nothing is recorded, operations are then not timed
+	 */
+	default boolean isEnabled() {
+		return false;
+	}
+
+	/**
+	 * @param operation
+	 *            operation which completed
+	 * @param nanos
+	 *            time taken by operation in nanoseconds
+	 */
+	default void recordLatency(Operation operation, long nanos) {
+	}
+
+	default void onOrderAccepted() {
+	}
+
+	default void onOrderRejected(RejectReason reason) {
+	}
+
+	/**
+	 * @param success
+	 *            true if order was cancelled, false if cancel was rejected
+	 */
+	default void onCancel(boolean success) {
+	}
+
+	/**
+	 * @param count
+	 *            number of executions reported by an executed match
+	 */
+	default void onExecutions(int count) {
+	}
+}
@@ -0,0 +1,109 @@
+package com.exchange.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.exchange.Exchange;
+import com.exchange.orderbook.OrderBook;
+
+/**
+ * Exposes recorded metrics of an exchange through JMX. Book depth is read from
+ * order books when attribute is read, so it costs nothing while trading.
+ */
+public class ExchangeMetricsBean implements ExchangeMetricsMXBean {
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final Exchange exchange;
+	private final RecordingExchangeMetrics metrics;
+
+	public ExchangeMetricsBean(Exchange exchange, RecordingExchangeMetrics metrics) {
+		this.exchange = exchange;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Attaches recording metrics to exchange and registers them with platform
+	 * MBean server as com.exchange:type=ExchangeMetrics,name=&lt;name&gt;
+	 * 
+	 * @return name under which bean is registered
+	 * @throws JMException
+	 *             if name is invalid or already registered
+	 */
+	public static ObjectName register(Exchange exchange, RecordingExchangeMetrics metrics, String name) throws JMException {
+		ObjectName objectName = new ObjectName("com.exchange:type=ExchangeMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new ExchangeMetricsBean(exchange, metrics), objectName);
+		exchange.setMetrics(metrics);
+		return objectName;
+	}
+
+	@Override
+	public long getOrdersAccepted() {
+		return metrics.getOrdersAccepted();
+	}
+
+	@Override
+	public Map<String, Long> getOrdersRejected() {
+		Map<String, Long> rejected = new TreeMap<>();
+		for (RejectReason reason : RejectReason.values())
+			rejected.put(reason.name(), metrics.getOrdersRejected(reason));
+		return rejected;
+	}
+
+	@Override
+	public long getCancelsAccepted() {
+		return metrics.getCancelsAccepted();
+	}
+
+	@Override
+	public long getCancelsRejected() {
+		return metrics.getCancelsRejected();
+	}
+
+	@Override
+	public long getExecutions() {
+		return metrics.getExecutions();
+	}
+
+	@Override
+	public Map<String, Long> getLatencyNanos() {
+		Map<String, Long> latency = new TreeMap<>();
+		for (Operation operation : Operation.values()) {
+			LatencyHistogram histogram = metrics.getLatencyHistogram(operation);
+			latency.put(operation + ".count", histogram.getCount());
+			latency.put(operation + ".mean", (long) histogram.getMean());
+			for (double percentile : PERCENTILES)
+				latency.put(operation + ".p" + (percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile)),
+						histogram.getValueAtPercentile(percentile));
+			latency.put(operation + ".max", histogram.getMax());
+		}
+		return latency;
+	}
+
+	@Override
+	public Map<String, Long> getOpenOrders() {
+		Map<String, Long> openOrders = new TreeMap<>();
+		for (String symbol : exchange.getSymbols())
+			openOrders.put(symbol, (long) exchange.getBookForSymbol(symbol).getOrderCount());
+		return openOrders;
+	}
+
+	@Override
+	public Map<String, Long> getPriceLevels() {
+		Map<String, Long> levels = new TreeMap<>();
+		for (String symbol : exchange.getSymbols()) {
+			OrderBook book = exchange.getBookForSymbol(symbol);
+			levels.put(symbol, (long) (book.getBids().size() + book.getAsks().size()));
+		}
+		return levels;
+	}
+
+	@Override
+	public void reset() {
+		metrics.reset();
+	}
+}
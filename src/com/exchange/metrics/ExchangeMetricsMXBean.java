@@ -0,0 +1,35 @@
+package com.exchange.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of exchange metrics and depth of its order books
+ */
+public interface ExchangeMetricsMXBean {
+
+	long getOrdersAccepted();
+
+	/** @return rejected order count keyed on reject reason */
+	Map<String, Long> getOrdersRejected();
+
+	long getCancelsAccepted();
+
+	long getCancelsRejected();
+
+	long getExecutions();
+
+	/**
+	 * @return latency in nanoseconds keyed on operation and statistic, e.g.
+	 *         SEND_ORDER.p99, statistics are count, mean, p50, p90, p99, p99.9 and max
+	 */
+	Map<String, Long> getLatencyNanos();
+
+	/** @return number of orders resting on book keyed on symbol */
+	Map<String, Long> getOpenOrders();
+
+	/** @return number of bid and ask price levels on book keyed on symbol */
+	Map<String, Long> getPriceLevels();
+
+	/** Clears recorded latencies and counters */
+	void reset();
+}
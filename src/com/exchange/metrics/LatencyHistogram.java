@@ -0,0 +1,112 @@
+package com.exchange.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed memory histogram of latencies in the style of HdrHistogram. Values are
+ * counted in buckets whose width doubles with each power of two, each bucket
+ * split in {@value #SUB_BUCKET_HALF_COUNT} equal sub-buckets, so every value is
+ * kept within 1% of its real value. Recording is allocation free and can be
+ * done from many threads, values above highest trackable value are counted
+ * as highest trackable value.
+ */
+public class LatencyHistogram {
+
+	/** Values below this are counted exactly, it is also the number of sub-buckets of first bucket */
+	private static final int SUB_BUCKET_COUNT = 256;
+
+	private static final int SUB_BUCKET_BITS = 8;
+
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	private final long highestTrackableValue;
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalValue = new AtomicLong();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * @param highestTrackableValue
+	 *            highest value kept apart from lower ones, at least
+	 *            {@value #SUB_BUCKET_COUNT}
+	 */
+	public LatencyHistogram(long highestTrackableValue) {
+		if (highestTrackableValue < SUB_BUCKET_COUNT)
+			throw new IllegalArgumentException("Highest trackable value must be at least " + SUB_BUCKET_COUNT);
+		this.highestTrackableValue = highestTrackableValue;
+		this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+	}
+
+	/**
+	 * Records a value, negative values are counted as 0
+	 */
+	public void record(long value) {
+		long clamped = Math.min(Math.max(value, 0), highestTrackableValue);
+		counts.incrementAndGet(indexOf(clamped));
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(clamped);
+		long max;
+		while (clamped > (max = maxValue.get()) && !maxValue.compareAndSet(max, clamped))
+			;
+	}
+
+	private static int indexOf(long value) {
+		// Bucket 0 holds values below SUB_BUCKET_COUNT, bucket n values with n more significant bits
+		int bucket = 64 - Long.numberOfLeadingZeros(value | (SUB_BUCKET_COUNT - 1)) - SUB_BUCKET_BITS;
+		// Sub index is in upper half of sub-buckets for all buckets except first
+		int subIndex = (int) (value >>> bucket);
+		return bucket * SUB_BUCKET_HALF_COUNT + subIndex;
+	}
+
+	/** @return highest value which is counted in same slot as the slot at index */
+	private static long highestValueAt(int index) {
+		int bucket = index < SUB_BUCKET_COUNT ? 0 : index / SUB_BUCKET_HALF_COUNT - 1;
+		long subIndex = index - bucket * SUB_BUCKET_HALF_COUNT;
+		return ((subIndex + 1) << bucket) - 1;
+	}
+
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : (double) totalValue.get() / count;
+	}
+
+	/**
+	 * @param percentile
+	 *            percentile between 0 and 100
+	 * @return value below or equal to which given percentile of recorded values
+	 *         fall, 0 if nothing is recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+		if (count == 0)
+			return 0;
+		long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen = seen + counts.get(i);
+			if (seen >= countAtPercentile)
+				return Math.min(highestValueAt(i), maxValue.get());
+		}
+		return maxValue.get();
+	}
+
+	/**
+	 * Clears recorded values, values recorded meanwhile may be partly kept
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++)
+			counts.set(i, 0);
+		totalCount.set(0);
+		totalValue.set(0);
+		maxValue.set(0);
+	}
+}
@@ -0,0 +1,17 @@
+package com.exchange.metrics;
+
+/**
+ * Exchange operations whose latency is recorded
+ */
+public enum Operation {
+	SEND_ORDER,
+	CANCEL_ORDER,
+	/** Whole batch of orders sent together */
+	SEND_ORDERS,
+	/** Whole batch of cancels sent together */
+	CANCEL_ORDERS,
+	/** Matching algorithm run on a book, alone or as part of an auction */
+	RUN_MATCHING_ALGO,
+	/** Match executed on a book, alone or as part of an auction */
+	EXECUTE_MATCH
+}
@@ -0,0 +1,103 @@
+package com.exchange.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics keeping a latency histogram per operation and counters of orders,
+ * cancels and executions in fixed memory. Recording creates no objects.
+ */
+public class RecordingExchangeMetrics implements ExchangeMetrics {
+
+	/** Latencies above this are counted as this */
+	public static final long DEFAULT_HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final LatencyHistogram[] latencies;
+	private final AtomicLong ordersAccepted = new AtomicLong();
+	private final AtomicLongArray ordersRejected = new AtomicLongArray(RejectReason.values().length);
+	private final AtomicLong cancelsAccepted = new AtomicLong();
+	private final AtomicLong cancelsRejected = new AtomicLong();
+	private final AtomicLong executions = new AtomicLong();
+
+	public RecordingExchangeMetrics() {
+		this(DEFAULT_HIGHEST_LATENCY_NANOS);
+	}
+
+	public RecordingExchangeMetrics(long highestLatencyNanos) {
+		this.latencies = new LatencyHistogram[Operation.values().length];
+		for (int i = 0; i < latencies.length; i++)
+			latencies[i] = new LatencyHistogram(highestLatencyNanos);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void recordLatency(Operation operation, long nanos) {
+		latencies[operation.ordinal()].record(nanos);
+	}
+
+	@Override
+	public void onOrderAccepted() {
+		ordersAccepted.incrementAndGet();
+	}
+
+	@Override
+	public void onOrderRejected(RejectReason reason) {
+		ordersRejected.incrementAndGet(reason.ordinal());
+	}
+
+	@Override
+	public void onCancel(boolean success) {
+		if (success)
+			cancelsAccepted.incrementAndGet();
+		else
+			cancelsRejected.incrementAndGet();
+	}
+
+	@Override
+	public void onExecutions(int count) {
+		executions.addAndGet(count);
+	}
+
+	public LatencyHistogram getLatencyHistogram(Operation operation) {
+		return latencies[operation.ordinal()];
+	}
+
+	public long getOrdersAccepted() {
+		return ordersAccepted.get();
+	}
+
+	public long getOrdersRejected(RejectReason reason) {
+		return ordersRejected.get(reason.ordinal());
+	}
+
+	public long getCancelsAccepted() {
+		return cancelsAccepted.get();
+	}
+
+	public long getCancelsRejected() {
+		return cancelsRejected.get();
+	}
+
+	public long getExecutions() {
+		return executions.get();
+	}
+
+	/**
+	 * Clears all histograms and counters
+	 */
+	public void reset() {
+		for (LatencyHistogram histogram : latencies)
+			histogram.reset();
+		ordersAccepted.set(0);
+		for (int i = 0; i < ordersRejected.length(); i++)
+			ordersRejected.set(i, 0);
+		cancelsAccepted.set(0);
+		cancelsRejected.set(0);
+		executions.set(0);
+	}
+}
@@ -0,0 +1,14 @@
+package com.exchange.metrics;
+
+/**
+ * Reasons for which exchange rejects a new order
+ */
+public enum RejectReason {
+	INVALID_PRICE,
+	INVALID_QUANTITY,
+	/** Symbol is longer than journal can record */
+	SYMBOL_TOO_LONG,
+	DUPLICATE_ORDER_ID,
+	/** Order book did not accept the order */
+	BOOK_REJECTED
+}
@@ -0,0 +1,340 @@
+package com.exchange.orderbook;
+
+import com.exchange.data.Side;
+
+/**
+ * PriceLadder backed by a dense array where each tick inside a price window has
+ * its own slot, indexed by (price - basePrice) / tickSize. Occupied slots are
+ * tracked in a bitmap so best and next price are found by scanning bits rather
+ * than walking empty slots. When a price outside the window is added, window is
+ * re-centred around all occupied prices and grown if needed, up to a maximum
+ * band beyond which prices are not accepted.
+ *
+ * @param <T>
+ *            type of price level stored against each price
+ */
+public class DensePriceLadder<T> implements PriceLadder<T> {
+
+	private static final int BITS_PER_WORD = 64;
+
+	/** Largest window supported by the ladder */
+	private static final int MAX_SLOTS = 1 << 30;
+
+	/** Maximum band used when none is given, 1M ticks */
+	public static final int DEFAULT_MAX_BAND_LEVELS = 1 << 20;
+
+	private final Side side;
+
+	/** Minimum price increment, prices must be on multiple of it */
+	private final long tickSize;
+
+	/** Largest number of slots window may grow to */
+	private final int maxSlots;
+
+	/** Price of slot 0 */
+	private long basePrice;
+
+	/** Levels indexed by slot */
+	private Object[] levels;
+
+	/** Bit set for each occupied slot */
+	private long[] occupied;
+
+	/** Lowest and highest occupied slot, -1 if empty */
+	private int lowestSlot = -1;
+	private int highestSlot = -1;
+
+	/** Number of price levels */
+	private int size;
+
+	/**
+	 * @param side
+	 *            side of the ladder
+	 * @param referencePrice
+	 *            price around which window is centred initially
+	 * @param tickSize
+	 *            minimum price increment
+	 * @param bandLevels
+	 *            number of ticks covered by the window, rounded up to multiple of 64
+	 */
+	public DensePriceLadder(Side side, long referencePrice, long tickSize, int bandLevels) {
+		this(side, referencePrice, tickSize, bandLevels, Math.max(bandLevels, DEFAULT_MAX_BAND_LEVELS));
+	}
+
+	/**
+	 * @param side
+	 *            side of the ladder
+	 * @param referencePrice
+	 *            price around which window is centred initially
+	 * @param tickSize
+	 *            minimum price increment
+	 * @param bandLevels
+	 *            number of ticks covered by the window, rounded up to multiple of 64
+	 * @param maxBandLevels
+	 *            most ticks window may grow to, prices which would need a wider
+	 *            window are not accepted
+	 */
+	public DensePriceLadder(Side side, long referencePrice, long tickSize, int bandLevels, int maxBandLevels) {
+		if (tickSize <= 0)
+			throw new IllegalArgumentException("Tick size must be > 0");
+		if (bandLevels <= 0)
+			throw new IllegalArgumentException("Band levels must be > 0");
+		if (maxBandLevels < bandLevels || maxBandLevels > MAX_SLOTS)
+			throw new IllegalArgumentException("Max band levels must be between band levels and " + MAX_SLOTS + ": " + maxBandLevels);
+		this.side = side;
+		this.tickSize = tickSize;
+		this.maxSlots = maxBandLevels;
+		int slots = roundToWords(bandLevels) * BITS_PER_WORD;
+		this.levels = new Object[slots];
+		this.occupied = new long[slots / BITS_PER_WORD];
+		this.basePrice = limitBasePrice(alignToTick(referencePrice) - (slots / 2) * tickSize, slots);
+		this.size = 0;
+	}
+
+	/** @return base price moved down if needed so that price of last slot fits in a long */
+	private long limitBasePrice(long basePrice, int slots) {
+		return Math.min(basePrice, alignToTick(Long.MAX_VALUE - (slots - 1) * tickSize));
+	}
+
+	private static int roundToWords(long slots) {
+		return (int) ((slots + BITS_PER_WORD - 1) / BITS_PER_WORD);
+	}
+
+	private long alignToTick(long price) {
+		return price - Math.floorMod(price, tickSize);
+	}
+
+	private long slotPrice(int slot) {
+		return basePrice + slot * tickSize;
+	}
+
+	private long maxPrice() {
+		return slotPrice(levels.length - 1);
+	}
+
+	/** @return slot for price, -1 if price is outside window or not on tick */
+	private int slotOf(long price) {
+		if (price < basePrice || price > maxPrice())
+			return -1;
+		long offset = price - basePrice;
+		if (offset % tickSize != 0)
+			return -1;
+		return (int) (offset / tickSize);
+	}
+
+	private boolean isOccupied(int slot) {
+		return (occupied[slot / BITS_PER_WORD] & (1L << slot)) != 0;
+	}
+
+	@Override
+	public Side getSide() {
+		return side;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(long price) {
+		int slot = slotOf(price);
+		return slot >= 0 && isOccupied(slot);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get(long price) {
+		int slot = slotOf(price);
+		return slot < 0 ? null : (T) levels[slot];
+	}
+
+	/**
+	 * @return true if price is on tick and window covering it and all occupied
+	 *         prices stays within maximum band
+	 */
+	@Override
+	public boolean accepts(long price) {
+		if (Math.floorMod(price, tickSize) != 0)
+			return false;
+		if (size == 0 || slotOf(price) >= 0)
+			return true;
+		return ticksSpanned(Math.min(price, slotPrice(lowestSlot)), Math.max(price, slotPrice(highestSlot))) <= maxSlots;
+	}
+
+	/** @return ticks from low to high inclusive, Long.MAX_VALUE if difference overflows */
+	private long ticksSpanned(long low, long high) {
+		long span = high - low;
+		if (span < 0)
+			return Long.MAX_VALUE;
+		return span / tickSize + 1;
+	}
+
+	@Override
+	public void put(long price, T level) {
+		if (Math.floorMod(price, tickSize) != 0)
+			throw new IllegalArgumentException("Price must be multiple of tick size " + tickSize);
+		int slot = slotOf(price);
+		if (slot < 0) {
+			// Span is checked before any window is allocated
+			if (!accepts(price))
+				throw new IllegalArgumentException("Price " + price + " is outside band of " + maxSlots + " ticks");
+			recentre(price);
+			slot = slotOf(price);
+		}
+		if (!isOccupied(slot)) {
+			occupied[slot / BITS_PER_WORD] |= 1L << slot;
+			size++;
+			if (lowestSlot == -1 || slot < lowestSlot)
+				lowestSlot = slot;
+			if (slot > highestSlot)
+				highestSlot = slot;
+		}
+		levels[slot] = level;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T remove(long price) {
+		int slot = slotOf(price);
+		if (slot < 0 || !isOccupied(slot))
+			return null;
+		T level = (T) levels[slot];
+		levels[slot] = null;
+		occupied[slot / BITS_PER_WORD] &= ~(1L << slot);
+		size--;
+		if (size == 0) {
+			lowestSlot = -1;
+			highestSlot = -1;
+		} else if (slot == lowestSlot) {
+			lowestSlot = lowestSlotFrom(slot + 1);
+		} else if (slot == highestSlot) {
+			highestSlot = highestSlotFrom(slot - 1);
+		}
+		return level;
+	}
+
+	/**
+	 * Moves window so that it covers given price and all occupied prices, window
+	 * is doubled till all of them fit
+	 */
+	private void recentre(long price) {
+		long low = size == 0 ? price : Math.min(price, slotPrice(lowestSlot));
+		long high = size == 0 ? price : Math.max(price, slotPrice(highestSlot));
+		long needed = ticksSpanned(low, high);
+		int slots = levels.length;
+		while (slots < needed)
+			slots = slots * 2;
+		// Doubling stops at maximum band rounded up to whole words
+		slots = Math.min(slots, roundToWords(maxSlots) * BITS_PER_WORD);
+
+		long newBasePrice = limitBasePrice(low - ((slots - needed) / 2) * tickSize, slots);
+		Object[] newLevels = new Object[slots];
+		long[] newOccupied = new long[slots / BITS_PER_WORD];
+		int newLowestSlot = -1;
+		int newHighestSlot = -1;
+		for (int slot = lowestSlot; slot != -1 && slot <= highestSlot; slot = lowestSlotFrom(slot + 1)) {
+			int newSlot = (int) ((slotPrice(slot) - newBasePrice) / tickSize);
+			newLevels[newSlot] = levels[slot];
+			newOccupied[newSlot / BITS_PER_WORD] |= 1L << newSlot;
+			if (newLowestSlot == -1)
+				newLowestSlot = newSlot;
+			newHighestSlot = newSlot;
+		}
+		basePrice = newBasePrice;
+		levels = newLevels;
+		occupied = newOccupied;
+		lowestSlot = newLowestSlot;
+		highestSlot = newHighestSlot;
+	}
+
+	/** @return lowest occupied slot at or above given slot, -1 if none */
+	private int lowestSlotFrom(int slot) {
+		if (slot < 0)
+			slot = 0;
+		if (slot >= levels.length)
+			return -1;
+		int wordIndex = slot / BITS_PER_WORD;
+		long word = occupied[wordIndex] & (-1L << slot);
+		while (true) {
+			if (word != 0)
+				return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+			if (++wordIndex == occupied.length)
+				return -1;
+			word = occupied[wordIndex];
+		}
+	}
+
+	/** @return highest occupied slot at or below given slot, -1 if none */
+	private int highestSlotFrom(int slot) {
+		if (slot >= levels.length)
+			slot = levels.length - 1;
+		if (slot < 0)
+			return -1;
+		int wordIndex = slot / BITS_PER_WORD;
+		long word = occupied[wordIndex] & (-1L >>> (BITS_PER_WORD - 1 - (slot % BITS_PER_WORD)));
+		while (true) {
+			if (word != 0)
+				return wordIndex * BITS_PER_WORD + BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+			if (--wordIndex < 0)
+				return -1;
+			word = occupied[wordIndex];
+		}
+	}
+
+	/** @return highest occupied price strictly below given price */
+	private long lowerPrice(long price) {
+		if (size == 0 || price <= slotPrice(lowestSlot))
+			return NULL_PRICE;
+		if (price > slotPrice(highestSlot))
+			return slotPrice(highestSlot);
+		// largest slot whose price is below given price
+		int slot = (int) ((price - basePrice - 1) / tickSize);
+		return slotPrice(highestSlotFrom(slot));
+	}
+
+	/** @return lowest occupied price strictly above given price */
+	private long higherPrice(long price) {
+		if (size == 0 || price >= slotPrice(highestSlot))
+			return NULL_PRICE;
+		if (price < slotPrice(lowestSlot))
+			return slotPrice(lowestSlot);
+		// smallest slot whose price is above given price
+		int slot = (int) ((price - basePrice) / tickSize) + 1;
+		return slotPrice(lowestSlotFrom(slot));
+	}
+
+	@Override
+	public long best() {
+		if (size == 0)
+			return NULL_PRICE;
+		return slotPrice(side == Side.Buy ? highestSlot : lowestSlot);
+	}
+
+	@Override
+	public long worst() {
+		if (size == 0)
+			return NULL_PRICE;
+		return slotPrice(side == Side.Buy ? lowestSlot : highestSlot);
+	}
+
+	@Override
+	public long next(long price) {
+		return side == Side.Buy ? lowerPrice(price) : higherPrice(price);
+	}
+
+	@Override
+	public long previous(long price) {
+		return side == Side.Buy ? higherPrice(price) : lowerPrice(price);
+	}
+
+	@Override
+	public int compare(long price1, long price2) {
+		return side == Side.Buy ? Long.compare(price2, price1) : Long.compare(price1, price2);
+	}
+}
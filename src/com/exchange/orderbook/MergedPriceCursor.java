@@ -0,0 +1,75 @@
+package com.exchange.orderbook;
+
+/**
+ * Walks bid and ask prices of an order book merged in descending order without
+ * creating any objects. Each price is returned once even if both sides have a
+ * level at it, hasBid and hasAsk tell which sides have a level at current price.
+ * 
+ * Cursor reads live prices, so a walk done while other threads change the book
+ * sees a mix of its states unless book write lock is held.
+ */
+public final class MergedPriceCursor {
+
+	private final PriceIndex bids;
+	private final PriceIndex asks;
+
+	/** Next price to be returned from each side */
+	private long bidPrice;
+	private long askPrice;
+
+	/** Whether each side has a level at current price */
+	private boolean hasBid;
+	private boolean hasAsk;
+
+	public MergedPriceCursor(PriceIndex bids, PriceIndex asks) {
+		this.bids = bids;
+		this.asks = asks;
+		reset();
+	}
+
+	/**
+	 * Moves cursor back to the highest price
+	 * 
+	 * @return this cursor
+	 */
+	public MergedPriceCursor reset() {
+		// Bids are walked from best to worst and asks from worst to best, both descending
+		bidPrice = bids.best();
+		askPrice = asks.worst();
+		hasBid = false;
+		hasAsk = false;
+		return this;
+	}
+
+	public boolean hasNext() {
+		return bidPrice != PriceIndex.NULL_PRICE || askPrice != PriceIndex.NULL_PRICE;
+	}
+
+	/**
+	 * @return next lower price present on either side
+	 */
+	public long next() {
+		long price = Math.max(bidPrice, askPrice);
+		hasBid = bidPrice == price;
+		if (hasBid)
+			bidPrice = bids.next(bidPrice);
+		hasAsk = askPrice == price;
+		if (hasAsk)
+			askPrice = asks.previous(askPrice);
+		return price;
+	}
+
+	/**
+	 * @return true if there is bid level at current price
+	 */
+	public boolean hasBid() {
+		return hasBid;
+	}
+
+	/**
+	 * @return true if there is ask level at current price
+	 */
+	public boolean hasAsk() {
+		return hasAsk;
+	}
+}
@@ -0,0 +1,115 @@
+package com.exchange.orderbook;
+
+import java.util.concurrent.locks.StampedLock;
+
+import com.exchange.data.Side;
+
+/**
+ * Read only view of a price ladder of an order book which can be used while
+ * other threads modify the book. Each call is first run as an optimistic read
+ * of book lock and is repeated under read lock only if a writer was active, so
+ * readers do not block writers. Every call sees a consistent ladder, but
+ * successive calls may see different states of the book unless caller holds
+ * book write lock.
+ */
+final class OptimisticPriceIndex implements PriceIndex {
+
+	private static final int SIZE = 0;
+	private static final int CONTAINS = 1;
+	private static final int BEST = 2;
+	private static final int WORST = 3;
+	private static final int NEXT = 4;
+	private static final int PREVIOUS = 5;
+
+	private final OrderBook book;
+	private final PriceIndex ladder;
+
+	OptimisticPriceIndex(OrderBook book, PriceIndex ladder) {
+		this.book = book;
+		this.ladder = ladder;
+	}
+
+	@Override
+	public Side getSide() {
+		return ladder.getSide();
+	}
+
+	@Override
+	public int size() {
+		return (int) read(SIZE, 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean contains(long price) {
+		return read(CONTAINS, price) != 0;
+	}
+
+	@Override
+	public long best() {
+		return read(BEST, 0);
+	}
+
+	@Override
+	public long worst() {
+		return read(WORST, 0);
+	}
+
+	@Override
+	public long next(long price) {
+		return read(NEXT, price);
+	}
+
+	@Override
+	public long previous(long price) {
+		return read(PREVIOUS, price);
+	}
+
+	@Override
+	public int compare(long price1, long price2) {
+		return ladder.compare(price1, price2);
+	}
+
+	private long read(int operation, long price) {
+		if (book.isWriteLockedByCurrentThread())
+			return apply(operation, price);
+		StampedLock lock = book.getLock();
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				long value = apply(operation, price);
+				if (lock.validate(stamp))
+					return value;
+			} catch (RuntimeException e) {
+				// Ladder was seen half way through a change, read again under lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return apply(operation, price);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private long apply(int operation, long price) {
+		switch (operation) {
+		case SIZE:
+			return ladder.size();
+		case CONTAINS:
+			return ladder.contains(price) ? 1 : 0;
+		case BEST:
+			return ladder.best();
+		case WORST:
+			return ladder.worst();
+		case NEXT:
+			return ladder.next(price);
+		default:
+			return ladder.previous(price);
+		}
+	}
+}
@@ -1,37 +1,120 @@
 package com.exchange.orderbook;
 
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.locks.StampedLock;
 
+import com.exchange.algo.MatchingResult;
 import com.exchange.data.Execution;
+import com.exchange.data.ExecutionCollector;
+import com.exchange.data.ExecutionIdAllocator;
+import com.exchange.data.ExecutionSink;
 import com.exchange.data.ExecutionType;
 import com.exchange.data.Order;
 import com.exchange.data.Side;
 import com.exchange.util.ExchangeUtils;
+import com.exchange.util.IntIntHashMap;
 
 /**
  * Class to maintain OrderBook for a given set of orders. 
  * -> Contains method to add/remove order to/from appropriate price level on Bid or Ask side. 
+ * -> Order entries are kept in an arena of primitive arrays and price levels are reused, so
+ *    adding, cancelling and executing orders creates no objects once book has grown to its peak.
+ * -> Safe for use from many threads. Changes take write lock of the book, which is reentrant for
+ *    the thread holding it, and reads are done as optimistic reads which do not block writers.
  */
 public class OrderBook {
 
-	/** map containing all order entries on the order book */
-	private final HashMap<Integer, OrderEntry> orderEntries;
+	/** arena containing all order entries on the order book */
+	private final OrderEntryArena orderEntries;
+
+	/** map of order id to slot of its entry in arena */
+	private final IntIntHashMap orderSlots;
 	
-	/** map containing all Bid-Prices and corresponding First OrderEntry by arrival on the order book */
-	private final TreeMap<Long, OrderEntry> bidMap;
+	/** ladder containing all Bid-Prices and corresponding PriceLevel on the order book */
+	private final PriceLadder<PriceLevel> bidMap;
+
+	/** ladder containing all Ask-Prices and corresponding PriceLevel on the order book */
+	private final PriceLadder<PriceLevel> askMap;
+
+	/** views of bid and ask ladders handed out to readers */
+	private final PriceIndex bidView;
+	private final PriceIndex askView;
+
+	/** lock guarding all state of the book */
+	private final StampedLock lock;
+
+	/**
+	 * Thread holding write lock, only compared against current thread so a stale
+	 * value seen by other threads does no harm
+	 */
+	private Thread writeOwner;
+
+	/** True when book is only ever used by one thread and write lock is not taken */
+	private boolean singleWriter;
+
+	/** emptied price levels kept for reuse */
+	private PriceLevel[] freeLevels;
+	private int freeLevelCount;
 
-	/** map containing all Ask-Prices and corresponding First OrderEntry by arrival on the order book */
-	private final TreeMap<Long, OrderEntry> askMap;
+	/**
+	 * Crossing point of the auction, kept as orders are added, cancelled and
+	 * executed. Buy quantity at or above crossPrice is at least sell quantity at
+	 * or below it, and at the next book price above it is less. NULL_PRICE is
+	 * below every price.
+	 */
+	private long crossPrice;
+	/** Buy quantity at or above crossPrice */
+	private long crossBuyQty;
+	/** Sell quantity at or below crossPrice */
+	private long crossSellQty;
 
 	public OrderBook(int capacity) {
-		this.bidMap = new TreeMap<>(Side.Buy.getComparator());
-		this.askMap = new TreeMap<>(Side.Sell.getComparator());
-		this.orderEntries = new HashMap<>(capacity);
+		this(capacity, new SortedArrayPriceLadder<PriceLevel>(Side.Buy, capacity), new SortedArrayPriceLadder<PriceLevel>(Side.Sell, capacity));
+	}
+
+	/**
+	 * Creates order book with dense tick indexed price ladders, suited for symbols
+	 * trading in a known band around a reference price
+	 * 
+	 * @param capacity
+	 *            initial capacity of order entries
+	 * @param referencePrice
+	 *            price around which band is centred
+	 * @param tickSize
+	 *            minimum price increment
+	 * @param bandLevels
+	 *            number of ticks covered by the band on each side
+	 */
+	public OrderBook(int capacity, long referencePrice, long tickSize, int bandLevels) {
+		this(capacity, referencePrice, tickSize, bandLevels, Math.max(bandLevels, DensePriceLadder.DEFAULT_MAX_BAND_LEVELS));
+	}
+
+	/**
+	 * Creates order book with dense tick indexed price ladders whose band may
+	 * grow up to maxBandLevels ticks, orders at prices beyond it are not added
+	 */
+	public OrderBook(int capacity, long referencePrice, long tickSize, int bandLevels, int maxBandLevels) {
+		this(capacity, new DensePriceLadder<PriceLevel>(Side.Buy, referencePrice, tickSize, bandLevels, maxBandLevels),
+				new DensePriceLadder<PriceLevel>(Side.Sell, referencePrice, tickSize, bandLevels, maxBandLevels));
+	}
+
+	private OrderBook(int capacity, PriceLadder<PriceLevel> bidMap, PriceLadder<PriceLevel> askMap) {
+		this.bidMap = bidMap;
+		this.askMap = askMap;
+		this.orderEntries = new OrderEntryArena(capacity);
+		this.orderSlots = new IntIntHashMap(capacity, OrderEntryArena.NULL_SLOT);
+		this.bidView = new OptimisticPriceIndex(this, bidMap);
+		this.askView = new OptimisticPriceIndex(this, askMap);
+		this.lock = new StampedLock();
+		this.writeOwner = null;
+		this.freeLevels = new PriceLevel[16];
+		this.freeLevelCount = 0;
+		this.crossPrice = PriceIndex.NULL_PRICE;
+		this.crossBuyQty = 0;
+		this.crossSellQty = 0;
 	}
 
 	/**
@@ -41,35 +124,147 @@ public class OrderBook {
 	 *            to be added to book
 	 * @param price
 	 *            price in long representing price level
-	 * @return true if success, else false
+	 * @return true if success, false if order id is already on book or price
+	 *         is not accepted by price ladder
 	 */
 	public boolean addOrder(Order order, long price) {
-		if(orderEntries.containsKey(order.getOrderId()))
-			return false;
-		else if (order.getSide() == Side.Buy)
-			return addOrder(order, bidMap, price);
-		else 
-			return addOrder(order, askMap, price);
-	}
-
-	private boolean addOrder(Order order, TreeMap<Long, OrderEntry> priceMap, long price) {
-		if (priceMap.containsKey(price)) {
-			// If price level already exists, add order to end of the linked list
-			OrderEntry newOrderEntry =  new OrderEntry(order.getOrderId(), order.getQuantity(), price);
-			OrderEntry entry = orderEntries.get(priceMap.get(price).orderId);
-			// Find last order
-			while (entry.next != -1)
-				entry = orderEntries.get(entry.next);
-			// Add order entry to doubly linked list
-			entry.next = newOrderEntry.orderId;
-			orderEntries.put(newOrderEntry.orderId, newOrderEntry);
-		} else {
-			// If price level does not exists add new entry to map and set
-			OrderEntry orderEntry =  new OrderEntry(order.getOrderId(), order.getQuantity(), price);
-			orderEntries.put(order.getOrderId(), orderEntry);
-			priceMap.put(price, orderEntry);
-		}
-		return true;
+		long stamp = lockWrite();
+		try {
+			PriceLadder<PriceLevel> priceMap = getPriceMap(order.getSide());
+			if (!priceMap.accepts(price))
+				return false;
+			// Slot is claimed first so that duplicate check and insert is a single lookup
+			int slot = orderEntries.allocate(order.getOrderId(), price, order.getQuantity());
+			if (orderSlots.putIfAbsent(order.getOrderId(), slot) != OrderEntryArena.NULL_SLOT) {
+				orderEntries.free(slot);
+				return false;
+			}
+			try {
+				addEntry(slot, order.getSide(), priceMap, price);
+			} catch (IllegalArgumentException e) {
+				// Ladder refused price, entry is not linked to any level
+				orderSlots.remove(order.getOrderId());
+				orderEntries.free(slot);
+				return false;
+			}
+			return true;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return true if price ladder of given side can take a level at price, e.g.
+	 *         false for price beyond maximum band of a dense ladder
+	 */
+	public boolean acceptsPrice(Side side, long price) {
+		PriceLadder<PriceLevel> priceMap = getPriceMap(side);
+		if (isWriteLockedByCurrentThread())
+			return priceMap.accepts(price);
+		long stamp = lock.tryOptimisticRead();
+		boolean accepts = priceMap.accepts(price);
+		if (lock.validate(stamp))
+			return accepts;
+		stamp = lock.readLock();
+		try {
+			return priceMap.accepts(price);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Add orders to order book in a single write lock. Orders are expected to be
+	 * sorted by side and price, price level is then looked up once for each run
+	 * of orders at same side and price. Orders at same price join the level in
+	 * array order.
+	 * 
+	 * @param orders
+	 *            orders to be added to book
+	 * @param prices
+	 *            price in long of each order
+	 * @param offset
+	 *            index of first order to add
+	 * @param length
+	 *            number of orders to add
+	 * @param added
+	 *            set at index of each order, true if it was added
+	 * @return number of orders added
+	 */
+	public int addOrders(Order[] orders, long[] prices, int offset, int length, boolean[] added) {
+		long stamp = lockWrite();
+		try {
+			int count = 0;
+			PriceLevel level = null;
+			for (int i = offset; i < offset + length; i++) {
+				Order order = orders[i];
+				long price = prices[i];
+				Side side = order.getSide();
+				added[i] = false;
+				boolean sameLevel = level != null && level.side == side && level.price == price;
+				if (!sameLevel && !getPriceMap(side).accepts(price))
+					continue;
+				int slot = orderEntries.allocate(order.getOrderId(), price, order.getQuantity());
+				if (orderSlots.putIfAbsent(order.getOrderId(), slot) != OrderEntryArena.NULL_SLOT) {
+					orderEntries.free(slot);
+					continue;
+				}
+				// Level of previous order is reused while side and price stay same, nothing is removed meanwhile
+				if (!sameLevel) {
+					try {
+						level = getOrCreateLevel(side, getPriceMap(side), price);
+					} catch (IllegalArgumentException e) {
+						// Ladder refused price, entry is not linked to any level
+						orderSlots.remove(order.getOrderId());
+						orderEntries.free(slot);
+						level = null;
+						continue;
+					}
+				}
+				orderEntries.append(level, slot);
+				onQtyChanged(side, price, orderEntries.getAvailableQty(slot));
+				added[i] = true;
+				count++;
+			}
+			moveCrossing();
+			return count;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	private void addEntry(int slot, Side side, PriceLadder<PriceLevel> priceMap, long price) {
+		PriceLevel level = getOrCreateLevel(side, priceMap, price);
+		// Add order to end of the linked list to maintain time priority
+		orderEntries.append(level, slot);
+		onQtyChanged(side, price, orderEntries.getAvailableQty(slot));
+		moveCrossing();
+	}
+
+	private PriceLevel getOrCreateLevel(Side side, PriceLadder<PriceLevel> priceMap, long price) {
+		PriceLevel level = priceMap.get(price);
+		if (level == null) {
+			// If price level does not exists add new level to map
+			level = newPriceLevel(side, price);
+			try {
+				priceMap.put(price, level);
+			} catch (IllegalArgumentException e) {
+				releasePriceLevel(level);
+				throw e;
+			}
+		}
+		return level;
+	}
+
+	private PriceLevel newPriceLevel(Side side, long price) {
+		PriceLevel level = freeLevelCount == 0 ? new PriceLevel() : freeLevels[--freeLevelCount];
+		return level.init(side, price);
+	}
+
+	private void releasePriceLevel(PriceLevel level) {
+		if (freeLevelCount == freeLevels.length)
+			freeLevels = Arrays.copyOf(freeLevels, freeLevelCount * 2);
+		freeLevels[freeLevelCount++] = level;
 	}
 
 	/**
@@ -82,68 +277,324 @@ public class OrderBook {
 	 * @return true if success, else false
 	 */
 	public boolean removeOrder(Order order, long price) {
-		if(!orderEntries.containsKey(order.getOrderId()))
-			return false;
-		else if (order.getSide() == Side.Buy)
-			return removeOrder(orderEntries.get(order.getOrderId()), bidMap, price);
-		else 
-			return removeOrder(orderEntries.get(order.getOrderId()), askMap, price);
-	}
-
-	private boolean removeOrder(OrderEntry entry, TreeMap<Long, OrderEntry> priceMap, long price) {
-		if(!priceMap.containsKey(price))
-			return false;
-		
-		OrderEntry orderEntry = priceMap.get(price);
-		if (orderEntry.orderId == entry.orderId && orderEntry.next == -1) {
-			// if it is only order entry at the price level then remove it
-			priceMap.remove(price);
-		} else if (orderEntry.orderId == entry.orderId && orderEntry.next != -1) {
-			// if it is first order entry in linked list
-			priceMap.put(price, orderEntries.get(orderEntry.next));
-			orderEntries.remove(orderEntry.orderId);
-		} else {
-			// if order is somewhere in the linked list
-			while (orderEntry.next != entry.orderId && orderEntry != null)
-				orderEntry = orderEntries.get(orderEntry.next);
-			// Change next pointer
-			OrderEntry removalEntry = orderEntries.get(orderEntry.next);
-			orderEntry.next = removalEntry.next;
-			orderEntries.remove(removalEntry.orderId);
-		}
-		return true;
-	}
-
-	public TreeSet<Long> getBids() {
-		TreeSet<Long> set = new TreeSet<>(Side.Buy.getComparator());
-		set.addAll(bidMap.keySet());
-		return set;
-	}
-
-	public TreeSet<Long> getAsks() {
-		TreeSet<Long> set = new TreeSet<>(Side.Sell.getComparator());
-		set.addAll(askMap.keySet());
-		return set;
+		long stamp = lockWrite();
+		try {
+			int slot = orderSlots.get(order.getOrderId());
+			// Order must be resting on the given side and price
+			if (slot == OrderEntryArena.NULL_SLOT || orderEntries.getLevel(slot).side != order.getSide()
+					|| orderEntries.getPrice(slot) != price)
+				return false;
+			removeEntry(slot);
+			return true;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove order from order book using only its id
+	 * 
+	 * @param orderId
+	 *            id of order to be removed from book
+	 * @return true if success, else false
+	 */
+	public boolean removeOrder(int orderId) {
+		long stamp = lockWrite();
+		try {
+			int slot = orderSlots.get(orderId);
+			if (slot == OrderEntryArena.NULL_SLOT)
+				return false;
+			removeEntry(slot);
+			return true;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	private void removeEntry(int slot) {
+		PriceLevel level = orderEntries.getLevel(slot);
+		onQtyChanged(level.side, level.price, -orderEntries.getAvailableQty(slot));
+		orderEntries.unlink(slot);
+		orderSlots.remove(orderEntries.getOrderId(slot));
+		orderEntries.free(slot);
+		// if it was only order entry at the price level then remove the level
+		if (level.isEmpty()) {
+			getPriceMap(level.side).remove(level.price);
+			releasePriceLevel(level);
+		}
+		moveCrossing();
+	}
+
+	private PriceLadder<PriceLevel> getPriceMap(Side side) {
+		return side == Side.Buy ? bidMap : askMap;
+	}
+
+	/**
+	 * Takes write lock of the book so that a sequence of calls, e.g. running a
+	 * matching algorithm and executing its result, sees no change from other
+	 * threads. Lock is reentrant, calls on the book by the holding thread run
+	 * without locking again.
+	 * 
+	 * @return stamp to be passed to unlockWrite, 0 if lock was already held
+	 */
+	public long lockWrite() {
+		if (singleWriter || writeOwner == Thread.currentThread())
+			return 0;
+		long stamp = lock.writeLock();
+		writeOwner = Thread.currentThread();
+		return stamp;
+	}
+
+	/**
+	 * @param stamp
+	 *            stamp returned by lockWrite
+	 */
+	public void unlockWrite(long stamp) {
+		if (stamp == 0)
+			return;
+		writeOwner = null;
+		lock.unlockWrite(stamp);
+	}
+
+	/**
+	 * Book used by a single thread only, e.g. by a shard of ShardedExchange, can
+	 * skip its write lock. Reads made from that thread still see every change.
+	 * Must be set before book is used, book must not be touched by any other
+	 * thread till that thread is done with it.
+	 */
+	public void setSingleWriter(boolean singleWriter) {
+		this.singleWriter = singleWriter;
+	}
+
+	boolean isWriteLockedByCurrentThread() {
+		return writeOwner == Thread.currentThread();
+	}
+
+	StampedLock getLock() {
+		return lock;
+	}
+
+	/**
+	 * @return number of orders resting on the book
+	 */
+	public int getOrderCount() {
+		if (isWriteLockedByCurrentThread())
+			return orderEntries.size();
+		long stamp = lock.tryOptimisticRead();
+		int count = orderEntries.size();
+		if (lock.validate(stamp))
+			return count;
+		stamp = lock.readLock();
+		try {
+			return orderEntries.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @return live read only view of bid prices ordered from best to worst
+	 */
+	public PriceIndex getBids() {
+		return bidView;
+	}
+
+	/**
+	 * @return live read only view of ask prices ordered from best to worst
+	 */
+	public PriceIndex getAsks() {
+		return askView;
+	}
+
+	/**
+	 * Cursor over bid and ask prices merged in descending order. A new cursor is
+	 * returned on each call so that books can be walked from many threads, walking
+	 * prices creates no further objects
+	 * 
+	 * @return cursor positioned at highest price
+	 */
+	public MergedPriceCursor getMergedPrices() {
+		return new MergedPriceCursor(bidView, askView);
 	}
 
 	public long getAvailableSellQtyAtPrice(long price) {
-		return getAvailableQtyAtPrice(price, askMap);
+		return readLevel(askMap, price, true);
 	}
 	
 	public long getAvailableBuyQtyAtPrice(long price) {
-		return getAvailableQtyAtPrice(price, bidMap);
+		return readLevel(bidMap, price, true);
 	}
 
-	private long getAvailableQtyAtPrice(long price, TreeMap<Long, OrderEntry> priceMap) {
-		OrderEntry entry = priceMap.get(price);
-		long totalQuantity = entry.getAvailableQty();
-		while (entry.next != -1) {
-			entry = orderEntries.get(entry.next);
-			totalQuantity = totalQuantity + entry.getAvailableQty();
+	public int getSellOrderCountAtPrice(long price) {
+		return (int) readLevel(askMap, price, false);
+	}
+
+	public int getBuyOrderCountAtPrice(long price) {
+		return (int) readLevel(bidMap, price, false);
+	}
+
+	/**
+	 * Reads quantity or order count of a level as an optimistic read, read is
+	 * repeated under read lock if a writer changed the book meanwhile
+	 */
+	private long readLevel(PriceLadder<PriceLevel> priceMap, long price, boolean quantity) {
+		if (isWriteLockedByCurrentThread())
+			return levelValue(priceMap, price, quantity);
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				long value = levelValue(priceMap, price, quantity);
+				if (lock.validate(stamp))
+					return value;
+			} catch (RuntimeException e) {
+				// Ladder was seen half way through a change, read again under lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return levelValue(priceMap, price, quantity);
+		} finally {
+			lock.unlockRead(stamp);
 		}
-		return totalQuantity;
+	}
+
+	private static long levelValue(PriceLadder<PriceLevel> priceMap, long price, boolean quantity) {
+		PriceLevel level = priceMap.get(price);
+		if (level == null)
+			return 0;
+		return quantity ? level.totalQty : level.orderCount;
 	}
 	
+	/**
+	 * Adds change of quantity at a price to buy and sell quantity at crossing
+	 * price. Buy quantity counts at its price and below, sell quantity at its
+	 * price and above.
+	 */
+	private void onQtyChanged(Side side, long price, long qtyDelta) {
+		if (side == Side.Buy) {
+			if (price >= crossPrice)
+				crossBuyQty = crossBuyQty + qtyDelta;
+		} else if (price <= crossPrice) {
+			crossSellQty = crossSellQty + qtyDelta;
+		}
+	}
+
+	/**
+	 * Moves crossing price after a change till buy quantity at it is at least
+	 * sell quantity and at next higher price it is not. Steps one book price at a
+	 * time, so cost is the number of prices the crossing moved by, usually none
+	 * or one, rather than the size of the crossed range.
+	 */
+	private void moveCrossing() {
+		while (crossBuyQty < crossSellQty) {
+			// Sell quantity at crossing price no longer counts below it, buy quantity at lower price does
+			long lower = lowerBookPrice(crossPrice);
+			crossSellQty = crossSellQty - levelQty(askMap, crossPrice);
+			crossBuyQty = crossBuyQty + levelQty(bidMap, lower);
+			crossPrice = lower;
+		}
+		while (true) {
+			long higher = higherBookPrice(crossPrice);
+			if (higher == PriceIndex.NULL_PRICE)
+				return;
+			long buyQty = crossBuyQty - levelQty(bidMap, crossPrice);
+			long sellQty = crossSellQty + levelQty(askMap, higher);
+			if (buyQty < sellQty)
+				return;
+			crossPrice = higher;
+			crossBuyQty = buyQty;
+			crossSellQty = sellQty;
+		}
+	}
+
+	/** Sets crossing from scratch, e.g. after levels were loaded in bulk */
+	private void resetCrossing() {
+		crossPrice = PriceIndex.NULL_PRICE;
+		crossSellQty = 0;
+		crossBuyQty = 0;
+		for (long price = bidMap.best(); price != PriceIndex.NULL_PRICE; price = bidMap.next(price))
+			crossBuyQty = crossBuyQty + bidMap.get(price).totalQty;
+		moveCrossing();
+	}
+
+	/** @return quantity of level at price, 0 if there is none */
+	private static long levelQty(PriceLadder<PriceLevel> priceMap, long price) {
+		if (price == PriceIndex.NULL_PRICE)
+			return 0;
+		PriceLevel level = priceMap.get(price);
+		return level == null ? 0 : level.totalQty;
+	}
+
+	/** @return highest bid or ask price strictly below price, NULL_PRICE if none */
+	private long lowerBookPrice(long price) {
+		if (price == PriceIndex.NULL_PRICE)
+			return PriceIndex.NULL_PRICE;
+		return Math.max(bidMap.next(price), askMap.previous(price));
+	}
+
+	/** @return lowest bid or ask price strictly above price, NULL_PRICE if none */
+	private long higherBookPrice(long price) {
+		long bid = price == PriceIndex.NULL_PRICE ? bidMap.worst() : bidMap.previous(price);
+		long ask = price == PriceIndex.NULL_PRICE ? askMap.best() : askMap.next(price);
+		if (bid == PriceIndex.NULL_PRICE)
+			return ask;
+		if (ask == PriceIndex.NULL_PRICE)
+			return bid;
+		return Math.min(bid, ask);
+	}
+
+	/**
+	 * Indicative auction match read from crossing in a single lock, so price and
+	 * volume are of the same book state. Matched volume rises with price up to
+	 * the crossing (it is the sell quantity) and falls above it (it is the buy
+	 * quantity), so maximum is at the crossing or the next price above it. Ties
+	 * are given to higher price, same as volume maximization.
+	 * 
+	 * @return highest price at which maximum volume can currently be matched,
+	 *         not matched if no volume can be
+	 */
+	public MatchingResult getIndicativeMatch() {
+		if (isWriteLockedByCurrentThread())
+			return indicativeMatch();
+		long stamp = lock.readLock();
+		try {
+			return indicativeMatch();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private MatchingResult indicativeMatch() {
+		// Volume at highest book price at or below crossing
+		long sellVolume = crossSellQty;
+		// Volume at next price above crossing, and above it till next bid
+		long higher = higherBookPrice(crossPrice);
+		long buyVolume = higher == PriceIndex.NULL_PRICE ? 0 : crossBuyQty - levelQty(bidMap, crossPrice);
+		if (buyVolume > 0 && buyVolume >= sellVolume) {
+			long price = bidMap.contains(higher) ? higher : bidMap.previous(higher);
+			return new MatchingResult(true, price, buyVolume);
+		}
+		if (sellVolume > 0) {
+			long price = bidMap.contains(crossPrice) || askMap.contains(crossPrice) ? crossPrice : lowerBookPrice(crossPrice);
+			return new MatchingResult(true, price, sellVolume);
+		}
+		return new MatchingResult(false, 0, 0);
+	}
+
+	/**
+	 * @return highest price at which maximum volume can currently be matched, 0 if none
+	 */
+	public long getIndicativePrice() {
+		return getIndicativeMatch().getPrice();
+	}
+
+	/**
+	 * @return maximum volume which can currently be matched, 0 if none
+	 */
+	public long getIndicativeVolume() {
+		return getIndicativeMatch().getVolume();
+	}
+
 	/**
 	 * creates execution at specified price and removes fully filled orders from
 	 * order book
@@ -152,87 +603,217 @@ public class OrderBook {
 	 *            price at which match needs to be done
 	 * @param matchVolume
 	 *            total volume for which execution should be created
+	 * @param executionIds
+	 *            ids given to executions, those of the exchange owning the book
 	 * @return list of executions
 	 */
-	public List<Execution> execute(long price, long matchVolume) {
-		List<Execution> executions = new ArrayList<>();
-		executions.addAll(getExecutions(price, matchVolume, bidMap, getBids())); // Buy side executions
-		executions.addAll(getExecutions(price, matchVolume, askMap, getAsks())); // Sell side executions
-		return executions;
+	public List<Execution> execute(long price, long matchVolume, ExecutionIdAllocator executionIds) {
+		ExecutionCollector collector = new ExecutionCollector();
+		execute(price, matchVolume, executionIds, collector);
+		return collector.getExecutions();
 	}
 
-	private List<Execution> getExecutions(long executionPrice, long matchVolume, TreeMap<Long, OrderEntry> priceMap, TreeSet<Long> prices) {
-		List<Execution> executions = new ArrayList<>();
-		for (Long price : prices.headSet(executionPrice, true)) {
-			OrderEntry entry = priceMap.get(price);
-			do{
-				long execQty = Math.min(entry.getAvailableQty(), matchVolume);
-				executions.add(new Execution(entry.orderId, execQty, executionPrice, entry.getAvailableQty() == execQty? ExecutionType.FULL : ExecutionType.PARTIAL));
-				entry.cumQty = entry.cumQty + execQty;
-				if (entry.getAvailableQty() == 0)
-					removeOrder(entry, priceMap, entry.price);
+	/**
+	 * executes match at specified price reporting each fill to the sink and
+	 * removes fully filled orders from order book, no objects are created per fill
+	 * 
+	 * @param price
+	 *            price at which match needs to be done
+	 * @param matchVolume
+	 *            total volume for which execution should be created
+	 * @param executionIds
+	 *            ids given to executions, those of the exchange owning the book
+	 * @param sink
+	 *            receiver of executions, buy side fills are reported before sell side
+	 * @return number of executions reported
+	 */
+	public int execute(long price, long matchVolume, ExecutionIdAllocator executionIds, ExecutionSink sink) {
+		long stamp = lockWrite();
+		try {
+			int executions = executeSide(price, matchVolume, bidMap, executionIds, sink); // Buy side executions
+			executions = executions + executeSide(price, matchVolume, askMap, executionIds, sink); // Sell side executions
+			moveCrossing();
+			return executions;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	private int executeSide(long executionPrice, long matchVolume, PriceLadder<PriceLevel> priceMap,
+			ExecutionIdAllocator executionIds, ExecutionSink sink) {
+		int executions = 0;
+		// Walk from best price till execution price, next price is read before level can be removed
+		long price = priceMap.best();
+		while (price != PriceIndex.NULL_PRICE && priceMap.compare(price, executionPrice) <= 0) {
+			long nextPrice = priceMap.next(price);
+			PriceLevel level = priceMap.get(price);
+			int slot = level.first;
+			while (slot != OrderEntryArena.NULL_SLOT && matchVolume != 0) {
+				long availableQty = orderEntries.getAvailableQty(slot);
+				long execQty = Math.min(availableQty, matchVolume);
+				orderEntries.fill(slot, execQty);
+				onQtyChanged(level.side, price, -execQty);
+				int next = orderEntries.getNext(slot);
+				int orderId = orderEntries.getOrderId(slot);
+				if (availableQty == execQty)
+					removeEntry(slot);
+				sink.onExecution(executionIds.nextId(), orderId, execQty, executionPrice, availableQty == execQty? ExecutionType.FULL : ExecutionType.PARTIAL);
+				executions++;
 				matchVolume = matchVolume - execQty;
-				
-			}while (entry.next != -1 && matchVolume != 0) ;
+				slot = next;
+			}
 			if(matchVolume == 0)
 				break;
+			price = nextPrice;
 		}
 		return executions;
 	}
 	
+	/** Bytes written per level and per order entry by writeSnapshot */
+	private static final int SNAPSHOT_LEVEL_SIZE = 8 + 4;
+	private static final int SNAPSHOT_ENTRY_SIZE = 4 + 8 + 8;
+
+	/**
+	 * @return number of bytes writeSnapshot needs for current state of the book
+	 */
+	public int getSnapshotSize() {
+		long stamp = lockWrite();
+		try {
+			return 4 + 4 + (bidMap.size() + askMap.size()) * SNAPSHOT_LEVEL_SIZE + orderEntries.size() * SNAPSHOT_ENTRY_SIZE;
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Writes all price levels with their order entries in queue order, including
+	 * executed quantity of each entry. For each side level count is followed by
+	 * levels from worst to best price, so loading appends each level at the best
+	 * end of ladder.
+	 * 
+	 * @param out
+	 *            buffer with at least getSnapshotSize bytes remaining
+	 */
+	public void writeSnapshot(ByteBuffer out) {
+		long stamp = lockWrite();
+		try {
+			writeSide(bidMap, out);
+			writeSide(askMap, out);
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	private void writeSide(PriceLadder<PriceLevel> priceMap, ByteBuffer out) {
+		out.putInt(priceMap.size());
+		for (long price = priceMap.worst(); price != PriceIndex.NULL_PRICE; price = priceMap.previous(price)) {
+			PriceLevel level = priceMap.get(price);
+			out.putLong(price).putInt(level.orderCount);
+			for (int slot = level.first; slot != OrderEntryArena.NULL_SLOT; slot = orderEntries.getNext(slot))
+				out.putInt(orderEntries.getOrderId(slot)).putLong(orderEntries.getQuantity(slot)).putLong(orderEntries.getCumQty(slot));
+		}
+	}
+
+	/**
+	 * Rebuilds empty book from state written by writeSnapshot. Levels and entries
+	 * are linked directly in bulk, arena is sized once for all entries.
+	 * 
+	 * @param in
+	 *            buffer positioned at snapshot of the book, moved past it
+	 */
+	public void loadSnapshot(ByteBuffer in) {
+		long stamp = lockWrite();
+		try {
+			if (orderEntries.size() != 0)
+				throw new IllegalStateException("Snapshot can only be loaded into an empty book");
+			loadSide(Side.Buy, bidMap, in);
+			loadSide(Side.Sell, askMap, in);
+			resetCrossing();
+		} finally {
+			unlockWrite(stamp);
+		}
+	}
+
+	private void loadSide(Side side, PriceLadder<PriceLevel> priceMap, ByteBuffer in) {
+		int levels = in.getInt();
+		// Count entries of the side first so arena grows only once
+		int entries = 0;
+		ByteBuffer peek = in.duplicate().order(in.order());
+		for (int i = 0; i < levels; i++) {
+			peek.position(peek.position() + 8);
+			int count = peek.getInt();
+			entries = entries + count;
+			peek.position(peek.position() + count * SNAPSHOT_ENTRY_SIZE);
+		}
+		orderEntries.ensureCapacity(orderEntries.size() + entries);
+
+		for (int i = 0; i < levels; i++) {
+			long price = in.getLong();
+			int count = in.getInt();
+			PriceLevel level = newPriceLevel(side, price);
+			priceMap.put(price, level);
+			for (int j = 0; j < count; j++) {
+				int orderId = in.getInt();
+				int slot = orderEntries.allocate(orderId, price, in.getLong());
+				long cumQty = in.getLong();
+				if (orderSlots.putIfAbsent(orderId, slot) != OrderEntryArena.NULL_SLOT)
+					throw new IllegalStateException("Duplicate order " + orderId + " in snapshot");
+				orderEntries.append(level, slot);
+				if (cumQty != 0)
+					orderEntries.fill(slot, cumQty);
+			}
+		}
+	}
+
+	/**
+	 * Prints book as an optimistic read, printing is repeated under read lock if
+	 * a writer changed the book meanwhile
+	 */
 	public String printBook(int decimalPrecision) {
+		if (isWriteLockedByCurrentThread())
+			return printLevels(decimalPrecision, Integer.MAX_VALUE);
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				// Inconsistent ladders may not end, so walk is bounded by number of levels
+				String book = printLevels(decimalPrecision, bidMap.size() + askMap.size());
+				if (lock.validate(stamp))
+					return book;
+			} catch (RuntimeException e) {
+				// Ladder was seen half way through a change, print again under lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return printLevels(decimalPrecision, Integer.MAX_VALUE);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private String printLevels(int decimalPrecision, int maxPrices) {
 		if (bidMap.size() == 0 && askMap.size() == 0)
 			return "";
 
-		TreeSet<Long> allPrices = new TreeSet<>(Side.Buy.getComparator());
-		allPrices.addAll(getBids());
-		allPrices.addAll(getAsks());
-
+		MergedPriceCursor prices = new MergedPriceCursor(bidMap, askMap);
 		StringBuffer buffer = new StringBuffer(1024);
 		buffer.append("Buy").append("\t\t|\t").append("Sell");
-		for (Long price: allPrices) {
+		for (int count = 0; count < maxPrices && prices.hasNext(); count++) {
+			long price = prices.next();
 			buffer.append("\n");
 			// If bid level exists, print it
-			if (bidMap.containsKey(price))
-				buffer.append(getAvailableBuyQtyAtPrice(price) + "@" + ExchangeUtils.convertPriceToDouble(price, decimalPrecision)).append("\t");
+			if (prices.hasBid())
+				buffer.append(levelValue(bidMap, price, true) + "@" + ExchangeUtils.convertPriceToDouble(price, decimalPrecision)).append("\t");
 			else
 				buffer.append("\t\t");
 			
 			buffer.append(" | ");
 			// If ask level exists, print it
-			if (askMap.containsKey(price))
-				buffer.append(getAvailableSellQtyAtPrice(price) + "@" + ExchangeUtils.convertPriceToDouble(price, decimalPrecision)).append("\t");
+			if (prices.hasAsk())
+				buffer.append(levelValue(askMap, price, true) + "@" + ExchangeUtils.convertPriceToDouble(price, decimalPrecision)).append("\t");
 			else
 				buffer.append("\t\t ");
 		}
 		return buffer.toString();
 	}
-
-	private class OrderEntry{
-		/** Unique id for the order */
-		private final int orderId;
-		
-		/** Price of the order */
-		private long price;
-		/** Quantity of the order */
-		private long quantity;
-		/** Quantity already executed */
-		private long cumQty;
-		
-		// Next entry in list
-		private int next = -1;
-		
-		public OrderEntry(int orderId, long quantity, long price) {
-			this.orderId = orderId;
-			this.quantity = quantity;
-			this.price =  price;
-			this.cumQty = 0;
-
-			this.next = -1;
-		}
-
-		public long getAvailableQty() {
-			return quantity - cumQty;
-		}
-	}
 }
@@ -0,0 +1,179 @@
+package com.exchange.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * Stores order entries of an order book in parallel primitive arrays, each
+ * entry being identified by its slot. Freed slots are kept in a free list
+ * (linked through next array) and reused, so once arena has grown to peak
+ * number of live orders adding and removing orders creates no objects.
+ */
+final class OrderEntryArena {
+
+	/** Slot value representing no entry */
+	static final int NULL_SLOT = -1;
+
+	/** Unique id for the order */
+	private int[] orderId;
+	/** Price of the order */
+	private long[] price;
+	/** Quantity of the order */
+	private long[] quantity;
+	/** Quantity already executed */
+	private long[] cumQty;
+	/** Previous and next entry at same price level */
+	private int[] prev;
+	private int[] next;
+	/** Price level holding the entry */
+	private PriceLevel[] level;
+
+	/** First free slot, free slots are linked through next array */
+	private int freeHead;
+	/** Slots below this have been handed out at least once */
+	private int highWaterMark;
+	/** Number of live entries */
+	private int size;
+
+	OrderEntryArena(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.orderId = new int[capacity];
+		this.price = new long[capacity];
+		this.quantity = new long[capacity];
+		this.cumQty = new long[capacity];
+		this.prev = new int[capacity];
+		this.next = new int[capacity];
+		this.level = new PriceLevel[capacity];
+		this.freeHead = NULL_SLOT;
+		this.highWaterMark = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * @return slot of new entry
+	 */
+	int allocate(int id, long entryPrice, long entryQuantity) {
+		int slot;
+		if (freeHead != NULL_SLOT) {
+			slot = freeHead;
+			freeHead = next[slot];
+		} else {
+			if (highWaterMark == orderId.length)
+				grow();
+			slot = highWaterMark++;
+		}
+		orderId[slot] = id;
+		price[slot] = entryPrice;
+		quantity[slot] = entryQuantity;
+		cumQty[slot] = 0;
+		prev[slot] = NULL_SLOT;
+		next[slot] = NULL_SLOT;
+		level[slot] = null;
+		size++;
+		return slot;
+	}
+
+	void free(int slot) {
+		level[slot] = null;
+		prev[slot] = NULL_SLOT;
+		next[slot] = freeHead;
+		freeHead = slot;
+		size--;
+	}
+
+	private void grow() {
+		grow(orderId.length * 2);
+	}
+
+	/** Grows arrays so that given number of entries fit without further growth */
+	void ensureCapacity(int entries) {
+		if (entries > orderId.length)
+			grow(entries);
+	}
+
+	private void grow(int capacity) {
+		orderId = Arrays.copyOf(orderId, capacity);
+		price = Arrays.copyOf(price, capacity);
+		quantity = Arrays.copyOf(quantity, capacity);
+		cumQty = Arrays.copyOf(cumQty, capacity);
+		prev = Arrays.copyOf(prev, capacity);
+		next = Arrays.copyOf(next, capacity);
+		level = Arrays.copyOf(level, capacity);
+	}
+
+	/** Adds entry at the end of level's queue */
+	void append(PriceLevel priceLevel, int slot) {
+		level[slot] = priceLevel;
+		prev[slot] = priceLevel.last;
+		next[slot] = NULL_SLOT;
+		if (priceLevel.last == NULL_SLOT)
+			priceLevel.first = slot;
+		else
+			next[priceLevel.last] = slot;
+		priceLevel.last = slot;
+		priceLevel.totalQty = priceLevel.totalQty + getAvailableQty(slot);
+		priceLevel.orderCount++;
+	}
+
+	/** Removes entry from anywhere in its level's queue */
+	void unlink(int slot) {
+		PriceLevel priceLevel = level[slot];
+		if (prev[slot] == NULL_SLOT)
+			priceLevel.first = next[slot];
+		else
+			next[prev[slot]] = next[slot];
+		if (next[slot] == NULL_SLOT)
+			priceLevel.last = prev[slot];
+		else
+			prev[next[slot]] = prev[slot];
+		prev[slot] = NULL_SLOT;
+		next[slot] = NULL_SLOT;
+		priceLevel.totalQty = priceLevel.totalQty - getAvailableQty(slot);
+		priceLevel.orderCount--;
+	}
+
+	/** Records execution against entry and its level */
+	void fill(int slot, long execQty) {
+		cumQty[slot] = cumQty[slot] + execQty;
+		level[slot].totalQty = level[slot].totalQty - execQty;
+	}
+
+	int getOrderId(int slot) {
+		return orderId[slot];
+	}
+
+	long getPrice(int slot) {
+		return price[slot];
+	}
+
+	long getQuantity(int slot) {
+		return quantity[slot];
+	}
+
+	long getCumQty(int slot) {
+		return cumQty[slot];
+	}
+
+	long getAvailableQty(int slot) {
+		return quantity[slot] - cumQty[slot];
+	}
+
+	int getNext(int slot) {
+		return next[slot];
+	}
+
+	int getPrev(int slot) {
+		return prev[slot];
+	}
+
+	PriceLevel getLevel(int slot) {
+		return level[slot];
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return orderId.length;
+	}
+}
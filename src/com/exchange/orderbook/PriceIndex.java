@@ -0,0 +1,63 @@
+package com.exchange.orderbook;
+
+import com.exchange.data.Side;
+
+/**
+ * Read only view of sorted price levels for one side of an order book. Prices
+ * are kept as primitive long and ordered from best to worst price for the side,
+ * i.e. descending for Buy and ascending for Sell.
+ */
+public interface PriceIndex {
+
+	/** Returned by navigation methods when there is no such price */
+	public static long NULL_PRICE = Long.MIN_VALUE;
+
+	/**
+	 * @return side for which prices are ordered
+	 */
+	public Side getSide();
+
+	/**
+	 * @return number of price levels
+	 */
+	public int size();
+
+	public boolean isEmpty();
+
+	public boolean contains(long price);
+
+	/**
+	 * @return best price i.e. highest bid or lowest ask, NULL_PRICE if empty
+	 */
+	public long best();
+
+	/**
+	 * @return worst price i.e. lowest bid or highest ask, NULL_PRICE if empty
+	 */
+	public long worst();
+
+	/**
+	 * Next worse price after given price, given price need not be present
+	 * 
+	 * @param price
+	 *            price to start from
+	 * @return next worse price, NULL_PRICE if none
+	 */
+	public long next(long price);
+
+	/**
+	 * Next better price before given price, given price need not be present
+	 * 
+	 * @param price
+	 *            price to start from
+	 * @return next better price, NULL_PRICE if none
+	 */
+	public long previous(long price);
+
+	/**
+	 * Compares prices as per side ordering
+	 * 
+	 * @return negative if price1 is better than price2, zero if equal, else positive
+	 */
+	public int compare(long price1, long price2);
+}
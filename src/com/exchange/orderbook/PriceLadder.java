@@ -0,0 +1,34 @@
+package com.exchange.orderbook;
+
+/**
+ * Sorted price levels for one side of an order book keyed on primitive long
+ * price.
+ *
+ * @param <T>
+ *            type of price level stored against each price
+ */
+public interface PriceLadder<T> extends PriceIndex {
+
+	/**
+	 * @return level stored at price, null if price is not present
+	 */
+	public T get(long price);
+
+	/**
+	 * @return true if a level can be put at price, ladders with a limited price
+	 *         range return false for prices beyond it
+	 */
+	public default boolean accepts(long price) {
+		return true;
+	}
+
+	/**
+	 * Stores level at price, replacing level already present at that price
+	 */
+	public void put(long price, T level);
+
+	/**
+	 * @return level removed from price, null if price is not present
+	 */
+	public T remove(long price);
+}
@@ -0,0 +1,37 @@
+package com.exchange.orderbook;
+
+import com.exchange.data.Side;
+
+/**
+ * Price level on one side of an order book. Holds first and last order entry
+ * slots of the time priority queue along with aggregate open quantity and
+ * order count at the price. Levels are reused by the order book once emptied.
+ */
+final class PriceLevel {
+	/** Side of the orders at this level */
+	Side side;
+	/** Price of the level */
+	long price;
+	/** Slot of first order entry received at this price */
+	int first;
+	/** Slot of last order entry received at this price, new orders are added after it */
+	int last;
+	/** Open quantity of all orders at this price */
+	long totalQty;
+	/** Number of orders at this price */
+	int orderCount;
+
+	PriceLevel init(Side side, long price) {
+		this.side = side;
+		this.price = price;
+		this.first = OrderEntryArena.NULL_SLOT;
+		this.last = OrderEntryArena.NULL_SLOT;
+		this.totalQty = 0;
+		this.orderCount = 0;
+		return this;
+	}
+
+	boolean isEmpty() {
+		return first == OrderEntryArena.NULL_SLOT;
+	}
+}
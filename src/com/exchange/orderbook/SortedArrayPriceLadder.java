@@ -0,0 +1,141 @@
+package com.exchange.orderbook;
+
+import java.util.Arrays;
+
+import com.exchange.data.Side;
+
+/**
+ * PriceLadder backed by sorted primitive arrays. Prices are stored as keys
+ * which are ascending from worst to best price (price for Buy and negated price
+ * for Sell), so lookups are binary searches without boxing and adding or
+ * removing levels near the top of book only shifts few elements at the end of
+ * array.
+ *
+ * @param <T>
+ *            type of price level stored against each price
+ */
+public class SortedArrayPriceLadder<T> implements PriceLadder<T> {
+
+	private final Side side;
+
+	/** Side adjusted prices in ascending order, best price is at the end */
+	private long[] keys;
+
+	/** Levels at same index as their keys */
+	private Object[] levels;
+
+	/** Number of price levels */
+	private int size;
+
+	public SortedArrayPriceLadder(Side side, int capacity) {
+		this.side = side;
+		capacity = Math.max(capacity, 1);
+		this.keys = new long[capacity];
+		this.levels = new Object[capacity];
+		this.size = 0;
+	}
+
+	private long toKey(long price) {
+		return side == Side.Buy ? price : -price;
+	}
+
+	private long toPrice(long key) {
+		return side == Side.Buy ? key : -key;
+	}
+
+	private int indexOf(long price) {
+		return Arrays.binarySearch(keys, 0, size, toKey(price));
+	}
+
+	@Override
+	public Side getSide() {
+		return side;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(long price) {
+		return indexOf(price) >= 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get(long price) {
+		int index = indexOf(price);
+		return index < 0 ? null : (T) levels[index];
+	}
+
+	@Override
+	public void put(long price, T level) {
+		int index = indexOf(price);
+		if (index >= 0) {
+			levels[index] = level;
+			return;
+		}
+		// Insert at insertion point shifting worse prices
+		index = -(index + 1);
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			levels = Arrays.copyOf(levels, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(levels, index, levels, index + 1, size - index);
+		keys[index] = toKey(price);
+		levels[index] = level;
+		size++;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T remove(long price) {
+		int index = indexOf(price);
+		if (index < 0)
+			return null;
+		T level = (T) levels[index];
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+		size--;
+		levels[size] = null;
+		return level;
+	}
+
+	@Override
+	public long best() {
+		return size == 0 ? NULL_PRICE : toPrice(keys[size - 1]);
+	}
+
+	@Override
+	public long worst() {
+		return size == 0 ? NULL_PRICE : toPrice(keys[0]);
+	}
+
+	@Override
+	public long next(long price) {
+		int index = indexOf(price);
+		// Worse prices are at lower index
+		index = index >= 0 ? index - 1 : -(index + 1) - 1;
+		return index < 0 ? NULL_PRICE : toPrice(keys[index]);
+	}
+
+	@Override
+	public long previous(long price) {
+		int index = indexOf(price);
+		// Better prices are at higher index
+		index = index >= 0 ? index + 1 : -(index + 1);
+		return index >= size ? NULL_PRICE : toPrice(keys[index]);
+	}
+
+	@Override
+	public int compare(long price1, long price2) {
+		return Long.compare(toKey(price2), toKey(price1));
+	}
+}
@@ -1,17 +1,109 @@
 package com.exchange.util;
 
+/**
+ * Conversions between decimal prices and fixed-point long prices, where a
+ * price at precision p is stored as price * 10^p
+ */
 public class ExchangeUtils {
-	
+
+	/** Highest decimal precision of fixed-point prices */
+	public static final int MAX_PRECISION = 8;
+
+	/** 10^i for every precision, so scaling never calls Math.pow */
+	private static final long[] POWERS_OF_TEN = new long[MAX_PRECISION + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	/**
+	 * @return 10 raised to precision, precision above {@link #MAX_PRECISION} is
+	 *         taken as {@link #MAX_PRECISION}
+	 */
+	public static long powerOfTen(int precision) {
+		return POWERS_OF_TEN[Math.min(precision, MAX_PRECISION)];
+	}
+
+	/**
+	 * Converts decimal price to fixed-point, digits beyond precision are
+	 * truncated. A product which is a whole number up to binary representation
+	 * error (e.g. 0.29 * 10^4 = 2899.9999999999995) is rounded to it rather than
+	 * truncated.
+	 */
 	public static long convertPriceToLong(double price, int precision) {
-		precision = Math.min(precision, 8);
-		long multiplier = (long)Math.pow(10, precision);
-		return (long)(price * multiplier);
+		double scaled = price * powerOfTen(precision);
+		long rounded = Math.round(scaled);
+		if (Math.abs(scaled - rounded) <= Math.ulp(scaled) * 4)
+			return rounded;
+		return (long) scaled;
+	}
+
+	public static double convertPriceToDouble(long price, int precision) {
+		return ((double) price) / powerOfTen(precision);
+	}
+
+	/**
+	 * Converts fixed-point price between precisions, digits beyond target
+	 * precision are truncated
+	 */
+	public static long rescalePrice(long price, int fromPrecision, int toPrecision) {
+		if (fromPrecision == toPrecision)
+			return price;
+		if (fromPrecision < toPrecision)
+			return price * POWERS_OF_TEN[toPrecision - fromPrecision];
+		return price / POWERS_OF_TEN[fromPrecision - toPrecision];
 	}
 
-	public static double convertPriceToDouble(Long price, int precision) {
-		precision = Math.min(precision, 8);
-		long multiplier = (long)Math.pow(10, precision);
-		return ((double)price)/multiplier;
+	/**
+	 * Parses decimal text like "-12.345" to fixed-point price digit by digit,
+	 * without going through double, so the result is exact
+	 *
+	 * @throws NumberFormatException
+	 *             if text is not a decimal number, has non zero digits beyond
+	 *             precision or does not fit in a long at precision
+	 */
+	public static long parsePrice(CharSequence text, int precision) {
+		if (precision < 0 || precision > MAX_PRECISION)
+			throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION + ": " + precision);
+		int length = text.length();
+		int index = 0;
+		boolean negative = false;
+		if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+			negative = text.charAt(0) == '-';
+			index++;
+		}
+		long value = 0;
+		int decimals = -1;
+		boolean hasDigits = false;
+		for (; index < length; index++) {
+			char c = text.charAt(index);
+			if (c == '.' && decimals < 0) {
+				decimals = 0;
+				continue;
+			}
+			if (c < '0' || c > '9')
+				throw new NumberFormatException("Not a decimal price: " + text);
+			hasDigits = true;
+			if (decimals == precision) {
+				// Trailing zeros beyond precision do not change the price
+				if (c != '0')
+					throw new NumberFormatException("More than " + precision + " decimal places: " + text);
+				continue;
+			}
+			if (decimals >= 0)
+				decimals++;
+			if (value > (Long.MAX_VALUE - (c - '0')) / 10)
+				throw new NumberFormatException("Price out of range: " + text);
+			value = value * 10 + (c - '0');
+		}
+		if (!hasDigits)
+			throw new NumberFormatException("Not a decimal price: " + text);
+		long multiplier = POWERS_OF_TEN[precision - Math.max(decimals, 0)];
+		if (value > Long.MAX_VALUE / multiplier)
+			throw new NumberFormatException("Price out of range: " + text);
+		return negative ? -value * multiplier : value * multiplier;
 	}
 
 }
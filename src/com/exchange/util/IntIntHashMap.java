@@ -0,0 +1,195 @@
+package com.exchange.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open addressing map from primitive int to primitive int using linear
+ * probing. Removal shifts following entries back instead of leaving tombstones,
+ * so probe sequences stay short without periodic clean up. No objects are
+ * created per entry, arrays are only reallocated when map grows.
+ */
+public class IntIntHashMap {
+
+	/** Map is grown once it is filled beyond this ratio */
+	private static final float LOAD_FACTOR = 0.6f;
+
+	/** Value marking empty slot, it can not be stored as a value */
+	private final int missingValue;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int resizeThreshold;
+	private int size;
+
+	/**
+	 * @param capacity
+	 *            expected number of entries
+	 * @param missingValue
+	 *            value returned for missing keys, it can not be stored in map
+	 */
+	public IntIntHashMap(int capacity, int missingValue) {
+		this.missingValue = missingValue;
+		allocate(tableSizeFor(capacity));
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int required = (int) Math.min((long) (Math.max(capacity, 2) / LOAD_FACTOR) + 1, 1 << 30);
+		return Integer.highestOneBit(required - 1) << 1;
+	}
+
+	private void allocate(int tableSize) {
+		this.keys = new int[tableSize];
+		this.values = new int[tableSize];
+		Arrays.fill(values, missingValue);
+		this.mask = tableSize - 1;
+		this.resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+	}
+
+	/** Spreads sequential ids across table */
+	static int hash(int key, int mask) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getMissingValue() {
+		return missingValue;
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != missingValue;
+	}
+
+	/**
+	 * @return value for key, missing value if key is not present
+	 */
+	public int get(int key) {
+		int index = hash(key, mask);
+		while (values[index] != missingValue) {
+			if (keys[index] == key)
+				return values[index];
+			index = (index + 1) & mask;
+		}
+		return missingValue;
+	}
+
+	/**
+	 * @return previous value for key, missing value if key was not present
+	 */
+	public int put(int key, int value) {
+		if (value == missingValue)
+			throw new IllegalArgumentException("Missing value can not be stored");
+		int index = hash(key, mask);
+		while (values[index] != missingValue) {
+			if (keys[index] == key) {
+				int oldValue = values[index];
+				values[index] = value;
+				return oldValue;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > resizeThreshold)
+			rehash(keys.length * 2);
+		return missingValue;
+	}
+
+	/**
+	 * Stores value only if key is not present, with a single probe sequence
+	 * 
+	 * @return value already present for key, missing value if value was stored
+	 */
+	public int putIfAbsent(int key, int value) {
+		if (value == missingValue)
+			throw new IllegalArgumentException("Missing value can not be stored");
+		int index = hash(key, mask);
+		while (values[index] != missingValue) {
+			if (keys[index] == key)
+				return values[index];
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > resizeThreshold)
+			rehash(keys.length * 2);
+		return missingValue;
+	}
+
+	/**
+	 * @return removed value for key, missing value if key was not present
+	 */
+	public int remove(int key) {
+		int index = hash(key, mask);
+		while (values[index] != missingValue) {
+			if (keys[index] == key) {
+				int oldValue = values[index];
+				shiftBack(index);
+				size--;
+				return oldValue;
+			}
+			index = (index + 1) & mask;
+		}
+		return missingValue;
+	}
+
+	/**
+	 * Fills the gap at index with following entries of the probe run which can
+	 * legally occupy it, so lookups never stop early at a removed slot
+	 */
+	private void shiftBack(int gap) {
+		int index = gap;
+		while (true) {
+			index = (index + 1) & mask;
+			if (values[index] == missingValue)
+				break;
+			int home = hash(keys[index], mask);
+			// Entry can move only if its home slot is not between gap and its current slot
+			boolean between = gap <= index ? (gap < home && home <= index) : (gap < home || home <= index);
+			if (!between) {
+				keys[gap] = keys[index];
+				values[gap] = values[index];
+				gap = index;
+			}
+		}
+		values[gap] = missingValue;
+	}
+
+	public void clear() {
+		Arrays.fill(values, missingValue);
+		size = 0;
+	}
+
+	/**
+	 * Passes every key to consumer, map must not be changed meanwhile
+	 */
+	public void forEachKey(IntConsumer consumer) {
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != missingValue)
+				consumer.accept(keys[i]);
+	}
+
+	private void rehash(int tableSize) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(tableSize);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != missingValue) {
+				int index = hash(oldKeys[i], mask);
+				while (values[index] != missingValue)
+					index = (index + 1) & mask;
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+}
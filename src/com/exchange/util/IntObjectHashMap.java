@@ -0,0 +1,205 @@
+package com.exchange.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing map from primitive int to object using linear probing. Keys
+ * are not boxed and removal shifts following entries back instead of leaving
+ * tombstones. Every operation walks a single probe sequence, so check-and-act
+ * operations like putIfAbsent need only one lookup.
+ *
+ * @param <V>
+ *            type of values, null values are not allowed
+ */
+public class IntObjectHashMap<V> {
+
+	/** Map is grown once it is filled beyond this ratio */
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private int[] keys;
+	private Object[] values;
+	private int mask;
+	private int resizeThreshold;
+	private int size;
+
+	/**
+	 * @param capacity
+	 *            expected number of entries
+	 */
+	public IntObjectHashMap(int capacity) {
+		int required = (int) Math.min((long) (Math.max(capacity, 2) / LOAD_FACTOR) + 1, 1 << 30);
+		allocate(Integer.highestOneBit(required - 1) << 1);
+	}
+
+	private void allocate(int tableSize) {
+		this.keys = new int[tableSize];
+		this.values = new Object[tableSize];
+		this.mask = tableSize - 1;
+		this.resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @return value for key, null if key is not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int index = IntIntHashMap.hash(key, mask);
+		Object value;
+		while ((value = values[index]) != null) {
+			if (keys[index] == key)
+				return (V) value;
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * @return previous value for key, null if key was not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null)
+			throw new IllegalArgumentException("Null value can not be stored");
+		int index = IntIntHashMap.hash(key, mask);
+		while (values[index] != null) {
+			if (keys[index] == key) {
+				V oldValue = (V) values[index];
+				values[index] = value;
+				return oldValue;
+			}
+			index = (index + 1) & mask;
+		}
+		insertAt(index, key, value);
+		return null;
+	}
+
+	/**
+	 * Stores value only if key is not present, with a single probe sequence
+	 * 
+	 * @return value already present for key, null if value was stored
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(int key, V value) {
+		if (value == null)
+			throw new IllegalArgumentException("Null value can not be stored");
+		int index = IntIntHashMap.hash(key, mask);
+		while (values[index] != null) {
+			if (keys[index] == key)
+				return (V) values[index];
+			index = (index + 1) & mask;
+		}
+		insertAt(index, key, value);
+		return null;
+	}
+
+	private void insertAt(int index, int key, V value) {
+		keys[index] = key;
+		values[index] = value;
+		if (++size > resizeThreshold)
+			rehash(keys.length * 2);
+	}
+
+	/**
+	 * @return removed value for key, null if key was not present
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int index = IntIntHashMap.hash(key, mask);
+		Object value;
+		while ((value = values[index]) != null) {
+			if (keys[index] == key) {
+				shiftBack(index);
+				size--;
+				return (V) value;
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes key only if it is mapped to given instance, in a single probe
+	 * 
+	 * @return true if key was removed
+	 */
+	public boolean remove(int key, V value) {
+		int index = IntIntHashMap.hash(key, mask);
+		Object current;
+		while ((current = values[index]) != null) {
+			if (keys[index] == key) {
+				if (current != value)
+					return false;
+				shiftBack(index);
+				size--;
+				return true;
+			}
+			index = (index + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Fills the gap at index with following entries of the probe run which can
+	 * legally occupy it, so lookups never stop early at a removed slot
+	 */
+	private void shiftBack(int gap) {
+		int index = gap;
+		while (true) {
+			index = (index + 1) & mask;
+			if (values[index] == null)
+				break;
+			int home = IntIntHashMap.hash(keys[index], mask);
+			// Entry can move only if its home slot is not between gap and its current slot
+			boolean between = gap <= index ? (gap < home && home <= index) : (gap < home || home <= index);
+			if (!between) {
+				keys[gap] = keys[index];
+				values[gap] = values[index];
+				gap = index;
+			}
+		}
+		values[gap] = null;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Passes every value to consumer, map must not be changed meanwhile
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEachValue(Consumer<? super V> consumer) {
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != null)
+				consumer.accept((V) values[i]);
+	}
+
+	private void rehash(int tableSize) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(tableSize);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int index = IntIntHashMap.hash(oldKeys[i], mask);
+				while (values[index] != null)
+					index = (index + 1) & mask;
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.exchange.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns dense int ids, starting at 0, to symbols when they are first seen.
+ * Ids are never reused or removed, so they can index plain arrays of per symbol
+ * state. Lookups can be done from many threads, registration of new symbols is
+ * serialised.
+ */
+public final class SymbolRegistry {
+
+	/** Id returned for a symbol which is not registered */
+	public static final int NULL_ID = -1;
+
+	private final ConcurrentHashMap<String, Integer> ids;
+
+	/** Symbol of each id, replaced by a bigger copy when full */
+	private volatile AtomicReferenceArray<String> symbols;
+
+	private volatile int size;
+
+	public SymbolRegistry(int capacity) {
+		this.ids = new ConcurrentHashMap<>(capacity);
+		this.symbols = new AtomicReferenceArray<>(Math.max(capacity, 16));
+	}
+
+	/**
+	 * @return id of symbol, registered with next free id if not seen before
+	 */
+	public int register(String symbol) {
+		Integer id = ids.get(symbol);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(symbol);
+			if (id != null)
+				return id;
+			int newId = size;
+			AtomicReferenceArray<String> current = symbols;
+			if (newId == current.length()) {
+				AtomicReferenceArray<String> grown = new AtomicReferenceArray<>(current.length() * 2);
+				for (int i = 0; i < newId; i++)
+					grown.set(i, current.get(i));
+				symbols = grown;
+				current = grown;
+			}
+			current.set(newId, symbol);
+			// Id is published only once symbol can be read back from it
+			size = newId + 1;
+			ids.put(symbol, newId);
+			return newId;
+		}
+	}
+
+	/**
+	 * @return id of symbol, {@link #NULL_ID} if it is not registered
+	 */
+	public int getId(String symbol) {
+		Integer id = ids.get(symbol);
+		return id == null ? NULL_ID : id;
+	}
+
+	/**
+	 * @return symbol of id, null if no symbol has the id
+	 */
+	public String getSymbol(int id) {
+		if (id < 0 || id >= size)
+			return null;
+		return symbols.get(id);
+	}
+
+	/** @return number of registered symbols, ids are 0 to size - 1 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,118 @@
+package com.exchange.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps ASCII symbol bytes read from a buffer to a cached String instance, so
+ * that decoding a message creates no String once symbol has been seen. Open
+ * addressing table which only grows up to a maximum number of symbols, symbols
+ * are never removed. Not thread safe.
+ */
+public final class SymbolTable {
+
+	private byte[][] keys;
+	private String[] symbols;
+	private int size;
+
+	/** Most symbols table takes, bytes of further symbols are not added */
+	private final int maxSize;
+
+	public SymbolTable(int capacity) {
+		this(capacity, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param capacity
+	 *            expected number of symbols
+	 * @param maxSize
+	 *            most symbols table takes, e.g. to bound symbols created from
+	 *            client input
+	 */
+	public SymbolTable(int capacity, int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("Max size must be > 0");
+		this.maxSize = maxSize;
+		int slots = Integer.highestOneBit(Math.max(capacity * 2, 16) - 1) << 1;
+		this.keys = new byte[slots][];
+		this.symbols = new String[slots];
+	}
+
+	/**
+	 * @return symbol for bytes at given position of buffer, null if symbol is
+	 *         new and table already holds max size symbols. Position is not moved.
+	 */
+	public String get(ByteBuffer buffer, int offset, int length) {
+		int index = indexOf(buffer, offset, length);
+		if (keys[index] != null)
+			return symbols[index];
+		if (size == maxSize)
+			return null;
+		byte[] key = new byte[length];
+		for (int i = 0; i < length; i++)
+			key[i] = buffer.get(offset + i);
+		String symbol = new String(key, StandardCharsets.US_ASCII);
+		keys[index] = key;
+		symbols[index] = symbol;
+		if (++size * 2 > keys.length)
+			grow();
+		return symbol;
+	}
+
+	/**
+	 * @return symbol for bytes at given position of buffer, null if it was never
+	 *         added
+	 */
+	public String find(ByteBuffer buffer, int offset, int length) {
+		return symbols[indexOf(buffer, offset, length)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/** @return slot holding given bytes, else empty slot where they would be added */
+	private int indexOf(ByteBuffer buffer, int offset, int length) {
+		int mask = keys.length - 1;
+		int index = hash(buffer, offset, length) & mask;
+		while (keys[index] != null && !matches(keys[index], buffer, offset, length))
+			index = (index + 1) & mask;
+		return index;
+	}
+
+	private static int hash(ByteBuffer buffer, int offset, int length) {
+		int hash = 1;
+		for (int i = 0; i < length; i++)
+			hash = 31 * hash + buffer.get(offset + i);
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(byte[] key, ByteBuffer buffer, int offset, int length) {
+		if (key.length != length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (key[i] != buffer.get(offset + i))
+				return false;
+		return true;
+	}
+
+	private void grow() {
+		byte[][] oldKeys = keys;
+		String[] oldSymbols = symbols;
+		keys = new byte[oldKeys.length * 2][];
+		symbols = new String[oldKeys.length * 2];
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] == null)
+				continue;
+			ByteBuffer key = ByteBuffer.wrap(oldKeys[i]);
+			int index = hash(key, 0, oldKeys[i].length) & mask;
+			while (keys[index] != null)
+				index = (index + 1) & mask;
+			keys[index] = oldKeys[i];
+			symbols[index] = oldSymbols[i];
+		}
+		Arrays.fill(oldKeys, null);
+	}
+}
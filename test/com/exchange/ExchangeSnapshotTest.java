@@ -0,0 +1,131 @@
+package com.exchange;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.exchange.algo.MatchingResult;
+import com.exchange.algo.VolumeMaximizationAlgo;
+import com.exchange.common.TestBase;
+import com.exchange.data.Execution;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.journal.Journal;
+import com.exchange.journal.JournalReplayer;
+import com.exchange.journal.SyncPolicy;
+
+class ExchangeSnapshotTest extends TestBase {
+
+	private static final String[] SYMBOLS = { "0001.HK", "0005.HK", "0700.HK" };
+
+	@TempDir
+	Path directory;
+
+	private static void sendRandomOrders(Exchange exchange, int firstId, int count, long seed) {
+		Random random = new Random(seed);
+		for (int i = firstId; i < firstId + count; i++) {
+			Side side = random.nextBoolean() ? Side.Buy : Side.Sell;
+			exchange.sendOrder(new Order(i, SYMBOLS[i % SYMBOLS.length], side, 100 + random.nextInt(10) * 100, 95 + random.nextInt(10)));
+		}
+	}
+
+	@Test
+	void testLoadedExchangeHasSameBooksQueuesAndFills() throws IOException {
+		Exchange exchange = new Exchange();
+		sendRandomOrders(exchange, 0, 3000, 11);
+		// Partial fills leave executed quantity on entries at head of queues
+		exchange.executeMatch(SYMBOLS[0], 1000000, 1250);
+		exchange.cancelOrder(30);
+		long reservedId = exchange.getExecutionIds().getReservedId();
+
+		Path file = directory.resolve("exchange.snapshot");
+		ExchangeSnapshot.write(exchange, file);
+
+		Exchange loaded = new Exchange();
+		ExchangeSnapshot.load(loaded, file);
+		// Ids used before snapshot are not handed out again
+		assertEquals(reservedId, loaded.getExecutionIds().getReservedId());
+		for (String symbol : SYMBOLS) {
+			// Indicative match is rebuilt with the book
+			MatchingResult match = loaded.runMatchingAlgo(new VolumeMaximizationAlgo(), symbol);
+			assertEquals(match.getVolume(), loaded.getBookForSymbol(symbol).getIndicativeVolume());
+			assertEquals(match.getPrice(), loaded.getBookForSymbol(symbol).getIndicativePrice());
+			assertEquals(exchange.getBookForSymbol(symbol).getOrderCount(), loaded.getBookForSymbol(symbol).getOrderCount());
+			assertEquals(exchange.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), loaded.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+		}
+		// Order store is restored, including filled orders
+		assertFalse(loaded.sendOrder(new Order(0, SYMBOLS[0], Side.Buy, 100, 100.0)));
+		assertTrue(loaded.cancelOrder(31));
+
+		// Same match on both gives same fills, so queue order and executed quantity survived
+		exchange.cancelOrder(31);
+		List<Execution> expected = exchange.executeMatch(SYMBOLS[1], 1000000, 5000);
+		List<Execution> actual = loaded.executeMatch(SYMBOLS[1], 1000000, 5000);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getOrderId(), actual.get(i).getOrderId());
+			assertEquals(expected.get(i).getQuantity(), actual.get(i).getQuantity());
+			assertEquals(expected.get(i).getExecType(), actual.get(i).getExecType());
+		}
+	}
+
+	@Test
+	void testJournalAfterSnapshotIsReplayedOnTop() throws IOException {
+		Path journalDirectory = directory.resolve("journal");
+		Exchange exchange = new Exchange();
+		Journal journal = new Journal(journalDirectory, 1 << 16, SyncPolicy.NONE, 1);
+		exchange.setJournal(journal);
+		sendRandomOrders(exchange, 0, 500, 5);
+		Path file = directory.resolve("exchange.snapshot");
+		long sequence = ExchangeSnapshot.write(exchange, file);
+		assertEquals(500, sequence);
+		sendRandomOrders(exchange, 500, 100, 6);
+		exchange.cancelOrder(7);
+		journal.close();
+
+		Exchange restarted = new Exchange();
+		assertEquals(sequence, ExchangeSnapshot.load(restarted, file));
+		assertEquals(101, JournalReplayer.replay(journalDirectory, restarted, sequence));
+		for (String symbol : SYMBOLS)
+			assertEquals(exchange.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), restarted.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+	}
+
+	@Test
+	void testSnapshotIsOnlyLoadedIntoEmptyExchangeOfSamePrecision() throws IOException {
+		Exchange exchange = new Exchange();
+		sendRandomOrders(exchange, 0, 10, 1);
+		Path file = directory.resolve("exchange.snapshot");
+		ExchangeSnapshot.write(exchange, file);
+		assertThrows(IllegalArgumentException.class, () -> ExchangeSnapshot.load(new Exchange(2), file));
+		assertThrows(IllegalStateException.class, () -> ExchangeSnapshot.load(exchange, file));
+	}
+
+	@Test
+	void testInvalidSymbolLeavesPreviousSnapshot() throws IOException {
+		Exchange exchange = new Exchange();
+		sendRandomOrders(exchange, 0, 10, 1);
+		Path file = directory.resolve("exchange.snapshot");
+		ExchangeSnapshot.write(exchange, file);
+		byte[] previous = Files.readAllBytes(file);
+
+		exchange.sendOrder(new Order(100, "\u00C9CHANGE", Side.Buy, 100, 99));
+		assertThrows(IllegalArgumentException.class, () -> ExchangeSnapshot.write(exchange, file));
+		exchange.cancelOrder(100);
+		exchange.sendOrder(new Order(101, "SYMBOL-LONGER-THAN-16", Side.Buy, 100, 99));
+		assertThrows(IllegalArgumentException.class, () -> ExchangeSnapshot.write(exchange, file));
+
+		assertArrayEquals(previous, Files.readAllBytes(file));
+		assertFalse(Files.exists(directory.resolve("exchange.snapshot.tmp")));
+	}
+}
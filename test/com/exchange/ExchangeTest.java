@@ -1,16 +1,35 @@
 package com.exchange;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 
+import com.exchange.algo.AuctionResult;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
 import com.exchange.algo.MatchingAlgo;
 import com.exchange.algo.MatchingResult;
 import com.exchange.common.TestBase;
+import com.exchange.data.Execution;
+import com.exchange.data.ExecutionCollector;
+import com.exchange.data.ExecutionIdAllocator;
+import com.exchange.data.ExecutionSink;
+import com.exchange.data.ExecutionType;
 import com.exchange.data.Order;
 import com.exchange.data.Side;
+import com.exchange.metrics.RejectReason;
 import com.exchange.orderbook.OrderBook;
+import com.exchange.util.ExchangeUtils;
+import com.exchange.util.SymbolRegistry;
 
 class ExchangeTest extends TestBase{
 
@@ -67,6 +86,121 @@ class ExchangeTest extends TestBase{
 				"2000@0.99999 	| 2000@0.99999", exchange.getBookForSymbol(DEFAULT_SYMBOL), 5);
 	}
 	
+	@Test
+	void testFixedPointPricesMatchExactly() {
+		Exchange exchange = new Exchange();
+		Order buy = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 1000, ExchangeUtils.parsePrice("0.29", DECIMAL_PRECISION), DECIMAL_PRECISION);
+		// Decimal and lower precision prices land on same level as fixed-point one
+		Order sell = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Sell, 400, 0.29);
+		Order sell2 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Sell, 600, 29, 2);
+		assertTrue(exchange.sendOrder(buy));
+		assertTrue(exchange.sendOrder(sell));
+		assertTrue(exchange.sendOrder(sell2));
+		assertEquals(2900, buy.getPrice(DECIMAL_PRECISION));
+		assertEquals(1000, exchange.getBookForSymbol(DEFAULT_SYMBOL).getAvailableSellQtyAtPrice(2900));
+
+		AuctionResult result = exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		assertEquals(2900, result.getMatchingResult().getPrice());
+		assertEquals(1000, result.getMatchingResult().getVolume());
+		for (Execution execution : result.getExecutions())
+			assertEquals(2900, execution.getPrice());
+		assertThrows(IllegalArgumentException.class, () -> new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 100, 29, 9));
+	}
+
+	@Test
+	void testBatchOfOrdersGivesSameBooksAsSingleOrders() {
+		Exchange single = new Exchange();
+		Exchange batched = new Exchange();
+		OrderBatch batch = new OrderBatch(4);
+		String[] symbols = { DEFAULT_SYMBOL, "0001.HK" };
+		for (int i = 0; i < 200; i++) {
+			Side side = i % 3 == 0 ? Side.Sell : Side.Buy;
+			double price = 100 + (i * 7) % 5;
+			single.sendOrder(new Order(i, symbols[i % 2], side, 100 + i, price));
+			batch.add(new Order(i, symbols[i % 2], side, 100 + i, price));
+		}
+		assertEquals(200, batched.sendOrders(batch));
+		for (String symbol : symbols)
+			assertEquals(single.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), batched.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+
+		// Same time priority within each level
+		List<Execution> expected = single.executeMatch(DEFAULT_SYMBOL, 1010000, 3000);
+		List<Execution> actual = batched.executeMatch(DEFAULT_SYMBOL, 1010000, 3000);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertEquals(expected.get(i).getOrderId(), actual.get(i).getOrderId());
+	}
+
+	@Test
+	void testBatchResultsAreSetPerOrderAndBatchIsReused() {
+		Exchange exchange = new Exchange();
+		OrderBatch batch = new OrderBatch();
+		Order first = new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0);
+		batch.add(first)
+				.add(new Order(2, DEFAULT_SYMBOL, Side.Buy, 1000, 0.0))
+				.add(new Order(1, DEFAULT_SYMBOL, Side.Sell, 1000, 101.0))
+				.add(new Order(3, DEFAULT_SYMBOL, Side.Sell, 0, 101.0))
+				.add(new Order(4, DEFAULT_SYMBOL, Side.Sell, 1000, 101.0));
+		assertEquals(2, exchange.sendOrders(batch));
+		assertTrue(batch.isAccepted(0));
+		assertEquals(null, batch.getRejectReason(0));
+		assertEquals(RejectReason.INVALID_PRICE, batch.getRejectReason(1));
+		assertEquals(RejectReason.DUPLICATE_ORDER_ID, batch.getRejectReason(2));
+		assertEquals(RejectReason.INVALID_QUANTITY, batch.getRejectReason(3));
+		assertTrue(batch.isAccepted(4));
+		assertEquals(first.getTimestamp(), batch.getOrder(4).getTimestamp());
+
+		// Cancels, unknown and repeated orders are not cancelled
+		batch.clear();
+		batch.add(first)
+				.add(new Order(4, DEFAULT_SYMBOL, Side.Sell, 1000, 101.0))
+				.add(new Order(5, DEFAULT_SYMBOL, Side.Sell, 1000, 101.0))
+				.add(first);
+		assertEquals(2, exchange.cancelOrders(batch));
+		assertTrue(batch.isAccepted(0));
+		assertTrue(batch.isAccepted(1));
+		assertFalse(batch.isAccepted(2));
+		assertFalse(batch.isAccepted(3));
+		assertEquals(0, exchange.getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+		assertThrows(IndexOutOfBoundsException.class, () -> batch.isAccepted(4));
+		// Cancelled ids can be used again
+		assertTrue(exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0)));
+	}
+
+	@Test
+	void testSymbolIdApi() {
+		Exchange exchange = new Exchange();
+		int symbolId = exchange.registerSymbol(DEFAULT_SYMBOL);
+		assertEquals(symbolId, exchange.getSymbolId(DEFAULT_SYMBOL));
+		assertEquals(SymbolRegistry.NULL_ID, exchange.getSymbolId("0001.HK"));
+		assertEquals(null, exchange.getBook(symbolId));
+
+		Order buy = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 1000, 10.0);
+		buy.setSymbolId(symbolId);
+		Order sell = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Sell, 600, 10.0);
+		// Id of another symbol is not trusted
+		sell.setSymbolId(exchange.registerSymbol("0001.HK"));
+		Order other = new Order(getOrderId(), "0001.HK", Side.Buy, 100, 5.0);
+		assertTrue(exchange.sendOrder(buy));
+		assertTrue(exchange.sendOrder(sell));
+		assertTrue(exchange.sendOrder(other));
+		assertEquals(symbolId, sell.getSymbolId());
+		assertEquals(exchange.getBookForSymbol(DEFAULT_SYMBOL), exchange.getBook(symbolId));
+		assertEquals(2, exchange.getBook(symbolId).getOrderCount());
+
+		// Cancel with order of same id on another symbol is rejected
+		assertFalse(exchange.cancelOrder(new Order(other.getOrderId(), DEFAULT_SYMBOL, Side.Buy, 100, 5.0)));
+		assertTrue(exchange.cancelOrder(other));
+
+		MatchingResult result = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), symbolId);
+		assertEquals(600, result.getVolume());
+		assertEquals(2, exchange.executeMatch(symbolId, result.getPrice(), result.getVolume(), new ExecutionCollector()));
+		assertOrderBookAsExpected("Buy		|	Sell		\n" + 
+								"400@10.0	| 		 \n" , exchange.getBook(symbolId));
+		assertFalse(exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), symbolId).getMatchingResult().matched());
+		assertEquals(0, exchange.executeMatch(99, 100000, 100, new ExecutionCollector()));
+	}
+
 	@Test
 	void testDuplicateOrder() {
 		Exchange exchange = new Exchange();
@@ -163,4 +297,132 @@ class ExchangeTest extends TestBase{
 		
 	}
 
+	@Test
+	void testCancelOrderById() {
+		Exchange exchange = new Exchange();
+		Order b1 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 1000, 10.0);
+		Order b2 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 2000, 10.0);
+		Order b3 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 3000, 10.0);
+		assertTrue(exchange.sendOrder(b1));
+		assertTrue(exchange.sendOrder(b2));
+		assertTrue(exchange.sendOrder(b3));
+		assertTrue(exchange.sendOrder(new Order(getOrderId(), DEFAULT_SYMBOL, Side.Sell, 1000, 11.0)));
+
+		assertTrue(exchange.cancelOrder(b2.getOrderId()));
+		assertOrderBookAsExpected("Buy		|	Sell		\n" + 
+								"		 	| 1000@11.0	\n" + 
+								"4000@10.0	| 		 \n" , exchange.getBookForSymbol(DEFAULT_SYMBOL));
+
+		//Duplicate cancel
+		assertFalse(exchange.cancelOrder(b2.getOrderId()));
+		assertFalse(exchange.cancelOrder(b2));
+
+		assertTrue(exchange.cancelOrder(b3.getOrderId()));
+		assertTrue(exchange.cancelOrder(b1.getOrderId()));
+		assertOrderBookAsExpected("Buy		|	Sell		\n" + 
+								"		 	| 1000@11.0	", exchange.getBookForSymbol(DEFAULT_SYMBOL));
+	}
+
+	@Test
+	void testExecuteMatchWithExecutionSink() {
+		Exchange exchange = new Exchange();
+		Order b1 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 1000, 10.0);
+		Order b2 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Buy, 2000, 10.0);
+		Order s1 = new Order(getOrderId(), DEFAULT_SYMBOL, Side.Sell, 1500, 9.0);
+		assertTrue(exchange.sendOrder(b1));
+		assertTrue(exchange.sendOrder(b2));
+		assertTrue(exchange.sendOrder(s1));
+
+		final List<String> fills = new ArrayList<>();
+		int executions = exchange.executeMatch(DEFAULT_SYMBOL, 100000, 1500, new ExecutionSink() {
+			@Override
+			public void onExecution(long executionId, int orderId, long quantity, long price, ExecutionType execType) {
+				fills.add(executionId + "/" + orderId + ":" + quantity + "@" + price + ":" + execType);
+			}
+		});
+		assertEquals(3, executions);
+		// Ids come from exchange allocator, whose first block starts at 0
+		assertEquals("0/" + b1.getOrderId() + ":1000@100000:FULL", fills.get(0));
+		assertEquals("1/" + b2.getOrderId() + ":500@100000:PARTIAL", fills.get(1));
+		assertEquals("2/" + s1.getOrderId() + ":1500@100000:FULL", fills.get(2));
+		assertEquals(ExecutionIdAllocator.DEFAULT_BLOCK_SIZE, exchange.getExecutionIds().getReservedId());
+		assertOrderBookAsExpected("Buy		|	Sell		\n" + 
+								"1500@10.0	| 		 \n" , exchange.getBookForSymbol(DEFAULT_SYMBOL));
+
+		assertEquals(0, exchange.executeMatch("0001.HK", 100000, 1500, new ExecutionCollector()));
+	}
+
+	@Test
+	void testRunAuctionInParallelForAllSymbols() {
+		Exchange exchange = new Exchange();
+		for (int i = 0; i < 50; i++) {
+			String symbol = "SYM" + i;
+			for (int j = 0; j <= i; j++) {
+				assertTrue(exchange.sendOrder(new Order(getOrderId(), symbol, Side.Buy, 1000, 10.0 + j % 3)));
+				assertTrue(exchange.sendOrder(new Order(getOrderId(), symbol, Side.Sell, 500, 10.0)));
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Map<String, AuctionResult> results = exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), pool);
+		assertEquals(50, results.size());
+		for (int i = 0; i < 50; i++) {
+			AuctionResult result = results.get("SYM" + i);
+			assertTrue(result.getMatchingResult().matched());
+			// All sell quantity is matched
+			assertEquals(500 * (i + 1), result.getMatchingResult().getVolume());
+			assertTrue(result.getExecutions().size() >= i + 2);
+		}
+
+		results = exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), Arrays.asList("SYM1", "0001.HK"), pool);
+		assertEquals(2, results.size());
+		assertFalse(results.get("SYM1").getMatchingResult().matched());
+		assertFalse(results.get("0001.HK").getMatchingResult().matched());
+		assertTrue(results.get("0001.HK").getExecutions().isEmpty());
+		pool.shutdown();
+	}
+
+	@Test
+	void testOrdersAndCancelsFromManyThreads() throws Exception {
+		final Exchange exchange = new Exchange();
+		final int ordersPerThread = 20000;
+		final AtomicInteger accepted = new AtomicInteger();
+		final AtomicInteger cancelled = new AtomicInteger();
+		// Same ids are sent and then cancelled by every thread, only one of them may succeed for each id
+		runOnThreads(4, new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < ordersPerThread; i++)
+					if (exchange.sendOrder(new Order(i, "SYM" + (i % 8), i % 2 == 0 ? Side.Buy : Side.Sell, 100, 10.0 + i % 5)))
+						accepted.incrementAndGet();
+			}
+		});
+		assertEquals(ordersPerThread, accepted.get());
+		int resting = 0;
+		for (int s = 0; s < 8; s++)
+			resting = resting + exchange.getBookForSymbol("SYM" + s).getOrderCount();
+		assertEquals(ordersPerThread, resting);
+
+		runOnThreads(4, new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < ordersPerThread; i++)
+					if (exchange.cancelOrder(i))
+						cancelled.incrementAndGet();
+			}
+		});
+		assertEquals(ordersPerThread, cancelled.get());
+		for (int s = 0; s < 8; s++)
+			assertEquals(0, exchange.getBookForSymbol("SYM" + s).getOrderCount());
+	}
+
+	private static void runOnThreads(int threads, Runnable task) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(task);
+			workers[t].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+	}
+
 }
@@ -0,0 +1,93 @@
+package com.exchange.algo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.common.TestBase;
+import com.exchange.orderbook.OrderBook;
+import com.exchange.util.ExchangeUtils;
+
+class CumulativeVolumeMaximizationAlgoTest extends TestBase{
+
+	@Test
+	void testOnEmptyOrderBook() {
+		CumulativeVolumeMaximizationAlgo volumeMax = new CumulativeVolumeMaximizationAlgo();
+		MatchingResult result = volumeMax.execute(new OrderBook(10));
+
+		assertNotNull(volumeMax.name());
+		assertFalse(result.matched());
+		assertEquals(0, result.getVolume());
+		assertEquals(0, result.getPrice());
+	}
+
+	@Test
+	void testOnOrderBookWithNoMatch() {
+		Exchange exchange = new Exchange();
+		exchange.sendOrder(createBuyOrder(1000, 99.0));
+		exchange.sendOrder(createSellOrder(1000, 100.0));
+
+		MatchingResult result = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		assertFalse(result.matched());
+		assertEquals(0, result.getVolume());
+	}
+
+	@Test
+	void testWithMatchingOrdersAtMultiplePriceLevel() {
+		Exchange exchange = new Exchange();
+		exchange.sendOrder(createBuyOrder(1000, 99.0));
+		exchange.sendOrder(createBuyOrder(1000, 100.0));
+		exchange.sendOrder(createBuyOrder(1000, 101.0));
+		exchange.sendOrder(createBuyOrder(1000, 102.0));
+
+		exchange.sendOrder(createSellOrder(2000, 100.0));
+
+		MatchingResult result = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		assertTrue(result.matched());
+		assertEquals(2000, result.getVolume());
+		assertEquals(101.0, ExchangeUtils.convertPriceToDouble(result.getPrice(), DECIMAL_PRECISION));
+	}
+
+	@Test
+	void testWithMatchingOrdersAtFourPriceLevel() {
+		Exchange exchange = new Exchange();
+		exchange.sendOrder(createBuyOrder(1000, 99.0));
+		exchange.sendOrder(createBuyOrder(1000, 100.0));
+		exchange.sendOrder(createBuyOrder(1000, 101.0));
+		exchange.sendOrder(createBuyOrder(1000, 102.0));
+
+		exchange.sendOrder(createSellOrder(2000, 99.0));
+		exchange.sendOrder(createSellOrder(2000, 100.0));
+		exchange.sendOrder(createSellOrder(2000, 101.0));
+		exchange.sendOrder(createSellOrder(2000, 102.0));
+
+		MatchingResult result = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		assertTrue(result.matched());
+		assertEquals(3000, result.getVolume());
+		assertEquals(100.0, ExchangeUtils.convertPriceToDouble(result.getPrice(), DECIMAL_PRECISION));
+	}
+
+	@Test
+	void testSameResultAsVolumeMaximizationOnRandomBooks() {
+		Random random = new Random(42);
+		MatchingAlgo expectedAlgo = new VolumeMaximizationAlgo();
+		MatchingAlgo actualAlgo = new CumulativeVolumeMaximizationAlgo();
+		for (int i = 0; i < 200; i++) {
+			Exchange exchange = new Exchange();
+			int orders = 1 + random.nextInt(60);
+			for (int j = 0; j < orders; j++) {
+				long qty = 1 + random.nextInt(50) * 100;
+				double price = 95 + random.nextInt(11);
+				exchange.sendOrder(random.nextBoolean() ? createBuyOrder(qty, price) : createSellOrder(qty, price));
+			}
+			MatchingResult expected = exchange.runMatchingAlgo(expectedAlgo, DEFAULT_SYMBOL);
+			MatchingResult actual = exchange.runMatchingAlgo(actualAlgo, DEFAULT_SYMBOL);
+			assertEquals(expected.matched(), actual.matched());
+			assertEquals(expected.getVolume(), actual.getVolume());
+			assertEquals(expected.getPrice(), actual.getPrice());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.exchange.algo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.OrderBatch;
+import com.exchange.common.TestBase;
+import com.exchange.data.Order;
+import com.exchange.orderbook.OrderBook;
+
+class IndicativeVolumeMaximizationAlgoTest extends TestBase{
+
+	@Test
+	void testOnEmptyOrderBook() {
+		MatchingResult result = new IndicativeVolumeMaximizationAlgo().execute(new OrderBook(10));
+		assertFalse(result.matched());
+		assertEquals(0, result.getVolume());
+		assertEquals(0, result.getPrice());
+	}
+
+	@Test
+	void testIndicativeMatchFollowsOrdersAndCancels() {
+		Exchange exchange = new Exchange();
+		MatchingAlgo algo = new IndicativeVolumeMaximizationAlgo();
+		exchange.sendOrder(createBuyOrder(1000, 99.0));
+		Order sell = createSellOrder(2000, 100.0);
+		exchange.sendOrder(sell);
+		assertFalse(exchange.runMatchingAlgo(algo, DEFAULT_SYMBOL).matched());
+
+		Order buy = createBuyOrder(1500, 101.0);
+		exchange.sendOrder(buy);
+		MatchingResult result = exchange.runMatchingAlgo(algo, DEFAULT_SYMBOL);
+		assertTrue(result.matched());
+		assertEquals(1500, result.getVolume());
+		assertEquals(1010000, result.getPrice());
+
+		exchange.cancelOrder(sell.getOrderId());
+		assertFalse(exchange.runMatchingAlgo(algo, DEFAULT_SYMBOL).matched());
+	}
+
+	@Test
+	void testSameResultAsVolumeMaximizationAfterEveryUpdate() {
+		Random random = new Random(5);
+		MatchingAlgo expectedAlgo = new VolumeMaximizationAlgo();
+		MatchingAlgo actualAlgo = new IndicativeVolumeMaximizationAlgo();
+		Exchange exchange = new Exchange();
+		List<Order> liveOrders = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			int action = random.nextInt(10);
+			if (action < 6 || liveOrders.isEmpty()) {
+				long qty = 1 + random.nextInt(50) * 100;
+				double price = 95 + random.nextInt(11);
+				Order order = random.nextBoolean() ? createBuyOrder(qty, price) : createSellOrder(qty, price);
+				exchange.sendOrder(order);
+				liveOrders.add(order);
+			} else if (action < 9) {
+				exchange.cancelOrder(liveOrders.remove(random.nextInt(liveOrders.size())).getOrderId());
+			} else {
+				MatchingResult match = exchange.runMatchingAlgo(expectedAlgo, DEFAULT_SYMBOL);
+				if (match.matched())
+					exchange.executeMatch(DEFAULT_SYMBOL, match.getPrice(), match.getVolume());
+			}
+			MatchingResult expected = exchange.runMatchingAlgo(expectedAlgo, DEFAULT_SYMBOL);
+			MatchingResult actual = exchange.runMatchingAlgo(actualAlgo, DEFAULT_SYMBOL);
+			assertEquals(expected.matched(), actual.matched());
+			assertEquals(expected.getVolume(), actual.getVolume());
+			assertEquals(expected.getPrice(), actual.getPrice());
+		}
+	}
+
+	@Test
+	void testSameResultAsVolumeMaximizationWithDenseLadderBatchesAndPartialFills() {
+		Random random = new Random(11);
+		MatchingAlgo expectedAlgo = new VolumeMaximizationAlgo();
+		MatchingAlgo actualAlgo = new IndicativeVolumeMaximizationAlgo();
+		Exchange exchange = new Exchange(DECIMAL_PRECISION, 10, 1000, 1000, 64);
+		List<Order> liveOrders = new ArrayList<>();
+		OrderBatch batch = new OrderBatch();
+		for (int i = 0; i < 2000; i++) {
+			int action = random.nextInt(10);
+			if (action < 5 || liveOrders.isEmpty()) {
+				batch.clear();
+				for (int j = random.nextInt(8); j >= 0; j--) {
+					long qty = 1 + random.nextInt(50) * 100;
+					double price = 80 + random.nextInt(400) / 10.0;
+					Order order = random.nextBoolean() ? createBuyOrder(qty, price) : createSellOrder(qty, price);
+					batch.add(order);
+					liveOrders.add(order);
+				}
+				exchange.sendOrders(batch);
+			} else if (action < 8) {
+				exchange.cancelOrder(liveOrders.remove(random.nextInt(liveOrders.size())).getOrderId());
+			} else {
+				// Part of matched volume leaves partially filled orders on both sides
+				MatchingResult match = exchange.runMatchingAlgo(expectedAlgo, DEFAULT_SYMBOL);
+				if (match.matched())
+					exchange.executeMatch(DEFAULT_SYMBOL, match.getPrice(), 1 + match.getVolume() / 2);
+			}
+			MatchingResult expected = exchange.runMatchingAlgo(expectedAlgo, DEFAULT_SYMBOL);
+			MatchingResult actual = exchange.runMatchingAlgo(actualAlgo, DEFAULT_SYMBOL);
+			assertEquals(expected.matched(), actual.matched());
+			assertEquals(expected.getVolume(), actual.getVolume());
+			assertEquals(expected.getPrice(), actual.getPrice());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.exchange.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.algo.MatchingResult;
+import com.exchange.data.Execution;
+import com.exchange.data.ExecutionType;
+
+class ExecutionCodecTest {
+
+	@Test
+	void testExecutionsAreEncodedFromObjectsAndPrimitives() {
+		ByteBuffer buffer = ByteBuffer.allocate(ExecutionCodec.LENGTH * 2);
+		Execution execution = new Execution(7, 3, 400, 1010000, ExecutionType.PARTIAL);
+
+		ExecutionCodec codec = new ExecutionCodec();
+		codec.wrap(buffer, 0).encode(execution);
+		codec.wrap(buffer, ExecutionCodec.LENGTH).encode(5000000000L, 4, 600, 1000000, ExecutionType.FULL);
+
+		codec.wrap(buffer, 0);
+		assertEquals(execution.getExecutionId(), codec.executionId());
+		assertEquals(3, codec.orderId());
+		assertEquals(400, codec.quantity());
+		assertEquals(1010000, codec.price());
+		assertEquals(ExecutionType.PARTIAL, codec.execType());
+
+		codec.wrap(buffer, ExecutionCodec.LENGTH);
+		assertEquals(5000000000L, codec.executionId());
+		assertEquals(4, codec.orderId());
+		assertEquals(ExecutionType.FULL, codec.execType());
+	}
+
+	@Test
+	void testMatchingResultRoundTrip() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(MatchingResultCodec.LENGTH);
+		MatchingResultCodec codec = new MatchingResultCodec().wrap(buffer, 0).encode(new MatchingResult(true, 1010000, 2000));
+		MatchingResult result = codec.decode();
+		assertTrue(result.matched());
+		assertEquals(1010000, result.getPrice());
+		assertEquals(2000, result.getVolume());
+	}
+}
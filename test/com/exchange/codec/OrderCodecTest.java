@@ -0,0 +1,64 @@
+package com.exchange.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.common.TestBase;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+class OrderCodecTest extends TestBase {
+
+	@Test
+	void testOrdersAreEncodedAndDecodedInPlace() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(OrderCodec.LENGTH * 2);
+		Order buy = new Order(7, DEFAULT_SYMBOL, Side.Buy, 1000, 100.25);
+		buy.setTimestamp(123456789L);
+		Order sell = new Order(8, "0001.HK", Side.Sell, 500, 99.5);
+
+		OrderCodec codec = new OrderCodec();
+		codec.wrap(buffer, 0).encode(buy);
+		codec.wrap(buffer, OrderCodec.LENGTH).encode(sell);
+
+		codec.wrap(buffer, 0);
+		assertEquals(7, codec.orderId());
+		assertEquals(Side.Buy, codec.side());
+		assertEquals(1000, codec.quantity());
+		assertEquals(100.25, codec.price());
+		assertEquals(10025000000L, codec.scaledPrice());
+		assertEquals(8, codec.pricePrecision());
+		assertEquals(123456789L, codec.timestamp());
+		assertTrue(codec.symbolEquals(DEFAULT_SYMBOL));
+		assertFalse(codec.symbolEquals("0001.HK"));
+
+		Order decoded = codec.wrap(buffer, OrderCodec.LENGTH).decode();
+		assertEquals(8, decoded.getOrderId());
+		assertEquals("0001.HK", decoded.getSymbol());
+		assertEquals(Side.Sell, decoded.getSide());
+		assertEquals(500, decoded.getQuantity());
+		assertEquals(99.5, decoded.getPrice());
+	}
+
+	@Test
+	void testLayoutIsLittleEndianWhateverBufferOrder() {
+		ByteBuffer buffer = ByteBuffer.allocate(OrderCodec.LENGTH).order(ByteOrder.BIG_ENDIAN);
+		new OrderCodec().wrap(buffer, 0).orderId(0x01020304);
+		assertEquals(0x04, buffer.get(0));
+		assertEquals(0x01, buffer.get(3));
+		assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+	}
+
+	@Test
+	void testInvalidSymbolAndOffsetAreRejected() {
+		OrderCodec codec = new OrderCodec().wrap(ByteBuffer.allocate(OrderCodec.LENGTH), 0);
+		assertThrows(IllegalArgumentException.class, () -> codec.symbol("SYMBOL.LONGER.THAN.16"));
+		assertThrows(IndexOutOfBoundsException.class, () -> codec.wrap(ByteBuffer.allocate(OrderCodec.LENGTH), 1));
+	}
+}
@@ -0,0 +1,70 @@
+package com.exchange.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ExecutionIdAllocatorTest {
+
+	@Test
+	void testIdsAreUniqueAcrossThreadsAndIncreasingWithinThread() throws InterruptedException {
+		ExecutionIdAllocator allocator = new ExecutionIdAllocator(0, 16);
+		int threads = 4;
+		int idsPerThread = 10000;
+		long[][] ids = new long[threads][idsPerThread];
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			long[] threadIds = ids[t];
+			Thread worker = new Thread(() -> {
+				for (int i = 0; i < idsPerThread; i++)
+					threadIds[i] = allocator.nextId();
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+
+		Set<Long> seen = new HashSet<>();
+		for (long[] threadIds : ids) {
+			for (int i = 0; i < idsPerThread; i++) {
+				assertTrue(seen.add(threadIds[i]));
+				if (i > 0)
+					assertTrue(threadIds[i] > threadIds[i - 1]);
+			}
+		}
+		assertEquals(threads * idsPerThread, allocator.getReservedId());
+	}
+
+	@Test
+	void testListenerIsToldBlockEndBeforeIdsAreUsed() {
+		ExecutionIdAllocator allocator = new ExecutionIdAllocator(100, 10);
+		List<Long> blockEnds = new ArrayList<>();
+		allocator.setBlockListener(blockEnds::add);
+		assertEquals(100, allocator.nextId());
+		assertEquals(1, blockEnds.size());
+		assertEquals(110, (long) blockEnds.get(0));
+		for (int i = 1; i < 10; i++)
+			allocator.nextId();
+		assertEquals(1, blockEnds.size());
+		assertEquals(110, allocator.nextId());
+		assertEquals(120, (long) blockEnds.get(1));
+	}
+
+	@Test
+	void testAdvanceToOnlyMovesForward() {
+		ExecutionIdAllocator allocator = new ExecutionIdAllocator();
+		allocator.advanceTo(5000000000L);
+		allocator.advanceTo(10);
+		assertEquals(5000000000L, allocator.getReservedId());
+		assertEquals(5000000000L, allocator.nextId());
+		assertThrows(IllegalArgumentException.class, () -> new ExecutionIdAllocator(0, 0));
+	}
+}
@@ -0,0 +1,279 @@
+package com.exchange.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.algo.AuctionResult;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.common.TestBase;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+
+class ShardedExchangeTest extends TestBase {
+
+	@Test
+	void testOrdersFromManyThreadsAreAddedToOwningShard() throws Exception {
+		final int producers = 4;
+		final int ordersPerProducer = 5000;
+		final int symbols = 16;
+		// Small ring buffer so producers have to wait for shards to catch up
+		final ShardedExchange exchange = new ShardedExchange(4, 64, DECIMAL_PRECISION, symbols, producers * ordersPerProducer, 16);
+		exchange.start();
+
+		final CountDownLatch done = new CountDownLatch(producers * ordersPerProducer);
+		final AtomicInteger accepted = new AtomicInteger();
+		final OrderCallback callback = new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				if (success)
+					accepted.incrementAndGet();
+				done.countDown();
+			}
+		};
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < ordersPerProducer; i++) {
+						int orderId = producer * ordersPerProducer + i;
+						exchange.sendOrder(new Order(orderId, "SYM" + (orderId % symbols), Side.Buy, 100, 10.0 + i % 10), callback);
+					}
+				}
+			});
+			threads[p].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertTrue(done.await(30, TimeUnit.SECONDS));
+		exchange.shutdown();
+
+		assertEquals(producers * ordersPerProducer, accepted.get());
+		int total = 0;
+		for (int s = 0; s < symbols; s++) {
+			String symbol = "SYM" + s;
+			int shard = exchange.shardOf(symbol);
+			assertEquals(producers * ordersPerProducer / symbols, exchange.getShardExchange(shard).getBookForSymbol(symbol).getOrderCount());
+			total = total + exchange.getShardExchange(shard).getBookForSymbol(symbol).getOrderCount();
+		}
+		assertEquals(producers * ordersPerProducer, total);
+	}
+
+	@Test
+	void testCancelAndAuctionAreOrderedWithOrders() throws Exception {
+		ShardedExchange exchange = new ShardedExchange(2);
+		exchange.start();
+
+		final AtomicReferenceArray<Boolean> results = new AtomicReferenceArray<>(4);
+		OrderCallback callback = new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				results.set(orderId, success);
+			}
+		};
+		exchange.sendOrder(new Order(0, DEFAULT_SYMBOL, Side.Buy, 1000, 101.0), callback);
+		exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 500, 102.0), callback);
+		exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Sell, 1000, 100.0), callback);
+		exchange.cancelOrder(DEFAULT_SYMBOL, 1, callback);
+		// Order 3 does not exist
+		exchange.cancelOrder(DEFAULT_SYMBOL, 3, callback);
+
+		final CountDownLatch done = new CountDownLatch(1);
+		final AuctionResult[] auction = new AuctionResult[1];
+		exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL, new AuctionCallback() {
+			@Override
+			public void onComplete(AuctionResult result) {
+				auction[0] = result;
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		exchange.shutdown();
+
+		assertTrue(results.get(0));
+		// Order 1 was added and then cancelled
+		assertTrue(results.get(1));
+		assertTrue(results.get(2));
+		assertFalse(results.get(3));
+
+		assertEquals(DEFAULT_SYMBOL, auction[0].getSymbol());
+		assertTrue(auction[0].getMatchingResult().matched());
+		assertEquals(1000, auction[0].getMatchingResult().getVolume());
+		assertEquals(2, auction[0].getExecutions().size());
+		assertEquals(0, exchange.getShardExchange(exchange.shardOf(DEFAULT_SYMBOL)).getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+	}
+
+	@Test
+	void testShardKeepsRunningWhenCallbackThrows() throws Exception {
+		ShardedExchange exchange = new ShardedExchange(1);
+		final AtomicReference<RuntimeException> handled = new AtomicReference<>();
+		exchange.setErrorHandler(new ShardErrorHandler() {
+			@Override
+			public void onError(int shardId, RuntimeException error) {
+				handled.set(error);
+			}
+		});
+		exchange.start();
+
+		final RuntimeException failure = new IllegalStateException("callback failed");
+		final AtomicReference<RuntimeException> reported = new AtomicReference<>();
+		exchange.sendOrder(new Order(0, DEFAULT_SYMBOL, Side.Buy, 1000, 101.0), new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				throw failure;
+			}
+
+			@Override
+			public void onError(int orderId, RuntimeException error) {
+				reported.set(error);
+			}
+		});
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicInteger accepted = new AtomicInteger();
+		exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Sell, 1000, 102.0), new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				if (success)
+					accepted.incrementAndGet();
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		exchange.shutdown();
+
+		assertSame(failure, handled.get());
+		// Order was processed, so its callback got its result and no error as well
+		assertNull(reported.get());
+		assertEquals(1, accepted.get());
+		assertEquals(2, exchange.getShardExchange(0).getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+	}
+
+	@Test
+	void testNullCallbackIsRejectedWhenSent() throws Exception {
+		ShardedExchange exchange = new ShardedExchange(1);
+		exchange.start();
+		assertThrows(NullPointerException.class, () -> exchange.sendOrder(new Order(0, DEFAULT_SYMBOL, Side.Buy, 1000, 101.0), null));
+		assertThrows(NullPointerException.class, () -> exchange.cancelOrder(DEFAULT_SYMBOL, 0, null));
+		assertThrows(NullPointerException.class, () -> exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL, null));
+		exchange.shutdown();
+		assertEquals(null, exchange.getShardExchange(0).getBookForSymbol(DEFAULT_SYMBOL));
+	}
+
+	@Test
+	void testExchangeCannotBeUsedAfterShutdown() throws Exception {
+		ShardedExchange exchange = new ShardedExchange(2);
+		exchange.start();
+		exchange.shutdown();
+		assertThrows(IllegalStateException.class, () -> exchange.start());
+		assertThrows(IllegalStateException.class, () -> exchange.sendOrder(new Order(0, DEFAULT_SYMBOL, Side.Buy, 1000, 101.0), new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+			}
+		}));
+	}
+
+	@Test
+	void testFailureInExchangeIsReportedThroughOnError() throws Exception {
+		ShardedExchange exchange = new ShardedExchange(1);
+		final AtomicInteger handled = new AtomicInteger();
+		exchange.setErrorHandler(new ShardErrorHandler() {
+			@Override
+			public void onError(int shardId, RuntimeException error) {
+				handled.incrementAndGet();
+			}
+		});
+		exchange.start();
+		exchange.sendOrder(new Order(0, DEFAULT_SYMBOL, Side.Buy, 1000, 101.0), new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+			}
+		});
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicInteger completed = new AtomicInteger();
+		exchange.runAuction(new MatchingAlgo() {
+			@Override
+			public String name() {
+				return "Failing";
+			}
+
+			@Override
+			public MatchingResult execute(OrderBook orderBook) {
+				throw new IllegalStateException("algo failed");
+			}
+		}, DEFAULT_SYMBOL, new AuctionCallback() {
+			@Override
+			public void onComplete(AuctionResult result) {
+				completed.incrementAndGet();
+			}
+
+			@Override
+			public void onError(String symbol, RuntimeException error) {
+				done.countDown();
+			}
+		});
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		exchange.shutdown();
+		assertEquals(0, completed.get());
+		assertEquals(1, handled.get());
+		assertEquals(1, exchange.getShardExchange(0).getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+	}
+
+	@Test
+	void testEveryRequestSentDuringShutdownGetsCallbackOrIsRejected() throws Exception {
+		final int producers = 4;
+		// Small ring so producers are waiting for room when shutdown starts
+		final ShardedExchange exchange = new ShardedExchange(2, 8, DECIMAL_PRECISION, 16, 100000, 16);
+		exchange.start();
+		final AtomicInteger sent = new AtomicInteger();
+		final AtomicInteger completed = new AtomicInteger();
+		final OrderCallback callback = new OrderCallback() {
+			@Override
+			public void onComplete(int orderId, boolean success) {
+				completed.incrementAndGet();
+			}
+		};
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0;; i++) {
+							int orderId = producer * 1000000 + i;
+							exchange.sendOrder(new Order(orderId, "SYM" + (i % 16), Side.Buy, 100, 10.0 + i % 10), callback);
+							sent.incrementAndGet();
+						}
+					} catch (IllegalStateException e) {
+						// Exchange was shut down
+					}
+				}
+			});
+			threads[p].start();
+		}
+		while (sent.get() < 1000)
+			Thread.yield();
+		exchange.shutdown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+			assertFalse(thread.isAlive());
+		}
+		assertEquals(sent.get(), completed.get());
+	}
+}
@@ -0,0 +1,234 @@
+package com.exchange.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.common.TestBase;
+import com.exchange.data.ExecutionType;
+import com.exchange.data.Side;
+import com.exchange.orderbook.OrderBook;
+import com.exchange.util.IntObjectHashMap;
+
+class OrderGatewayTest extends TestBase {
+
+	private static final byte[] SYMBOL = DEFAULT_SYMBOL.getBytes(StandardCharsets.US_ASCII);
+
+	private Exchange exchange;
+	private OrderGateway gateway;
+
+	@BeforeEach
+	void startGateway() throws IOException {
+		exchange = new Exchange();
+		gateway = new OrderGateway(exchange, new CumulativeVolumeMaximizationAlgo(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		gateway.start();
+	}
+
+	@AfterEach
+	void stopGateway() throws IOException {
+		gateway.close();
+	}
+
+	private SocketChannel connect() throws IOException {
+		return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), gateway.getPort()));
+	}
+
+	private static void send(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/** @return body of next message, positioned after message type */
+	private static ByteBuffer receive(SocketChannel channel, byte expectedType) throws IOException {
+		ByteBuffer length = ByteBuffer.allocate(GatewayProtocol.LENGTH_SIZE);
+		while (length.hasRemaining())
+			assertTrue(channel.read(length) >= 0);
+		ByteBuffer body = ByteBuffer.allocate(length.getShort(0));
+		while (body.hasRemaining())
+			assertTrue(channel.read(body) >= 0);
+		body.flip();
+		assertEquals(expectedType, body.get());
+		return body;
+	}
+
+	private static void assertAck(SocketChannel channel, int orderId, byte requestType, boolean success) throws IOException {
+		ByteBuffer ack = receive(channel, GatewayProtocol.ACK);
+		assertEquals(orderId, ack.getInt());
+		assertEquals(requestType, ack.get());
+		assertEquals(success ? 1 : 0, ack.get());
+	}
+
+	@Test
+	void testOrdersAreAckedAndExecutionsSentToOwningSessions() throws IOException {
+		try (SocketChannel buyer = connect(); SocketChannel seller = connect()) {
+			ByteBuffer buffer = ByteBuffer.allocate(1024);
+			// Two orders in one write are decoded from same read
+			GatewayProtocol.putNewOrder(buffer, 1, Side.Buy, 1000, 1010000, SYMBOL);
+			GatewayProtocol.putNewOrder(buffer, 2, Side.Buy, 500, 990000, SYMBOL);
+			send(buyer, buffer);
+			assertAck(buyer, 1, GatewayProtocol.NEW_ORDER, true);
+			assertAck(buyer, 2, GatewayProtocol.NEW_ORDER, true);
+
+			GatewayProtocol.putNewOrder(buffer, 3, Side.Sell, 600, 1000000, SYMBOL);
+			// Duplicate order id is rejected
+			GatewayProtocol.putNewOrder(buffer, 1, Side.Sell, 600, 1000000, SYMBOL);
+			send(seller, buffer);
+			assertAck(seller, 3, GatewayProtocol.NEW_ORDER, true);
+			assertAck(seller, 1, GatewayProtocol.NEW_ORDER, false);
+
+			// Seller can not cancel buyer's order
+			GatewayProtocol.putCancelOrder(buffer, 2);
+			GatewayProtocol.putAuction(buffer, SYMBOL);
+			send(seller, buffer);
+			assertAck(seller, 2, GatewayProtocol.CANCEL_ORDER, false);
+
+			// Buy side is executed first, so buyer's fill has first id of exchange
+			ByteBuffer execution = receive(seller, GatewayProtocol.EXECUTION);
+			assertEquals(1, execution.getLong());
+			assertEquals(3, execution.getInt());
+			assertEquals(600, execution.getLong());
+			assertEquals(1010000, execution.getLong());
+			assertEquals(ExecutionType.FULL, GatewayProtocol.decodeExecutionType(execution.get()));
+
+			ByteBuffer result = receive(seller, GatewayProtocol.AUCTION_RESULT);
+			assertEquals(1, result.get());
+			assertEquals(1010000, result.getLong());
+			assertEquals(600, result.getLong());
+
+			execution = receive(buyer, GatewayProtocol.EXECUTION);
+			assertEquals(0, execution.getLong());
+			assertEquals(1, execution.getInt());
+			assertEquals(600, execution.getLong());
+			assertEquals(1010000, execution.getLong());
+			assertEquals(ExecutionType.PARTIAL, GatewayProtocol.decodeExecutionType(execution.get()));
+
+			GatewayProtocol.putCancelOrder(buffer, 2);
+			send(buyer, buffer);
+			assertAck(buyer, 2, GatewayProtocol.CANCEL_ORDER, true);
+			assertEquals(1, exchange.getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+		}
+	}
+
+	@Test
+	void testMalformedMessageClosesOnlyThatSession() throws IOException {
+		try (SocketChannel bad = connect(); SocketChannel good = connect()) {
+			ByteBuffer buffer = ByteBuffer.allocate(1024);
+			buffer.putShort((short) 3).put((byte) 99).putShort((short) 0);
+			send(bad, buffer);
+			assertEquals(-1, bad.read(ByteBuffer.allocate(16)));
+
+			GatewayProtocol.putNewOrder(buffer, 7, Side.Buy, 100, 100000, SYMBOL);
+			send(good, buffer);
+			assertAck(good, 7, GatewayProtocol.NEW_ORDER, true);
+			assertFalse(exchange.getBookForSymbol(DEFAULT_SYMBOL).getBids().isEmpty());
+		}
+	}
+
+	@Test
+	void testRequestFailingInExchangeClosesOnlyThatSession() throws IOException {
+		gateway.close();
+		gateway = new OrderGateway(exchange, new MatchingAlgo() {
+			@Override
+			public String name() {
+				return "Failing";
+			}
+
+			@Override
+			public MatchingResult execute(OrderBook orderBook) {
+				throw new IllegalStateException("algo failed");
+			}
+		}, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		gateway.start();
+		try (SocketChannel bad = connect(); SocketChannel good = connect()) {
+			ByteBuffer buffer = ByteBuffer.allocate(1024);
+			GatewayProtocol.putNewOrder(buffer, 1, Side.Buy, 100, 100000, SYMBOL);
+			send(bad, buffer);
+			assertAck(bad, 1, GatewayProtocol.NEW_ORDER, true);
+			GatewayProtocol.putAuction(buffer, SYMBOL);
+			send(bad, buffer);
+			assertEquals(-1, bad.read(ByteBuffer.allocate(16)));
+
+			GatewayProtocol.putNewOrder(buffer, 2, Side.Sell, 100, 100000, SYMBOL);
+			send(good, buffer);
+			assertAck(good, 2, GatewayProtocol.NEW_ORDER, true);
+		}
+	}
+
+	@Test
+	void testOrdersForSymbolsBeyondMaximumAreRejected() throws IOException {
+		gateway.close();
+		gateway = new OrderGateway(exchange, new CumulativeVolumeMaximizationAlgo(),
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), OrderGateway.DEFAULT_SESSION_BUFFER_SIZE, 2);
+		gateway.start();
+		try (SocketChannel client = connect()) {
+			ByteBuffer buffer = ByteBuffer.allocate(1024);
+			GatewayProtocol.putNewOrder(buffer, 1, Side.Buy, 100, 100000, "A".getBytes(StandardCharsets.US_ASCII));
+			GatewayProtocol.putNewOrder(buffer, 2, Side.Buy, 100, 100000, "B".getBytes(StandardCharsets.US_ASCII));
+			GatewayProtocol.putNewOrder(buffer, 3, Side.Buy, 100, 100000, "C".getBytes(StandardCharsets.US_ASCII));
+			GatewayProtocol.putNewOrder(buffer, 4, Side.Buy, 100, 100000, "A".getBytes(StandardCharsets.US_ASCII));
+			send(client, buffer);
+			assertAck(client, 1, GatewayProtocol.NEW_ORDER, true);
+			assertAck(client, 2, GatewayProtocol.NEW_ORDER, true);
+			assertAck(client, 3, GatewayProtocol.NEW_ORDER, false);
+			assertAck(client, 4, GatewayProtocol.NEW_ORDER, true);
+			assertEquals(null, exchange.getBookForSymbol("C"));
+			assertEquals(2, exchange.getBookForSymbol("A").getOrderCount());
+		}
+	}
+
+	@Test
+	void testSessionIsClosedWhenPendingOutputExceedsMaximum() throws IOException {
+		try (Selector selector = Selector.open(); SocketChannel channel = SocketChannel.open()) {
+			channel.configureBlocking(false);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			GatewaySession session = new GatewaySession(channel, key, 64, 256, new IntObjectHashMap<GatewaySession>(16));
+			// Output is never flushed, as for a client which stopped reading
+			for (int i = 0; i < 16; i++)
+				assertNotNull(session.reserve(16).put(new byte[16]));
+			assertNull(session.reserve(16));
+			assertTrue(session.isClosed());
+			assertFalse(channel.isOpen());
+		}
+	}
+
+	@Test
+	void testClosedSessionNoLongerOwnsItsOrders() throws IOException {
+		try (Selector selector = Selector.open(); SocketChannel channel = SocketChannel.open()) {
+			channel.configureBlocking(false);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			IntObjectHashMap<GatewaySession> orderOwners = new IntObjectHashMap<>(16);
+			GatewaySession session = new GatewaySession(channel, key, 64, 256, orderOwners);
+			session.addOrder(1);
+			session.addOrder(2);
+			session.addOrder(3);
+			session.removeOrder(2);
+			assertEquals(2, orderOwners.size());
+			assertSame(session, orderOwners.get(3));
+
+			session.close();
+			assertEquals(0, orderOwners.size());
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.exchange.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.exchange.Exchange;
+import com.exchange.OrderBatch;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.common.TestBase;
+import com.exchange.data.Execution;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+class JournalTest extends TestBase {
+
+	private static final String[] SYMBOLS = { "0001.HK", "0005.HK", "0700.HK" };
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testReplayRebuildsSameBooks() throws IOException {
+		Exchange exchange = new Exchange();
+		// Small segments so that journal rolls over many files
+		Journal journal = new Journal(directory, 4096, SyncPolicy.BATCH, 10);
+		exchange.setJournal(journal);
+
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			Side side = random.nextBoolean() ? Side.Buy : Side.Sell;
+			exchange.sendOrder(new Order(i, SYMBOLS[i % SYMBOLS.length], side, 100 + random.nextInt(10) * 100, 95 + random.nextInt(10)));
+			if (i % 5 == 4)
+				exchange.cancelOrder(i - 2);
+		}
+		// Rejected requests are not journalled
+		assertFalse(exchange.sendOrder(new Order(1, SYMBOLS[0], Side.Buy, 100, 100.0)));
+		assertFalse(exchange.cancelOrder(2));
+		exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), SYMBOLS[0]);
+		exchange.executeMatch(SYMBOLS[1], 1000000, 500);
+		long records = journal.getSequence();
+		journal.close();
+
+		Exchange replayed = new Exchange();
+		assertEquals(records, JournalReplayer.replay(directory, replayed));
+		for (String symbol : SYMBOLS) {
+			assertEquals(exchange.getBookForSymbol(symbol).getOrderCount(), replayed.getBookForSymbol(symbol).getOrderCount());
+			assertEquals(exchange.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), replayed.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+		}
+		// Order store is rebuilt as well
+		assertFalse(replayed.sendOrder(new Order(0, SYMBOLS[0], Side.Buy, 100, 100.0)));
+		assertTrue(JournalReplayer.segments(directory).size() > 10);
+	}
+
+	@Test
+	void testReplayKeepsTimestampsAndQueueOrder() throws IOException, InterruptedException {
+		Exchange exchange = new Exchange();
+		Journal journal = new Journal(directory, 4096, SyncPolicy.NONE, 1);
+		exchange.setJournal(journal);
+		for (int i = 0; i < 6; i++) {
+			exchange.sendOrder(new Order(i, DEFAULT_SYMBOL, i % 2 == 0 ? Side.Buy : Side.Sell, 100, 100.0));
+			// Each order is received at a different time
+			Thread.sleep(2);
+		}
+		exchange.setJournal(null);
+		journal.close();
+
+		Exchange replayed = new Exchange();
+		JournalReplayer.replay(directory, replayed);
+		for (int i = 0; i < 6; i++)
+			assertEquals(exchange.getOrder(i).getTimestamp(), replayed.getOrder(i).getTimestamp());
+		List<Execution> expected = exchange.executeMatch(DEFAULT_SYMBOL, 1000000, 300);
+		List<Execution> actual = replayed.executeMatch(DEFAULT_SYMBOL, 1000000, 300);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertEquals(expected.get(i).getOrderId(), actual.get(i).getOrderId());
+	}
+
+	@Test
+	void testReopenedJournalContinuesSequenceInNewSegment() throws IOException {
+		Exchange exchange = new Exchange();
+		Journal journal = new Journal(directory, 4096, SyncPolicy.ALWAYS, 1);
+		exchange.setJournal(journal);
+		exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0));
+		exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Sell, 1000, 101.0));
+		journal.close();
+
+		// Restart, state is replayed before journal is attached again
+		exchange = new Exchange();
+		assertEquals(2, JournalReplayer.replay(directory, exchange));
+		journal = new Journal(directory, 4096, SyncPolicy.NONE, 1);
+		assertEquals(2, journal.getSequence());
+		exchange.setJournal(journal);
+		assertTrue(exchange.cancelOrder(1));
+		journal.close();
+
+		exchange = new Exchange();
+		assertEquals(3, JournalReplayer.replay(directory, exchange));
+		assertEquals(2, JournalReplayer.segments(directory).size());
+		assertOrderBookAsExpected("Buy		|	Sell		\n" +
+								"		 	| 1000@101.0	\n", exchange.getBookForSymbol(DEFAULT_SYMBOL));
+	}
+
+	@Test
+	void testExecutionIdsAreNotReusedAfterReplay() throws IOException {
+		Exchange exchange = new Exchange();
+		Journal journal = new Journal(directory, 4096, SyncPolicy.NONE, 1);
+		exchange.setJournal(journal);
+		exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0));
+		exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Sell, 1000, 100.0));
+		long usedId = exchange.executeMatch(DEFAULT_SYMBOL, 1000000, 1000).get(1).getExecutionId();
+		journal.close();
+
+		Exchange replayed = new Exchange();
+		JournalReplayer.replay(directory, replayed);
+		replayed.sendOrder(new Order(3, DEFAULT_SYMBOL, Side.Buy, 500, 100.0));
+		replayed.sendOrder(new Order(4, DEFAULT_SYMBOL, Side.Sell, 500, 100.0));
+		assertTrue(replayed.executeMatch(DEFAULT_SYMBOL, 1000000, 500).get(0).getExecutionId() > usedId);
+	}
+
+	@Test
+	void testExecutionIdsUsedBeforeJournalIsAttachedAreNotReused() throws IOException {
+		Exchange exchange = new Exchange();
+		exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0));
+		exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Sell, 1000, 100.0));
+		long usedId = exchange.executeMatch(DEFAULT_SYMBOL, 1000000, 1000).get(1).getExecutionId();
+		// Journal attached after state was restored, e.g. from a snapshot
+		Journal journal = new Journal(directory, 4096, SyncPolicy.NONE, 1);
+		exchange.setJournal(journal);
+		journal.close();
+
+		Exchange replayed = new Exchange();
+		JournalReplayer.replay(directory, replayed);
+		assertTrue(replayed.getExecutionIds().nextId() > usedId);
+	}
+
+	@Test
+	void testBatchedOrdersReplayToSameBooks() throws IOException {
+		Exchange exchange = new Exchange();
+		Journal journal = new Journal(directory, 1 << 16, SyncPolicy.NONE, 1);
+		exchange.setJournal(journal);
+		OrderBatch batch = new OrderBatch();
+		for (int i = 0; i < 300; i++)
+			batch.add(new Order(i, SYMBOLS[i % SYMBOLS.length], i % 2 == 0 ? Side.Buy : Side.Sell, 100 + i, 95 + i % 10));
+		assertEquals(300, exchange.sendOrders(batch));
+		batch.clear();
+		for (int i = 0; i < 300; i += 4)
+			batch.add(new Order(i, SYMBOLS[i % SYMBOLS.length], i % 2 == 0 ? Side.Buy : Side.Sell, 100 + i, 95 + i % 10));
+		assertEquals(75, exchange.cancelOrders(batch));
+		journal.close();
+
+		Exchange replayed = new Exchange();
+		assertEquals(375, JournalReplayer.replay(directory, replayed));
+		for (String symbol : SYMBOLS)
+			assertEquals(exchange.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), replayed.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+	}
+}
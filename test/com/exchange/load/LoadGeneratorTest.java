@@ -0,0 +1,45 @@
+package com.exchange.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.common.TestBase;
+
+class LoadGeneratorTest extends TestBase {
+
+	@Test
+	void testSameSeedGivesSameBooks() {
+		LoadProfile profile = new LoadProfile().setSeed(11).setSymbolCount(3).setCancelRatio(0.4);
+		Exchange first = new Exchange(DECIMAL_PRECISION);
+		Exchange second = new Exchange(DECIMAL_PRECISION);
+		OrderFlow firstFlow = new OrderFlow(profile, DECIMAL_PRECISION);
+		OrderFlow secondFlow = new OrderFlow(profile, DECIMAL_PRECISION);
+		for (int i = 0; i < 5000; i++) {
+			firstFlow.sendNext(first);
+			secondFlow.sendNext(second);
+		}
+
+		assertEquals(5000, firstFlow.getNewOrders() + firstFlow.getCancels());
+		assertEquals(firstFlow.getNewOrders() - firstFlow.getCancels() - firstFlow.getRejected(), firstFlow.getOpenOrderCount());
+		for (String symbol : firstFlow.getSymbols())
+			assertEquals(first.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION), second.getBookForSymbol(symbol).printBook(DECIMAL_PRECISION));
+	}
+
+	@Test
+	void testRunsAtTargetRate() {
+		LoadProfile profile = new LoadProfile().setRatePerSecond(20000).setWarmupMillis(100).setDurationMillis(500).setCancelRatio(0.2);
+		LoadReport report = LoadGenerator.run(new Exchange(DECIMAL_PRECISION), profile);
+
+		// Requests due after warmup are measured, each is recorded in both histograms
+		assertEquals(10000, report.getMeasuredRequests());
+		assertEquals(report.getMeasuredRequests(), report.getLatency().getCount());
+		assertEquals(report.getMeasuredRequests(), report.getServiceTime().getCount());
+		assertEquals(12000, report.getNewOrders() + report.getCancels());
+		assertTrue(report.getThroughput() > 0 && report.getThroughput() <= 20000 * 1.01);
+		// Latency from intended time is never below service time
+		assertTrue(report.getLatency().getValueAtPercentile(99) >= report.getServiceTime().getValueAtPercentile(99));
+	}
+}
@@ -0,0 +1,86 @@
+package com.exchange.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.common.TestBase;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+class ExchangeMetricsTest extends TestBase {
+
+	@Test
+	void testOperationsAreRecorded() {
+		Exchange exchange = new Exchange();
+		RecordingExchangeMetrics metrics = new RecordingExchangeMetrics();
+		exchange.setMetrics(metrics);
+
+		assertTrue(exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 10.0)));
+		assertTrue(exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Sell, 400, 10.0)));
+		assertTrue(exchange.sendOrder(new Order(3, DEFAULT_SYMBOL, Side.Sell, 400, 11.0)));
+		assertFalse(exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 10.0)));
+		assertFalse(exchange.sendOrder(new Order(4, DEFAULT_SYMBOL, Side.Buy, 1000, -10.0)));
+		assertFalse(exchange.sendOrder(new Order(5, DEFAULT_SYMBOL, Side.Buy, 0, 10.0)));
+		assertTrue(exchange.cancelOrder(3));
+		assertFalse(exchange.cancelOrder(3));
+		exchange.runAuction(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+
+		assertEquals(3, metrics.getOrdersAccepted());
+		assertEquals(1, metrics.getOrdersRejected(RejectReason.DUPLICATE_ORDER_ID));
+		assertEquals(1, metrics.getOrdersRejected(RejectReason.INVALID_PRICE));
+		assertEquals(1, metrics.getOrdersRejected(RejectReason.INVALID_QUANTITY));
+		assertEquals(1, metrics.getCancelsAccepted());
+		assertEquals(1, metrics.getCancelsRejected());
+		assertEquals(2, metrics.getExecutions());
+		assertEquals(6, metrics.getLatencyHistogram(Operation.SEND_ORDER).getCount());
+		assertEquals(2, metrics.getLatencyHistogram(Operation.CANCEL_ORDER).getCount());
+		assertEquals(1, metrics.getLatencyHistogram(Operation.RUN_MATCHING_ALGO).getCount());
+		assertEquals(1, metrics.getLatencyHistogram(Operation.EXECUTE_MATCH).getCount());
+
+		// Nothing is recorded once metrics are detached
+		exchange.setMetrics(null);
+		exchange.sendOrder(new Order(6, DEFAULT_SYMBOL, Side.Buy, 1000, 10.0));
+		assertEquals(3, metrics.getOrdersAccepted());
+	}
+
+	@Test
+	void testMetricsReadThroughJmx() throws Exception {
+		Exchange exchange = new Exchange();
+		RecordingExchangeMetrics metrics = new RecordingExchangeMetrics();
+		ObjectName name = ExchangeMetricsBean.register(exchange, metrics, "ExchangeMetricsTest");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 10.0));
+			exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Buy, 1000, 9.0));
+			exchange.sendOrder(new Order(3, "0001.HK", Side.Sell, 1000, 11.0));
+
+			assertEquals(3L, server.getAttribute(name, "OrdersAccepted"));
+			assertEquals(2L, tabularValue(server.getAttribute(name, "OpenOrders"), DEFAULT_SYMBOL));
+			assertEquals(2L, tabularValue(server.getAttribute(name, "PriceLevels"), DEFAULT_SYMBOL));
+			assertEquals(1L, tabularValue(server.getAttribute(name, "PriceLevels"), "0001.HK"));
+			assertEquals(3L, tabularValue(server.getAttribute(name, "LatencyNanos"), "SEND_ORDER.count"));
+
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, server.getAttribute(name, "OrdersAccepted"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	private static Object tabularValue(Object attribute, String key) {
+		CompositeData row = ((TabularData) attribute).get(new Object[] { key });
+		return row == null ? null : row.get("value");
+	}
+}
@@ -0,0 +1,53 @@
+package com.exchange.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	@Test
+	void testPercentilesWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram(1000000000L);
+		for (long value = 1; value <= 100000; value++)
+			histogram.record(value);
+
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0.001);
+		assertWithinPercent(50000, histogram.getValueAtPercentile(50));
+		assertWithinPercent(99000, histogram.getValueAtPercentile(99));
+		assertWithinPercent(99900, histogram.getValueAtPercentile(99.9));
+		assertEquals(100000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram(1000);
+		histogram.record(3);
+		histogram.record(7);
+		histogram.record(200);
+		assertEquals(3, histogram.getValueAtPercentile(30));
+		assertEquals(7, histogram.getValueAtPercentile(60));
+		assertEquals(200, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	void testValuesAboveHighestAreClamped() {
+		LatencyHistogram histogram = new LatencyHistogram(1000);
+		histogram.record(5000);
+		histogram.record(-1);
+		assertEquals(1000, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertEquals(1000, histogram.getValueAtPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	private static void assertWithinPercent(long expected, long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected / 100, "Expected " + expected + " but was " + actual);
+	}
+}
@@ -0,0 +1,145 @@
+package com.exchange.orderbook;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.Exchange;
+import com.exchange.algo.CumulativeVolumeMaximizationAlgo;
+import com.exchange.algo.MatchingResult;
+import com.exchange.common.TestBase;
+import com.exchange.data.Order;
+import com.exchange.data.Side;
+
+class DensePriceLadderTest extends TestBase {
+
+	@Test
+	void testNavigationWithinWindow() {
+		PriceLadder<String> ladder = new DensePriceLadder<>(Side.Buy, 1000, 5, 64);
+		ladder.put(1000, "1000");
+		ladder.put(1010, "1010");
+		ladder.put(990, "990");
+
+		assertEquals(3, ladder.size());
+		assertEquals(1010, ladder.best());
+		assertEquals(990, ladder.worst());
+		assertEquals(1000, ladder.next(1010));
+		assertEquals(1000, ladder.next(1007));
+		assertEquals(1010, ladder.previous(1000));
+		assertEquals(PriceIndex.NULL_PRICE, ladder.next(990));
+		assertEquals("1010", ladder.get(1010));
+		assertNull(ladder.get(1005));
+		assertFalse(ladder.contains(1003));
+	}
+
+	@Test
+	void testPriceNotOnTickIsRejected() {
+		PriceLadder<String> ladder = new DensePriceLadder<>(Side.Sell, 1000, 5, 64);
+		assertThrows(IllegalArgumentException.class, () -> ladder.put(1003, "1003"));
+	}
+
+	@Test
+	void testWindowRecentredWhenPriceMovesOutside() {
+		PriceLadder<String> ladder = new DensePriceLadder<>(Side.Sell, 1000, 1, 64);
+		ladder.put(1000, "1000");
+		ladder.put(5000, "5000");
+		ladder.put(10, "10");
+
+		assertEquals(10, ladder.best());
+		assertEquals(1000, ladder.next(10));
+		assertEquals(5000, ladder.next(1000));
+		assertEquals("5000", ladder.remove(5000));
+		assertEquals(1000, ladder.worst());
+		assertEquals("1000", ladder.get(1000));
+	}
+
+	@Test
+	void testPricesBeyondMaximumBandAreNotAccepted() {
+		PriceLadder<String> ladder = new DensePriceLadder<>(Side.Buy, 1000, 1, 64, 1000);
+		assertTrue(ladder.accepts(5));
+		ladder.put(1000, "1000");
+		assertTrue(ladder.accepts(1999));
+		assertFalse(ladder.accepts(2000));
+		assertFalse(ladder.accepts(Long.MAX_VALUE));
+		assertThrows(IllegalArgumentException.class, () -> ladder.put(2000, "2000"));
+		ladder.put(1999, "1999");
+		assertEquals(1999, ladder.best());
+		assertEquals(1000, ladder.worst());
+		assertEquals(2, ladder.size());
+
+		// Extreme prices do not overflow window
+		PriceLadder<String> extreme = new DensePriceLadder<>(Side.Sell, Long.MAX_VALUE - 10, 1, 64);
+		extreme.put(Long.MAX_VALUE - 1, "max");
+		assertEquals(Long.MAX_VALUE - 1, extreme.best());
+		assertFalse(extreme.accepts(1));
+		assertThrows(IllegalArgumentException.class, () -> new DensePriceLadder<String>(Side.Buy, 1000, 1, 64, 32));
+	}
+
+	@Test
+	void testSameNavigationAsSortedArrayLadder() {
+		Random random = new Random(7);
+		for (Side side : Side.values()) {
+			PriceLadder<Long> dense = new DensePriceLadder<>(side, 500, 1, 64);
+			PriceLadder<Long> sorted = new SortedArrayPriceLadder<>(side, 4);
+			for (int i = 0; i < 5000; i++) {
+				long price = 1 + random.nextInt(1000);
+				if (random.nextInt(3) == 0) {
+					assertEquals(sorted.remove(price), dense.remove(price));
+				} else {
+					dense.put(price, price);
+					sorted.put(price, price);
+				}
+				long probe = random.nextInt(1100);
+				assertEquals(sorted.size(), dense.size());
+				assertEquals(sorted.best(), dense.best());
+				assertEquals(sorted.worst(), dense.worst());
+				assertEquals(sorted.next(probe), dense.next(probe));
+				assertEquals(sorted.previous(probe), dense.previous(probe));
+				assertEquals(sorted.contains(probe), dense.contains(probe));
+			}
+		}
+	}
+
+	@Test
+	void testExchangeWithDensePriceLadder() {
+		Exchange exchange = new Exchange(DECIMAL_PRECISION, 10, 10, 10, 128);
+		exchange.sendOrder(createBuyOrder(1000, 99.0));
+		exchange.sendOrder(createBuyOrder(1000, 100.0));
+		exchange.sendOrder(createBuyOrder(1000, 101.0));
+		exchange.sendOrder(createBuyOrder(1000, 102.0));
+		exchange.sendOrder(createSellOrder(2000, 100.0));
+
+		assertOrderBookAsExpected("Buy		 |	Sell			\n" + 
+								"1000@102.0	 | 		 		\n" + 
+								"1000@101.0	 | 		 		\n" + 
+								"1000@100.0	 | 2000@100.0	\n" + 
+								"1000@99.0	 | 		 		\n", exchange.getBookForSymbol(DEFAULT_SYMBOL));
+
+		MatchingResult result = exchange.runMatchingAlgo(new CumulativeVolumeMaximizationAlgo(), DEFAULT_SYMBOL);
+		assertTrue(result.matched());
+		assertEquals(2000, result.getVolume());
+		assertEquals(1010000, result.getPrice());
+		assertEquals(3, exchange.executeMatch(DEFAULT_SYMBOL, result.getPrice(), result.getVolume()).size());
+	}
+
+	@Test
+	void testExchangeRejectsPriceBeyondMaximumBandAndKeepsBookIntact() {
+		Exchange exchange = new Exchange(DECIMAL_PRECISION, 10, 10, 10, 128, 1000);
+		assertTrue(exchange.sendOrder(new Order(1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0)));
+		// 100000 ticks away from resting order on same side
+		assertFalse(exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Buy, 1000, 110.0)));
+		assertEquals(1, exchange.getBookForSymbol(DEFAULT_SYMBOL).getOrderCount());
+
+		// Book refuses price beyond band too, without leaving entry behind
+		OrderBook book = exchange.getBookForSymbol(DEFAULT_SYMBOL);
+		assertFalse(book.addOrder(new Order(3, DEFAULT_SYMBOL, Side.Buy, 1000, 0), 1100000));
+		assertEquals(1, book.getOrderCount());
+		assertTrue(book.addOrder(new Order(3, DEFAULT_SYMBOL, Side.Buy, 1000, 0), 1000100));
+
+		// Rejected order id is not used up
+		assertTrue(exchange.sendOrder(new Order(2, DEFAULT_SYMBOL, Side.Buy, 1000, 100.05)));
+		assertEquals(3, book.getOrderCount());
+	}
+}
@@ -5,12 +5,15 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
 import com.exchange.common.TestBase;
 import com.exchange.data.Execution;
+import com.exchange.data.ExecutionIdAllocator;
 import com.exchange.data.Order;
+import com.exchange.data.Side;
 import com.exchange.util.ExchangeUtils;
 
 class OrderBookTest extends TestBase{
@@ -93,7 +96,7 @@ class OrderBookTest extends TestBase{
 				"		 		| 6000@100.0003	\n" + 
 				"		 		| 2000@100.0002	\n" + 
 				"6000@100.0001	| 2000@100.0001	", orderBook);
-		List<Execution> execs = orderBook.execute(1000001l, 2000);
+		List<Execution> execs = orderBook.execute(1000001l, 2000, new ExecutionIdAllocator());
 		assertEquals(2, execs.size());
 	}
 	
@@ -111,7 +114,7 @@ class OrderBookTest extends TestBase{
 		assertOrderBookAsExpected(
 				"Buy				|	Sell			\n" + 
 				"4000@100.0004	 | 2000@100.0004	\n", orderBook);
-		List<Execution> execs = orderBook.execute(1000004, 2000);
+		List<Execution> execs = orderBook.execute(1000004, 2000, new ExecutionIdAllocator());
 		assertEquals(2, execs.size());
 		assertEquals(execs.get(0).getOrderId(), b1.getOrderId());
 		assertEquals(execs.get(1).getOrderId(), s1.getOrderId());
@@ -273,4 +276,165 @@ class OrderBookTest extends TestBase{
 		
 		assertOrderBookAsExpected("", book);
 	}
+
+	@Test
+	void testLevelQuantityAndCountMaintainedOnAddCancelAndExecution() {
+		OrderBook book = new OrderBook(10);
+		Order b1 = createBuyOrder(2000, 100.0004);
+		Order b2 = createBuyOrder(3000, 100.0004);
+		Order b3 = createBuyOrder(1000, 100.0004);
+		addOrderToBookWithSuccess(b1, book);
+		addOrderToBookWithSuccess(b2, book);
+		addOrderToBookWithSuccess(b3, book);
+		addOrderToBookWithSuccess(createSellOrder(2500, 100.0004), book);
+		assertEquals(6000, book.getAvailableBuyQtyAtPrice(1000004));
+		assertEquals(3, book.getBuyOrderCountAtPrice(1000004));
+
+		assertTrue(book.removeOrder(b3, convertPrice(b3)));
+		assertEquals(5000, book.getAvailableBuyQtyAtPrice(1000004));
+		assertEquals(2, book.getBuyOrderCountAtPrice(1000004));
+
+		// b1 fully filled and b2 partially filled
+		List<Execution> execs = book.execute(1000004, 2500, new ExecutionIdAllocator());
+		assertEquals(3, execs.size());
+		assertEquals(2500, book.getAvailableBuyQtyAtPrice(1000004));
+		assertEquals(1, book.getBuyOrderCountAtPrice(1000004));
+		assertEquals(0, book.getAvailableSellQtyAtPrice(1000004));
+		assertEquals(0, book.getSellOrderCountAtPrice(1000004));
+	}
+
+	@Test
+	void testTimePriorityKeptWhenLastOrderCancelledAndNewOrderAdded() {
+		OrderBook book = new OrderBook(10);
+		Order o1 = createBuyOrder(2000, 100.0004);
+		Order o2 = createBuyOrder(2000, 100.0004);
+		Order o3 = createBuyOrder(2000, 100.0004);
+		addOrderToBookWithSuccess(o1, book);
+		addOrderToBookWithSuccess(o2, book);
+		addOrderToBookWithSuccess(o3, book);
+		assertTrue(book.removeOrder(o3, convertPrice(o3)));
+
+		Order o4 = createBuyOrder(2000, 100.0004);
+		addOrderToBookWithSuccess(o4, book);
+		addOrderToBookWithSuccess(createSellOrder(6000, 100.0004), book);
+
+		List<Execution> execs = book.execute(1000004, 6000, new ExecutionIdAllocator());
+		assertEquals(4, execs.size());
+		assertEquals(o1.getOrderId(), execs.get(0).getOrderId());
+		assertEquals(o2.getOrderId(), execs.get(1).getOrderId());
+		assertEquals(o4.getOrderId(), execs.get(2).getOrderId());
+		assertOrderBookAsExpected("", book);
+	}
+
+	@Test
+	void testSortedOrdersAddedLevelByLevelKeepTimePriority() {
+		OrderBook book = new OrderBook(10);
+		addOrderToBookWithSuccess(createBuyOrder(1000, 100.0004), book);
+		Order[] orders = { createBuyOrder(2000, 100.0004), createBuyOrder(3000, 100.0004), createBuyOrder(1000, 100.0005),
+				createSellOrder(4000, 100.0004), createSellOrder(500, 100.0006) };
+		long[] prices = new long[orders.length];
+		for (int i = 0; i < orders.length; i++)
+			prices[i] = convertPrice(orders[i]);
+		// Duplicate of resting order is not added
+		orders[2] = new Order(orders[0].getOrderId() - 1, DEFAULT_SYMBOL, Side.Buy, 1000, 100.0005);
+		boolean[] added = new boolean[orders.length];
+
+		assertEquals(4, book.addOrders(orders, prices, 0, orders.length, added));
+		assertFalse(added[2]);
+		assertTrue(added[0] && added[1] && added[3] && added[4]);
+		assertEquals(6000, book.getAvailableBuyQtyAtPrice(1000004));
+		assertEquals(3, book.getBuyOrderCountAtPrice(1000004));
+		assertEquals(1000004, book.getIndicativePrice());
+
+		List<Execution> execs = book.execute(1000004, 4000, new ExecutionIdAllocator());
+		assertEquals(orders[0].getOrderId() - 1, execs.get(0).getOrderId());
+		assertEquals(orders[0].getOrderId(), execs.get(1).getOrderId());
+		assertEquals(orders[1].getOrderId(), execs.get(2).getOrderId());
+	}
+
+	@Test
+	void testOrderEntriesReusedAfterCancelAndExecution() {
+		OrderBook book = new OrderBook(2);
+		for (int round = 0; round < 100; round++) {
+			Order b1 = createBuyOrder(2000, 100.0004);
+			Order b2 = createBuyOrder(2000, 100.0003);
+			Order s1 = createSellOrder(2000, 100.0004);
+			addOrderToBookWithSuccess(b1, book);
+			addOrderToBookWithSuccess(b2, book);
+			addOrderToBookWithSuccess(s1, book);
+			assertEquals(3, book.getOrderCount());
+
+			assertTrue(book.removeOrder(b2.getOrderId()));
+			assertEquals(2, book.execute(1000004, 2000, new ExecutionIdAllocator()).size());
+			assertEquals(0, book.getOrderCount());
+			assertOrderBookAsExpected("", book);
+		}
+	}
+
+	@Test
+	void testMergedPricesWalkBothSidesInDescendingOrder() {
+		OrderBook book = new OrderBook(10);
+		addOrderToBookWithSuccess(createBuyOrder(2000, 100.0004), book);
+		addOrderToBookWithSuccess(createBuyOrder(2000, 100.0002), book);
+		addOrderToBookWithSuccess(createSellOrder(2000, 100.0002), book);
+		Order s2 = createSellOrder(2000, 100.0005);
+		addOrderToBookWithSuccess(s2, book);
+
+		MergedPriceCursor prices = book.getMergedPrices();
+		assertEquals(1000005, prices.next());
+		assertFalse(prices.hasBid());
+		assertTrue(prices.hasAsk());
+		assertEquals(1000004, prices.next());
+		assertTrue(prices.hasBid());
+		assertFalse(prices.hasAsk());
+		assertEquals(1000002, prices.next());
+		assertTrue(prices.hasBid());
+		assertTrue(prices.hasAsk());
+		assertFalse(prices.hasNext());
+
+		// Views are live and cursor is reused from highest price
+		assertEquals(1000004, book.getBids().best());
+		assertTrue(book.removeOrder(s2.getOrderId()));
+		assertEquals(1000002, book.getAsks().worst());
+		assertEquals(1000004, book.getMergedPrices().next());
+	}
+
+	@Test
+	void testReadsAreConsistentWhileAnotherThreadChangesBook() throws Exception {
+		final OrderBook book = new OrderBook(16);
+		final int changes = 200000;
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				// Orders of 100 each on 50 prices, at most 25 live at a time so ladder and arena keep changing
+				for (int i = 0; i < changes; i++) {
+					book.addOrder(new Order(i, DEFAULT_SYMBOL, i % 2 == 0 ? Side.Buy : Side.Sell, 100, 0), 1000 + (i * 7) % 50);
+					if (i >= 25)
+						book.removeOrder(i - 25);
+				}
+			}
+		});
+		writer.start();
+		try {
+			while (writer.isAlive()) {
+				PriceIndex bids = book.getBids();
+				long previous = Long.MAX_VALUE;
+				for (long price = bids.best(); price != PriceIndex.NULL_PRICE; price = bids.next(price)) {
+					assertTrue(price < previous);
+					previous = price;
+					long qty = book.getAvailableBuyQtyAtPrice(price);
+					assertTrue(qty % 100 == 0 && qty <= 2500);
+				}
+				assertTrue(book.getOrderCount() <= 26);
+				book.printBook(DECIMAL_PRECISION);
+			}
+		} catch (Throwable e) {
+			failure.set(e);
+		}
+		writer.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		assertEquals(25, book.getOrderCount());
+	}
 }
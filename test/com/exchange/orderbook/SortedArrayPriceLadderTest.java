@@ -0,0 +1,77 @@
+package com.exchange.orderbook;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.exchange.data.Side;
+
+class SortedArrayPriceLadderTest {
+
+	@Test
+	void testBuyLadderOrderedFromHighestPrice() {
+		PriceLadder<String> ladder = new SortedArrayPriceLadder<>(Side.Buy, 1);
+		ladder.put(100, "100");
+		ladder.put(102, "102");
+		ladder.put(101, "101");
+		ladder.put(99, "99");
+
+		assertEquals(4, ladder.size());
+		assertEquals(102, ladder.best());
+		assertEquals(99, ladder.worst());
+		assertEquals(101, ladder.next(102));
+		assertEquals(100, ladder.next(101));
+		assertEquals(PriceIndex.NULL_PRICE, ladder.next(99));
+		assertEquals(PriceIndex.NULL_PRICE, ladder.previous(102));
+		assertEquals(101, ladder.previous(100));
+		assertTrue(ladder.compare(102, 101) < 0);
+		assertEquals("101", ladder.get(101));
+	}
+
+	@Test
+	void testSellLadderOrderedFromLowestPrice() {
+		PriceLadder<String> ladder = new SortedArrayPriceLadder<>(Side.Sell, 2);
+		ladder.put(100, "100");
+		ladder.put(102, "102");
+		ladder.put(101, "101");
+
+		assertEquals(100, ladder.best());
+		assertEquals(102, ladder.worst());
+		assertEquals(101, ladder.next(100));
+		assertEquals(100, ladder.previous(101));
+		assertTrue(ladder.compare(100, 101) < 0);
+	}
+
+	@Test
+	void testNavigationFromMissingPrice() {
+		PriceLadder<String> ladder = new SortedArrayPriceLadder<>(Side.Sell, 4);
+		ladder.put(100, "100");
+		ladder.put(110, "110");
+
+		assertEquals(110, ladder.next(105));
+		assertEquals(100, ladder.previous(105));
+		assertEquals(100, ladder.next(50));
+		assertEquals(PriceIndex.NULL_PRICE, ladder.previous(50));
+		assertFalse(ladder.contains(105));
+		assertNull(ladder.get(105));
+	}
+
+	@Test
+	void testPutReplaceAndRemove() {
+		PriceLadder<String> ladder = new SortedArrayPriceLadder<>(Side.Buy, 4);
+		assertTrue(ladder.isEmpty());
+		assertEquals(PriceIndex.NULL_PRICE, ladder.best());
+
+		ladder.put(100, "a");
+		ladder.put(100, "b");
+		ladder.put(101, "c");
+		assertEquals(2, ladder.size());
+		assertEquals("b", ladder.get(100));
+
+		assertEquals("c", ladder.remove(101));
+		assertNull(ladder.remove(101));
+		assertEquals(100, ladder.best());
+		assertEquals("b", ladder.remove(100));
+		assertTrue(ladder.isEmpty());
+	}
+}
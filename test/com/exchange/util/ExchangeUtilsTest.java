@@ -26,4 +26,36 @@ class ExchangeUtilsTest {
 		assertEquals(10009999l, ExchangeUtils.convertPriceToLong(1000.9999, 4));
 	}
 
+	@Test
+	void testLongConversionIsNotTruncatedByRepresentationError() {
+		assertEquals(2900l, ExchangeUtils.convertPriceToLong(0.29, 4));
+		assertEquals(1005l, ExchangeUtils.convertPriceToLong(10.05, 2));
+		assertEquals(-2900l, ExchangeUtils.convertPriceToLong(-0.29, 4));
+	}
+
+	@Test
+	void testParsePrice() {
+		assertEquals(2900l, ExchangeUtils.parsePrice("0.29", 4));
+		assertEquals(10009999l, ExchangeUtils.parsePrice("1000.9999", 4));
+		assertEquals(10000000l, ExchangeUtils.parsePrice("1000", 4));
+		assertEquals(10000000l, ExchangeUtils.parsePrice("1000.", 4));
+		assertEquals(5000l, ExchangeUtils.parsePrice(".5", 4));
+		assertEquals(-12345l, ExchangeUtils.parsePrice("-1.2345000", 4));
+		assertEquals(12l, ExchangeUtils.parsePrice("+12", 0));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("1.23456", 4));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("1.2.3", 4));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("12a", 4));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("-", 4));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("", 4));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("99999999999999999999", 0));
+		assertThrows(NumberFormatException.class, () -> ExchangeUtils.parsePrice("999999999999", 8));
+	}
+
+	@Test
+	void testRescalePrice() {
+		assertEquals(290000l, ExchangeUtils.rescalePrice(2900, 4, 6));
+		assertEquals(29l, ExchangeUtils.rescalePrice(2999, 4, 2));
+		assertEquals(2900l, ExchangeUtils.rescalePrice(2900, 4, 4));
+	}
+
 }
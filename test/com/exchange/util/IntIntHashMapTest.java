@@ -0,0 +1,73 @@
+package com.exchange.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class IntIntHashMapTest {
+
+	@Test
+	void testPutGetRemove() {
+		IntIntHashMap map = new IntIntHashMap(4, -1);
+		assertEquals(-1, map.put(10, 1));
+		assertEquals(-1, map.put(-5, 2));
+		assertEquals(1, map.put(10, 3));
+		assertEquals(2, map.size());
+		assertEquals(3, map.get(10));
+		assertEquals(2, map.get(-5));
+		assertEquals(-1, map.get(11));
+
+		assertEquals(3, map.remove(10));
+		assertEquals(-1, map.remove(10));
+		assertFalse(map.containsKey(10));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	void testForEachKey() {
+		IntIntHashMap map = new IntIntHashMap(4, -1);
+		for (int key = 0; key < 100; key++)
+			map.put(key * 7, key);
+		map.remove(14);
+		Set<Integer> keys = new HashSet<>();
+		map.forEachKey(keys::add);
+		assertEquals(99, keys.size());
+		assertFalse(keys.contains(14));
+		assertTrue(keys.contains(693));
+	}
+
+	@Test
+	void testMissingValueCanNotBeStored() {
+		IntIntHashMap map = new IntIntHashMap(4, -1);
+		assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+	}
+
+	@Test
+	void testSameContentAsHashMapAfterRandomOperations() {
+		Random random = new Random(11);
+		IntIntHashMap map = new IntIntHashMap(2, -1);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				Integer removed = expected.remove(key);
+				assertEquals(removed == null ? -1 : removed, map.remove(key));
+			} else {
+				int value = random.nextInt(Integer.MAX_VALUE);
+				Integer previous = expected.put(key, value);
+				assertEquals(previous == null ? -1 : previous, map.put(key, value));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (int key = -1000; key < 1000; key++) {
+			Integer value = expected.get(key);
+			assertEquals(value == null ? -1 : value, map.get(key));
+		}
+	}
+}
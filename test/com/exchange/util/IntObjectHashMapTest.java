@@ -0,0 +1,58 @@
+package com.exchange.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntObjectHashMapTest {
+
+	@Test
+	void testPutIfAbsent() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+		assertNull(map.putIfAbsent(1, "a"));
+		assertEquals("a", map.putIfAbsent(1, "b"));
+		assertEquals("a", map.get(1));
+		assertEquals(1, map.size());
+		assertThrows(IllegalArgumentException.class, () -> map.put(2, null));
+	}
+
+	@Test
+	void testRemoveOnlyIfMappedToSameInstance() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+		String value = new String("a");
+		map.put(1, value);
+		assertFalse(map.remove(1, new String("a")));
+		assertFalse(map.remove(2, value));
+		assertEquals(1, map.size());
+		assertTrue(map.remove(1, value));
+		assertNull(map.get(1));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	void testSameContentAsHashMapAfterRandomOperations() {
+		Random random = new Random(13);
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>(2);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			switch (random.nextInt(3)) {
+			case 0:
+				assertEquals(expected.remove(key), map.remove(key));
+				break;
+			case 1:
+				assertEquals(expected.putIfAbsent(key, i), map.putIfAbsent(key, i));
+				break;
+			default:
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (int key = -1000; key < 1000; key++)
+			assertEquals(expected.get(key), map.get(key));
+	}
+}
@@ -0,0 +1,27 @@
+package com.exchange.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolRegistryTest {
+
+	@Test
+	void testIdsAreDenseAndStable() {
+		SymbolRegistry registry = new SymbolRegistry(2);
+		assertEquals(SymbolRegistry.NULL_ID, registry.getId("0005.HK"));
+		assertEquals(0, registry.register("0005.HK"));
+		assertEquals(1, registry.register("0001.HK"));
+		assertEquals(0, registry.register("0005.HK"));
+
+		// Registry grows beyond initial capacity
+		for (int i = 0; i < 100; i++)
+			assertEquals(i + 2, registry.register("SYM" + i));
+		assertEquals(102, registry.size());
+		assertEquals(1, registry.getId("0001.HK"));
+		assertEquals("SYM99", registry.getSymbol(101));
+		assertNull(registry.getSymbol(102));
+		assertNull(registry.getSymbol(SymbolRegistry.NULL_ID));
+	}
+}